@@ -0,0 +1,97 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.benchmark;
+
+import com.alibaba.rsqldb.common.function.AVGFunction;
+import com.alibaba.rsqldb.common.function.CountFunction;
+import com.alibaba.rsqldb.common.function.EmptyFunction;
+import com.alibaba.rsqldb.common.function.MaxFunction;
+import com.alibaba.rsqldb.common.function.MinFunction;
+import com.alibaba.rsqldb.common.function.SQLFunction;
+import com.alibaba.rsqldb.common.function.SumFunction;
+import com.alibaba.rsqldb.parser.model.statement.query.RSQLAccumulator;
+import com.alibaba.rsqldb.parser.serialization.json.JsonDe;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccumulatorBenchmark {
+    //每次result之前累加的记录数
+    @Param({"1", "100"})
+    private int recordsPerResult;
+
+    private final Properties context = new Properties();
+
+    private JsonNode[] records;
+    private RSQLAccumulator accumulator;
+
+    @Setup
+    public void setup() throws Throwable {
+        JsonDe jsonDe = new JsonDe();
+        records = new JsonNode[16];
+        for (int i = 0; i < records.length; i++) {
+            String record = "{\"position\":\"shenzhen\",\"num\":" + (i * 7 % 13) + ",\"score\":" + (60 + i) + ".5}";
+            records[i] = jsonDe.deserialize(record.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<SQLFunction> functions = new ArrayList<>();
+        functions.add(new EmptyFunction(null, "position", "position"));
+        functions.add(new CountFunction(null, "num", "count"));
+        functions.add(new SumFunction(null, "num", "sum"));
+        functions.add(new AVGFunction(null, "score", "avg"));
+        functions.add(new MaxFunction(null, "score", "max"));
+        functions.add(new MinFunction(null, "num", "min"));
+
+        accumulator = new RSQLAccumulator(functions);
+    }
+
+    @Benchmark
+    public void addValue() {
+        for (JsonNode record : records) {
+            accumulator.addValue(record);
+        }
+    }
+
+    @Benchmark
+    public ObjectNode addValueAndResult() {
+        for (int i = 0; i < recordsPerResult; i++) {
+            accumulator.addValue(records[i & (records.length - 1)]);
+        }
+        return accumulator.result(context);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.benchmark;
+
+import com.alibaba.rsqldb.common.row.RowSchema;
+import com.alibaba.rsqldb.parser.model.Calculator;
+import com.alibaba.rsqldb.parser.model.Field;
+import com.alibaba.rsqldb.parser.model.Operator;
+import com.alibaba.rsqldb.parser.model.WildcardType;
+import com.alibaba.rsqldb.parser.model.baseType.Literal;
+import com.alibaba.rsqldb.parser.model.baseType.MultiLiteral;
+import com.alibaba.rsqldb.parser.model.baseType.NumberType;
+import com.alibaba.rsqldb.parser.model.baseType.StringType;
+import com.alibaba.rsqldb.parser.model.expression.AndExpression;
+import com.alibaba.rsqldb.parser.model.expression.Expression;
+import com.alibaba.rsqldb.parser.model.expression.MultiValueExpression;
+import com.alibaba.rsqldb.parser.model.expression.OrExpression;
+import com.alibaba.rsqldb.parser.model.expression.RangeValueExpression;
+import com.alibaba.rsqldb.parser.model.expression.SingleValueCalcuExpression;
+import com.alibaba.rsqldb.parser.model.expression.SingleValueExpression;
+import com.alibaba.rsqldb.parser.model.expression.WildcardExpression;
+import com.alibaba.rsqldb.parser.serialization.json.JsonDe;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+    static final String RECORD = "{\"id\":1024,\"name\":\"RocketMQ-Streams\",\"position\":\"shenzhen\","
+            + "\"score\":87.5,\"age\":27,\"nums\":12}";
+
+    private JsonNode record;
+    private JsonNode row;
+
+    private Expression singleValue;
+    private Expression singleValueCalcu;
+    private Expression rangeValue;
+    private Expression multiValue;
+    private Expression wildcard;
+    private Expression and;
+    private Expression or;
+
+    private Predicate<JsonNode> compiledSingleValue;
+    private Predicate<JsonNode> compiledAnd;
+    private Predicate<JsonNode> compiledOr;
+
+    @Setup
+    public void setup() throws Throwable {
+        record = new JsonDe().deserialize(RECORD.getBytes(StandardCharsets.UTF_8));
+        RowSchema schema = new RowSchema(Arrays.asList("id", "name", "position", "score", "age", "nums"));
+        row = new JsonDe().deserialize(RECORD.getBytes(StandardCharsets.UTF_8), schema, null);
+
+        singleValue = new SingleValueExpression("age > 18", new Field("age", "age"), Operator.GREATER,
+                new NumberType("18", 18L));
+
+        Field nums = new Field("avg(num)", null, "num", "nums");
+        singleValueCalcu = new SingleValueCalcuExpression("avg(num) > 10", nums, Operator.GREATER,
+                new NumberType("10", 10L), Calculator.AVG);
+
+        rangeValue = new RangeValueExpression("score between 60 and 100", new Field("score", "score"), 60, 100);
+
+        List<Literal<?>> literals = new ArrayList<>();
+        literals.add(new StringType("'beijing'", "beijing"));
+        literals.add(new StringType("'hangzhou'", "hangzhou"));
+        literals.add(new StringType("'shenzhen'", "shenzhen"));
+        literals.add(new NumberType("122", 122L));
+        multiValue = new MultiValueExpression("position in ('beijing', 'hangzhou', 'shenzhen', 122)",
+                new Field("position", "position"), new MultiLiteral("('beijing', 'hangzhou', 'shenzhen', 122)", literals));
+
+        wildcard = new WildcardExpression("name like '%streams'", new Field("name", "name"), Operator.LIKE,
+                WildcardType.SUFFIX_LIKE, "streams", false);
+
+        and = new AndExpression("age > 18 and position in (...)", singleValue, multiValue);
+
+        Expression notMatch = new SingleValueExpression("id = 1", new Field("id", "id"), Operator.EQUAL,
+                new NumberType("1", 1L));
+        or = new OrExpression("id = 1 or name like '%streams'", notMatch, wildcard);
+
+        compiledSingleValue = singleValue.compile();
+        compiledAnd = and.compile();
+        compiledOr = or.compile();
+    }
+
+    @Benchmark
+    public boolean singleValue() {
+        return singleValue.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean singleValueCalcu() {
+        return singleValueCalcu.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean rangeValue() {
+        return rangeValue.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean multiValue() {
+        return multiValue.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean wildcard() {
+        return wildcard.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean and() {
+        return and.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean or() {
+        return or.isTrue(record);
+    }
+
+    @Benchmark
+    public boolean compiledSingleValue() {
+        return compiledSingleValue.test(record);
+    }
+
+    @Benchmark
+    public boolean compiledAnd() {
+        return compiledAnd.test(record);
+    }
+
+    @Benchmark
+    public boolean compiledOr() {
+        return compiledOr.test(record);
+    }
+
+    @Benchmark
+    public boolean compiledAndOnRow() {
+        return compiledAnd.test(row);
+    }
+}
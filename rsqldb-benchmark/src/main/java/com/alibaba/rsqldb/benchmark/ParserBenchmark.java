@@ -0,0 +1,74 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.benchmark;
+
+import com.alibaba.rsqldb.parser.DefaultParser;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String CREATE_TABLE = "create table odeum(`id` INT,`name` VARCHAR, `gmt_modified` TIMESTAMP) " +
+            "WITH (topic = 'rsqldb-odeum', data_format='JSON');";
+
+    private static final String FILTER_QUERY = "select field_1, field_2, field_3, field_4 " +
+            "from rocketmq_source where field_1 > 23 and field_2 = 'qw' or field_3 in('qw', '1q2', 122);";
+
+    private static final String GROUP_BY_HAVING = "SELECT `position`, avg(num) AS nums FROM source_function_0 " +
+            "WHERE position= 'shenzhen' GROUP BY position HAVING avg(num) > 10;";
+
+    private static final String WINDOW_QUERY = "SELECT TUMBLE_START(ts, INTERVAL '1' MINUTE) AS window_start, " +
+            "TUMBLE_END(ts, INTERVAL '1' MINUTE) AS window_end, username AS username, COUNT(click_url) AS clicks " +
+            "FROM window_test GROUP BY TUMBLE(ts, INTERVAL '1' MINUTE), username;";
+
+    private final DefaultParser parser = new DefaultParser();
+
+    @Benchmark
+    public List<Statement> createTable() throws Throwable {
+        return parser.parseStatement(CREATE_TABLE);
+    }
+
+    @Benchmark
+    public List<Statement> filterQuery() throws Throwable {
+        return parser.parseStatement(FILTER_QUERY);
+    }
+
+    @Benchmark
+    public List<Statement> groupByHaving() throws Throwable {
+        return parser.parseStatement(GROUP_BY_HAVING);
+    }
+
+    @Benchmark
+    public List<Statement> windowQuery() throws Throwable {
+        return parser.parseStatement(WINDOW_QUERY);
+    }
+}
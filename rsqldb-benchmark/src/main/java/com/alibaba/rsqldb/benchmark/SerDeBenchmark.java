@@ -0,0 +1,90 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.benchmark;
+
+import com.alibaba.rsqldb.parser.DefaultParser;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.parser.serialization.json.JsonDe;
+import com.alibaba.rsqldb.storage.api.Command;
+import com.alibaba.rsqldb.storage.api.CommandStatus;
+import com.alibaba.rsqldb.storage.api.serialize.DefaultCommandSerDe;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerDeBenchmark {
+    private static final String SQL = "SELECT `position`, avg(num) AS nums FROM source_function_0 " +
+            "WHERE position= 'shenzhen' GROUP BY position HAVING avg(num) > 10;";
+
+    private final JsonDe jsonDe = new JsonDe();
+    private final DefaultCommandSerDe commandSerDe = new DefaultCommandSerDe();
+
+    private final Set<String> projection = new HashSet<>(Arrays.asList("position", "nums"));
+
+    private byte[] record;
+    private Command command;
+    private byte[] commandBytes;
+
+    @Setup
+    public void setup() throws Throwable {
+        record = ExpressionBenchmark.RECORD.getBytes(StandardCharsets.UTF_8);
+
+        List<Statement> statements = new DefaultParser().parseStatement(SQL);
+        command = new Command("benchmark-job", statements.get(0), CommandStatus.RUNNING);
+        commandBytes = commandSerDe.serialize(command);
+    }
+
+    @Benchmark
+    public JsonNode jsonDeserialize() throws Throwable {
+        return jsonDe.deserialize(record);
+    }
+
+    @Benchmark
+    public JsonNode jsonDeserializeProjected() throws Throwable {
+        return jsonDe.deserialize(record, projection);
+    }
+
+    @Benchmark
+    public byte[] commandSerialize() throws Throwable {
+        return commandSerDe.serialize(command);
+    }
+
+    @Benchmark
+    public Command commandDeserialize() throws Throwable {
+        return commandSerDe.deserialize(commandBytes);
+    }
+}
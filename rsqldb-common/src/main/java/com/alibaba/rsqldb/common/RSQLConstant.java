@@ -15,6 +15,8 @@
  */
 package com.alibaba.rsqldb.common;
 
+import java.io.File;
+
 public class RSQLConstant {
 
     public static final String STAR = "*";
@@ -34,10 +36,6 @@ public class RSQLConstant {
         SINK, SOURCE
     }
 
-    public static final String COUNT = "COUNT_KEY";
-
-    public static final String SUM = "SUM_KEY";
-
 
     public static class Properties {
         public static final String TYPE = "type";
@@ -45,10 +43,61 @@ public class RSQLConstant {
         public static final String DATA_FORMAT = "data_format";
     }
 
+    //sql中未指定时使用的窗口默认值
+    public static class Window {
+        public static int ALLOW_LATENESS_MS = Integer.parseInt(System.getProperty("allowLatenessMs", "10000"));
+        public static long JOIN_WINDOW_MS = Long.parseLong(System.getProperty("joinWindowMs", "10000"));
+    }
+
+    //读取相同源表的任务共用一个source
+    public static class SharedSource {
+        public static boolean ENABLE = Boolean.parseBoolean(System.getProperty("sharedSource", "false"));
+        //组内已运行的任务重建失败后，间隔多久再重试
+        public static long RETRY_INTERVAL_MS = Long.parseLong(System.getProperty("sharedSourceRetryIntervalMs", "10000"));
+    }
+
+    /**
+     * source按表结构解析为定长槽位的Row，下游按下标取字段
+     */
+    public static class TypedRow {
+        public static boolean ENABLE = Boolean.parseBoolean(System.getProperty("typedRow", "false"));
+    }
+
     public static class RocketMQ {
         public static final String NAMESRV_ADDR= "namesrvAddr";
         public static String SQL_TOPIC_NAME = System.getProperty("sqlTopicName","RSQLDB-COMMAND-TOPIC");
         public static String SQL_GROUP_NAME = System.getProperty("sqlGroupName","RSQLDB-COMMAND-GROUP");
+        //命令快照目录及写快照的间隔，间隔小于等于0时不写快照
+        public static String SNAPSHOT_DIR = System.getProperty("commandSnapshotDir",
+                System.getProperty("user.home") + File.separator + "rsqldb" + File.separator + "snapshot");
+        public static long SNAPSHOT_INTERVAL_MS = Long.parseLong(System.getProperty("commandSnapshotIntervalMs", "60000"));
+    }
+
+    //命令的编码格式：json或binary。旧版本只能读取json，所有实例都升级到能读取binary的版本后再切换为binary
+    public static class CommandFormat {
+        public static boolean BINARY = "binary".equalsIgnoreCase(System.getProperty("commandFormat", "json"));
+    }
+
+    public static class FileStorage {
+        public static final String DIR = "fileStorageDir";
+        public static final String INITIAL_SIZE = "fileStorageInitialSize";
+        public static final String FLUSH_INTERVAL_MS = "fileStorageFlushIntervalMs";
+    }
+
+    //按任务统计各算子的处理条数、耗时和出错数，默认关闭
+    public static class Metrics {
+        public static boolean ENABLE = Boolean.parseBoolean(System.getProperty("metrics", "false"));
+    }
+
+    //解析结果缓存的条数，小于等于0时不缓存
+    public static class ParseCache {
+        public static int SIZE = Integer.parseInt(System.getProperty("parseCacheSize", "256"));
+    }
+
+    //表达式计算出错的数据：每个表达式保留最近的条数，以及打印错误日志的最小间隔
+    public static class RecordError {
+        public static int SAMPLE_SIZE = Integer.parseInt(System.getProperty("recordErrorSampleSize", "100"));
+        public static long LOG_INTERVAL_MS = Long.parseLong(System.getProperty("recordErrorLogIntervalMs", "10000"));
     }
 
 }
@@ -16,5 +16,9 @@
 package com.alibaba.rsqldb.common;
 
 public enum SerializeType {
-    JSON
+    JSON,
+    //按建表字段顺序的一行文本
+    CSV,
+    //avro二进制编码，schema由建表字段生成
+    AVRO
 }
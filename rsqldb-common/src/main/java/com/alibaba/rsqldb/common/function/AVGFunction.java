@@ -15,25 +15,26 @@
  */
 package com.alibaba.rsqldb.common.function;
 
-import com.alibaba.rsqldb.common.RSQLConstant;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NumericNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class AVGFunction implements SQLFunction {
     private static final Logger logger = LoggerFactory.getLogger(AVGFunction.class);
     private String tableName;
     private String fieldName;
+    private FieldAccessor accessor;
     private String asName;
 
     @JsonCreator
@@ -42,53 +43,54 @@ public class AVGFunction implements SQLFunction {
                        @JsonProperty("asName") String asName) {
         this.tableName = tableName;
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
         this.asName = asName;
     }
 
     @Override
-    public void apply(JsonNode jsonNode, ConcurrentHashMap<String, Object> container) {
-        JsonNode valueNode = getValue(jsonNode, tableName, fieldName);
-
-        Number sum = (Number) container.get(sumField());
-        Number count = (Number) container.get(countField());
-        if (count == null) {
-            count = new BigDecimal(1);
-        } else {
-            BigDecimal bigDecimal = new BigDecimal(String.valueOf(count));
-            count = bigDecimal.add(new BigDecimal(1));
-        }
-        container.put(countField(), count);
+    public void apply(JsonNode jsonNode, AccumulatorState state, int index) {
+        JsonNode valueNode = getValue(jsonNode, tableName, accessor);
+
+        state.addLong(countIndex(index), 1);
 
         if (!(valueNode instanceof NumericNode)) {
             return;
         }
 
-        String newValue = valueNode.asText();
-        BigDecimal value = new BigDecimal(newValue);
+        state.add(sumIndex(index), valueNode);
+    }
 
-        if (sum == null) {
-            sum = value;
-        } else {
-            BigDecimal bigDecimal = new BigDecimal(String.valueOf(sum));
-            sum = bigDecimal.add(value);
-        }
-        container.put(sumField(), sum);
+    @Override
+    public void merge(AccumulatorState state, int index, AccumulatorState other, int otherIndex) {
+        state.mergeSum(sumIndex(index), other, sumIndex(otherIndex));
+        state.mergeSum(countIndex(index), other, countIndex(otherIndex));
     }
 
+    //sum和count各占一个slot
     @Override
-    public void secondCalcu(ConcurrentHashMap<String, Object> container, Properties context) {
-        Number sum = (Number) container.get(sumField());
-        Number count = (Number) container.get(countField());
+    public int stateSize() {
+        return 2;
+    }
 
-        if (count == null || "0".equals(String.valueOf(count))) {
+    @Override
+    public void result(AccumulatorState state, int index, ObjectNode target, Properties context) {
+        int countIndex = countIndex(index);
+        if (state.isEmpty(countIndex) || state.getLong(countIndex) == 0) {
             logger.error("the divided is zero or empty.");
+            target.putNull(asName);
+            return;
+        }
+
+        int sumIndex = sumIndex(index);
+        if (state.isEmpty(sumIndex)) {
+            target.putNull(asName);
             return;
         }
 
-        BigDecimal sumBigDecimal = new BigDecimal(String.valueOf(sum));
-        BigDecimal countBigDecimal = new BigDecimal(String.valueOf(count));
+        BigDecimal sum = state.toDecimal(sumIndex);
+        BigDecimal count = BigDecimal.valueOf(state.getLong(countIndex));
 
-        container.put(asName, sumBigDecimal.divide(countBigDecimal, 2, RoundingMode.HALF_UP));
+        AccumulatorState.putDecimal(target, asName, sum.divide(count, 2, RoundingMode.HALF_UP));
     }
 
     @Override
@@ -100,12 +102,12 @@ public class AVGFunction implements SQLFunction {
         this.tableName = tableName;
     }
 
-    private String sumField() {
-        return String.join("@", RSQLConstant.SUM, asName);
+    private int sumIndex(int index) {
+        return index;
     }
 
-    private String countField() {
-        return String.join("@", RSQLConstant.COUNT, asName);
+    private int countIndex(int index) {
+        return index + 1;
     }
 
     public String getFieldName() {
@@ -114,6 +116,7 @@ public class AVGFunction implements SQLFunction {
 
     public void setFieldName(String fieldName) {
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
     }
 
     public String getAsName() {
@@ -0,0 +1,401 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.common.function;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 一个分组的聚合中间状态，每个SQLFunction占用一个或多个slot。
+ * <p>
+ * 整数累加在long slot上完成，浮点数在double slot上完成；只有DECIMAL（精确小数）或long溢出时才退化为BigDecimal。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AccumulatorState {
+    public static final byte EMPTY = 0;
+    public static final byte LONG = 1;
+    public static final byte DOUBLE = 2;
+    public static final byte DECIMAL = 3;
+    public static final byte NODE = 4;
+
+    private static final BigDecimal MAX_LONG = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_LONG = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private final byte[] types;
+    private final long[] longs;
+    private double[] doubles;
+    private BigDecimal[] decimals;
+    private JsonNode[] nodes;
+
+    public AccumulatorState(int size) {
+        this.types = new byte[size];
+        this.longs = new long[size];
+    }
+
+    @JsonCreator
+    public AccumulatorState(@JsonProperty("types") byte[] types,
+                            @JsonProperty("longs") long[] longs,
+                            @JsonProperty("doubles") double[] doubles,
+                            @JsonProperty("decimals") BigDecimal[] decimals,
+                            @JsonProperty("nodes") JsonNode[] nodes) {
+        this.types = types != null ? types : new byte[0];
+        this.longs = longs != null ? longs : new long[this.types.length];
+        this.doubles = doubles;
+        this.decimals = decimals;
+        this.nodes = nodes;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    public boolean isEmpty(int index) {
+        return types[index] == EMPTY;
+    }
+
+    public long getLong(int index) {
+        return longs[index];
+    }
+
+    public JsonNode getNode(int index) {
+        return nodes == null ? null : nodes[index];
+    }
+
+    public void setNode(int index, JsonNode node) {
+        if (nodes == null) {
+            nodes = new JsonNode[types.length];
+        }
+        nodes[index] = node;
+        types[index] = NODE;
+    }
+
+    public void addLong(int index, long value) {
+        switch (types[index]) {
+            case EMPTY: {
+                types[index] = LONG;
+                longs[index] = value;
+                break;
+            }
+            case LONG: {
+                long old = longs[index];
+                long sum = old + value;
+                //溢出时退化为BigDecimal
+                if (((old ^ sum) & (value ^ sum)) < 0) {
+                    setDecimal(index, BigDecimal.valueOf(old).add(BigDecimal.valueOf(value)));
+                } else {
+                    longs[index] = sum;
+                }
+                break;
+            }
+            case DOUBLE: {
+                doubles[index] += value;
+                break;
+            }
+            case DECIMAL: {
+                decimals[index] = decimals[index].add(BigDecimal.valueOf(value));
+                break;
+            }
+            default: {
+                throw new IllegalStateException("slot " + index + " is not numeric.");
+            }
+        }
+    }
+
+    public void addDouble(int index, double value) {
+        switch (types[index]) {
+            case EMPTY: {
+                setDouble(index, value);
+                break;
+            }
+            case LONG: {
+                setDouble(index, longs[index] + value);
+                break;
+            }
+            case DOUBLE: {
+                doubles[index] += value;
+                break;
+            }
+            case DECIMAL: {
+                decimals[index] = decimals[index].add(BigDecimal.valueOf(value));
+                break;
+            }
+            default: {
+                throw new IllegalStateException("slot " + index + " is not numeric.");
+            }
+        }
+    }
+
+    public void addDecimal(int index, BigDecimal value) {
+        byte type = types[index];
+        if (type == EMPTY) {
+            setDecimal(index, value);
+        } else {
+            setDecimal(index, toDecimal(index).add(value));
+        }
+    }
+
+    /**
+     * 按照数值节点的实际类型累加：整数走long，浮点走double，DecimalNode/BigIntegerNode走BigDecimal。
+     */
+    public void add(int index, JsonNode value) {
+        if (value.isIntegralNumber() && value.canConvertToLong()) {
+            addLong(index, value.longValue());
+        } else if (value.isDouble() || value.isFloat()) {
+            addDouble(index, value.doubleValue());
+        } else {
+            addDecimal(index, value.decimalValue());
+        }
+    }
+
+    public void max(int index, JsonNode value) {
+        extreme(index, value, true);
+    }
+
+    public void min(int index, JsonNode value) {
+        extreme(index, value, false);
+    }
+
+    //只有严格大于（小于）时才替换，与BigDecimal.max/min保持一致
+    private void extreme(int index, JsonNode value, boolean max) {
+        if (value.isIntegralNumber() && value.canConvertToLong()) {
+            extreme(index, value.longValue(), max);
+        } else if (value.isDouble() || value.isFloat()) {
+            extreme(index, value.doubleValue(), max);
+        } else {
+            extreme(index, value.isNumber() ? value.decimalValue() : new BigDecimal(value.asText()), max);
+        }
+    }
+
+    private void extreme(int index, long value, boolean max) {
+        if (types[index] == EMPTY || better(compare(index, value), max)) {
+            types[index] = LONG;
+            longs[index] = value;
+        }
+    }
+
+    private void extreme(int index, double value, boolean max) {
+        if (types[index] == EMPTY || better(compare(index, value), max)) {
+            setDouble(index, value);
+        }
+    }
+
+    private void extreme(int index, BigDecimal value, boolean max) {
+        if (types[index] == EMPTY || better(compare(index, value), max)) {
+            setDecimal(index, value);
+        }
+    }
+
+    private boolean better(int compareResult, boolean max) {
+        return max ? compareResult < 0 : compareResult > 0;
+    }
+
+    private int compare(int index, long target) {
+        switch (types[index]) {
+            case LONG:
+                return Long.compare(longs[index], target);
+            case DOUBLE:
+                return Double.compare(doubles[index], target);
+            default:
+                return toDecimal(index).compareTo(BigDecimal.valueOf(target));
+        }
+    }
+
+    private int compare(int index, double target) {
+        switch (types[index]) {
+            case LONG:
+                return Double.compare(longs[index], target);
+            case DOUBLE:
+                return Double.compare(doubles[index], target);
+            default:
+                return toDecimal(index).compareTo(BigDecimal.valueOf(target));
+        }
+    }
+
+    private int compare(int index, BigDecimal target) {
+        return toDecimal(index).compareTo(target);
+    }
+
+    //---------------------------------合并另一个state中的部分结果---------------------------------
+    public void mergeSum(int index, AccumulatorState other, int otherIndex) {
+        switch (other.types[otherIndex]) {
+            case EMPTY: {
+                break;
+            }
+            case LONG: {
+                addLong(index, other.longs[otherIndex]);
+                break;
+            }
+            case DOUBLE: {
+                addDouble(index, other.doubles[otherIndex]);
+                break;
+            }
+            case DECIMAL: {
+                addDecimal(index, other.decimals[otherIndex]);
+                break;
+            }
+            default: {
+                throw new IllegalStateException("slot " + otherIndex + " is not numeric.");
+            }
+        }
+    }
+
+    public void mergeMax(int index, AccumulatorState other, int otherIndex) {
+        mergeExtreme(index, other, otherIndex, true);
+    }
+
+    public void mergeMin(int index, AccumulatorState other, int otherIndex) {
+        mergeExtreme(index, other, otherIndex, false);
+    }
+
+    private void mergeExtreme(int index, AccumulatorState other, int otherIndex, boolean max) {
+        switch (other.types[otherIndex]) {
+            case EMPTY: {
+                break;
+            }
+            case LONG: {
+                extreme(index, other.longs[otherIndex], max);
+                break;
+            }
+            case DOUBLE: {
+                extreme(index, other.doubles[otherIndex], max);
+                break;
+            }
+            case DECIMAL: {
+                extreme(index, other.decimals[otherIndex], max);
+                break;
+            }
+            default: {
+                throw new IllegalStateException("slot " + otherIndex + " is not numeric.");
+            }
+        }
+    }
+
+    //后到的部分结果覆盖先到的
+    public void mergeNode(int index, AccumulatorState other, int otherIndex) {
+        if (other.types[otherIndex] == NODE) {
+            setNode(index, other.nodes[otherIndex]);
+        }
+    }
+
+    public BigDecimal toDecimal(int index) {
+        switch (types[index]) {
+            case LONG:
+                return BigDecimal.valueOf(longs[index]);
+            case DOUBLE:
+                return BigDecimal.valueOf(doubles[index]);
+            case DECIMAL:
+                return decimals[index];
+            default:
+                throw new IllegalStateException("slot " + index + " is not numeric.");
+        }
+    }
+
+    private void setDouble(int index, double value) {
+        if (doubles == null) {
+            doubles = new double[types.length];
+        }
+        doubles[index] = value;
+        types[index] = DOUBLE;
+    }
+
+    private void setDecimal(int index, BigDecimal value) {
+        if (decimals == null) {
+            decimals = new BigDecimal[types.length];
+        }
+        decimals[index] = value;
+        types[index] = DECIMAL;
+    }
+
+    /**
+     * 将slot中的值以asName写入结果
+     */
+    public void write(int index, String asName, ObjectNode target) {
+        switch (types[index]) {
+            case LONG: {
+                target.put(asName, longs[index]);
+                break;
+            }
+            case DOUBLE: {
+                target.put(asName, doubles[index]);
+                break;
+            }
+            case DECIMAL: {
+                putDecimal(target, asName, decimals[index]);
+                break;
+            }
+            case NODE: {
+                target.set(asName, nodes[index]);
+                break;
+            }
+            default: {
+                target.putNull(asName);
+            }
+        }
+    }
+
+    /**
+     * 有小数部分的输出为double，否则输出为long，超出long范围时原样输出
+     */
+    public static void putDecimal(ObjectNode target, String asName, BigDecimal value) {
+        if (value.toString().contains(".")) {
+            target.put(asName, value.doubleValue());
+        } else if (value.compareTo(MAX_LONG) <= 0 && value.compareTo(MIN_LONG) >= 0) {
+            target.put(asName, value.longValue());
+        } else {
+            target.put(asName, value);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(types, EMPTY);
+        if (decimals != null) {
+            Arrays.fill(decimals, null);
+        }
+        if (nodes != null) {
+            Arrays.fill(nodes, null);
+        }
+    }
+
+    public byte[] getTypes() {
+        return types;
+    }
+
+    public long[] getLongs() {
+        return longs;
+    }
+
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    public BigDecimal[] getDecimals() {
+        return decimals;
+    }
+
+    public JsonNode[] getNodes() {
+        return nodes;
+    }
+}
@@ -17,17 +17,16 @@ package com.alibaba.rsqldb.common.function;
 
 import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 
-import java.math.BigDecimal;
-import java.util.concurrent.ConcurrentHashMap;
-
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class CountFunction implements SQLFunction {
     private String tableName;
     private String fieldName;
+    private FieldAccessor accessor;
     private String asName;
 
     public CountFunction(@JsonProperty("tableName") String tableName,
@@ -35,29 +34,24 @@ public class CountFunction implements SQLFunction {
                          @JsonProperty("asName") String asName) {
         this.tableName = tableName;
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
         this.asName = asName;
     }
 
     @Override
-    public void apply(JsonNode jsonNode, final ConcurrentHashMap<String, Object> container) {
-        JsonNode valueNode = getValue(jsonNode, tableName, fieldName);
+    public void apply(JsonNode jsonNode, final AccumulatorState state, int index) {
+        JsonNode valueNode = getValue(jsonNode, tableName, accessor);
 
         if (valueNode != null || RSQLConstant.STAR.equals(fieldName)) {
-
-            Object target = container.get(asName);
-
-            if (target == null) {
-                container.put(asName, new BigDecimal(1));
-            } else {
-                Number oldNumber = (Number) target;
-                BigDecimal old = new BigDecimal(String.valueOf(oldNumber));
-                BigDecimal count = old.add(new BigDecimal(1));
-
-                container.put(asName, count);
-            }
+            state.addLong(index, 1);
         }
     }
 
+    @Override
+    public void merge(AccumulatorState state, int index, AccumulatorState other, int otherIndex) {
+        state.mergeSum(index, other, otherIndex);
+    }
+
     @Override
     public String getTableName() {
         return tableName;
@@ -73,6 +67,7 @@ public class CountFunction implements SQLFunction {
 
     public void setFieldName(String fieldName) {
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
     }
 
     public String getAsName() {
@@ -15,17 +15,17 @@
  */
 package com.alibaba.rsqldb.common.function;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class EmptyFunction implements SQLFunction {
     private String tableName;
     private String fieldName;
+    private FieldAccessor accessor;
     private String asName;
 
     @JsonCreator
@@ -34,17 +34,23 @@ public class EmptyFunction implements SQLFunction {
                          @JsonProperty("asName") String asName) {
         this.tableName = tableName;
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
         this.asName = asName;
     }
 
     @Override
-    public void apply(JsonNode jsonNode, ConcurrentHashMap<String, Object> container) {
-        JsonNode node = getValue(jsonNode, tableName, fieldName);
+    public void apply(JsonNode jsonNode, AccumulatorState state, int index) {
+        JsonNode node = getValue(jsonNode, tableName, accessor);
         if (node != null) {
-            container.put(asName, node);
+            state.setNode(index, node);
         }
     }
 
+    @Override
+    public void merge(AccumulatorState state, int index, AccumulatorState other, int otherIndex) {
+        state.mergeNode(index, other, otherIndex);
+    }
+
     @Override
     public String getTableName() {
         return tableName;
@@ -60,6 +66,7 @@ public class EmptyFunction implements SQLFunction {
 
     public void setFieldName(String fieldName) {
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
     }
 
     public String getAsName() {
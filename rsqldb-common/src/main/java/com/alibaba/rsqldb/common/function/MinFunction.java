@@ -15,18 +15,17 @@
  */
 package com.alibaba.rsqldb.common.function;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 
-import java.math.BigDecimal;
-import java.util.concurrent.ConcurrentHashMap;
-
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MinFunction implements SQLFunction {
     private String tableName;
     private String fieldName;
+    private FieldAccessor accessor;
     private String asName;
 
     @JsonCreator
@@ -35,29 +34,24 @@ public class MinFunction implements SQLFunction {
                        @JsonProperty("asName") String asName) {
         this.tableName = tableName;
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
         this.asName = asName;
     }
 
     @Override
-    public void apply(JsonNode jsonNode, ConcurrentHashMap<String, Object> container) {
-        JsonNode valueNode = getValue(jsonNode, tableName, fieldName);
-        if (valueNode != null) {
-            String value = valueNode.asText();
-            BigDecimal newValue = new BigDecimal(value);
-
-            if (!container.containsKey(asName)) {
-                container.put(asName, newValue);
-            } else {
-                Number oldNumber = (Number) container.get(asName);
-                BigDecimal old = new BigDecimal(String.valueOf(oldNumber));
-
-                BigDecimal min = old.min(newValue);
+    public void apply(JsonNode jsonNode, AccumulatorState state, int index) {
+        JsonNode valueNode = getValue(jsonNode, tableName, accessor);
 
-                container.put(asName, min);
-            }
+        if (valueNode != null) {
+            state.min(index, valueNode);
         }
     }
 
+    @Override
+    public void merge(AccumulatorState state, int index, AccumulatorState other, int otherIndex) {
+        state.mergeMin(index, other, otherIndex);
+    }
+
     @Override
     public String getTableName() {
         return tableName;
@@ -73,6 +67,7 @@ public class MinFunction implements SQLFunction {
 
     public void setFieldName(String fieldName) {
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
     }
 
     public String getAsName() {
@@ -15,12 +15,13 @@
  */
 package com.alibaba.rsqldb.common.function;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
 
 @JsonTypeInfo(
         use = JsonTypeInfo.Id.NAME,
@@ -36,7 +37,10 @@ import java.util.concurrent.ConcurrentHashMap;
         @JsonSubTypes.Type(value = WindowBoundaryTimeFunction.class, name = "windowBoundaryTimeFunction"),
 })
 public interface SQLFunction {
-    void apply(JsonNode jsonNode, final ConcurrentHashMap<String, Object> container);
+    /**
+     * 累加一条记录，中间状态保存在state中从index开始的stateSize()个slot里
+     */
+    void apply(JsonNode jsonNode, final AccumulatorState state, int index);
 
     String getTableName();
 
@@ -44,7 +48,20 @@ public interface SQLFunction {
 
     String getAsName();
 
-    default void secondCalcu(final ConcurrentHashMap<String, Object> container, Properties context) {
+    /**
+     * 将另一个state中的部分结果合并到state中，用于两阶段聚合
+     */
+    void merge(final AccumulatorState state, int index, final AccumulatorState other, int otherIndex);
+
+    default int stateSize() {
+        return 1;
+    }
+
+    /**
+     * 根据中间状态计算最终结果，以asName写入target
+     */
+    default void result(final AccumulatorState state, int index, ObjectNode target, Properties context) {
+        state.write(index, getAsName(), target);
     }
 
     default JsonNode getValue(JsonNode jsonNode, String tableName, String fieldName) {
@@ -61,4 +78,18 @@ public interface SQLFunction {
         return result;
     }
 
+    default JsonNode getValue(JsonNode jsonNode, String tableName, FieldAccessor accessor) {
+        if (jsonNode == null) {
+            return null;
+        }
+
+        JsonNode result = accessor.get(jsonNode);
+        if (result == null) {
+            String joinKey = String.join("@", tableName, accessor.getFieldName());
+            result = jsonNode.get(joinKey);
+        }
+
+        return result;
+    }
+
 }
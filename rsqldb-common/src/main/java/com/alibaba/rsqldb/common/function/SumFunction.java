@@ -15,19 +15,18 @@
  */
 package com.alibaba.rsqldb.common.function;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NumericNode;
 
-import java.math.BigDecimal;
-import java.util.concurrent.ConcurrentHashMap;
-
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SumFunction implements SQLFunction {
     private String tableName;
     private String fieldName;
+    private FieldAccessor accessor;
     private String asName;
 
     @JsonCreator
@@ -36,34 +35,24 @@ public class SumFunction implements SQLFunction {
                        @JsonProperty("asName") String asName) {
         this.tableName = tableName;
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
         this.asName = asName;
     }
 
     @Override
-    public void apply(JsonNode jsonNode, ConcurrentHashMap<String, Object> container) {
-        JsonNode valueNode = getValue(jsonNode, tableName, fieldName);
-        if (valueNode instanceof NumericNode) {
-            String value = valueNode.asText();
-            BigDecimal newValue = new BigDecimal(value);
-
-            if (!container.containsKey(asName)) {
-                container.put(asName, newValue);
-            } else {
-                Object temp = container.get(asName);
-                BigDecimal old;
-                if (temp instanceof Number) {
-                    old = new BigDecimal(String.valueOf(temp));
-                } else {
-                    throw new RuntimeException("value is not number.");
-                }
-
-                BigDecimal add = old.add(newValue);
+    public void apply(JsonNode jsonNode, AccumulatorState state, int index) {
+        JsonNode valueNode = getValue(jsonNode, tableName, accessor);
 
-                container.put(asName, add);
-            }
+        if (valueNode instanceof NumericNode) {
+            state.add(index, valueNode);
         }
     }
 
+    @Override
+    public void merge(AccumulatorState state, int index, AccumulatorState other, int otherIndex) {
+        state.mergeSum(index, other, otherIndex);
+    }
+
     @Override
     public String getTableName() {
         return tableName;
@@ -79,6 +68,7 @@ public class SumFunction implements SQLFunction {
 
     public void setFieldName(String fieldName) {
         this.fieldName = fieldName;
+        this.accessor = new FieldAccessor(fieldName);
     }
 
     public String getAsName() {
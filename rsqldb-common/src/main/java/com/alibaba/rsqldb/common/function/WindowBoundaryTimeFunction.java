@@ -19,9 +19,10 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.math.BigDecimal;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class WindowBoundaryTimeFunction implements SQLFunction {
@@ -64,18 +65,38 @@ public class WindowBoundaryTimeFunction implements SQLFunction {
     }
 
     @Override
-    public void apply(JsonNode jsonNode, ConcurrentHashMap<String, Object> container) {
+    public void apply(JsonNode jsonNode, AccumulatorState state, int index) {
+    }
+
+    @Override
+    public void merge(AccumulatorState state, int index, AccumulatorState other, int otherIndex) {
+    }
 
+    @Override
+    public int stateSize() {
+        return 0;
     }
 
     @Override
-    public void secondCalcu(ConcurrentHashMap<String, Object> container, Properties context) {
-        if (container == null) {
+    public void result(AccumulatorState state, int index, ObjectNode target, Properties context) {
+        if (context == null) {
             throw new IllegalArgumentException("would not be null.");
         }
 
-        Object target = context.get(fieldName);
+        Object value = context.get(fieldName);
 
-        container.put(asName, target);
+        if (value instanceof Long || value instanceof Integer) {
+            target.put(asName, ((Number) value).longValue());
+        } else if (value instanceof Number) {
+            AccumulatorState.putDecimal(target, asName, new BigDecimal(String.valueOf(value)));
+        } else if (value instanceof String) {
+            target.put(asName, (String) value);
+        } else if (value instanceof JsonNode) {
+            target.set(asName, (JsonNode) value);
+        } else if (value == null) {
+            target.putNull(asName);
+        } else {
+            throw new UnsupportedOperationException("unsupported type: " + value.getClass());
+        }
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.common.row;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 按字段名取值；数据是Row时，字段的槽位按schema解析一次后缓存
+ */
+public final class FieldAccessor {
+    private final String fieldName;
+    private Resolved resolved;
+
+    public FieldAccessor(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public JsonNode get(JsonNode record) {
+        if (record instanceof Row) {
+            Row row = (Row) record;
+            RowSchema schema = row.getSchema();
+
+            Resolved resolved = this.resolved;
+            if (resolved == null || resolved.schema != schema) {
+                resolved = new Resolved(schema, schema.indexOf(fieldName));
+                this.resolved = resolved;
+            }
+
+            if (resolved.index >= 0) {
+                return row.slot(resolved.index);
+            }
+        }
+
+        return record.get(fieldName);
+    }
+
+    //不可变，多线程下无需同步
+    private static final class Resolved {
+        private final RowSchema schema;
+        private final int index;
+
+        private Resolved(RowSchema schema, int index) {
+            this.schema = schema;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.common.row;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 按schema定长槽位存储字段的ObjectNode，schema中的字段可以用下标直接访问，见{@link FieldAccessor}；
+ * 不在schema中的字段（例如select的别名）存放在额外的map中，对外行为与ObjectNode一致
+ */
+public class Row extends ObjectNode {
+    private final RowSchema schema;
+    private final Slots slots;
+
+    public Row(JsonNodeFactory nodeFactory, RowSchema schema) {
+        this(nodeFactory, new Slots(schema));
+    }
+
+    private Row(JsonNodeFactory nodeFactory, Slots slots) {
+        super(nodeFactory, slots);
+        this.schema = slots.schema;
+        this.slots = slots;
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return 字段不存在时返回null
+     */
+    public JsonNode slot(int index) {
+        return slots.values[index];
+    }
+
+    @Override
+    public ObjectNode deepCopy() {
+        Row result = new Row(_nodeFactory, schema);
+        for (Map.Entry<String, JsonNode> entry : slots.entrySet()) {
+            result.slots.put(entry.getKey(), entry.getValue().deepCopy());
+        }
+        return result;
+    }
+
+    private static final class Slots extends AbstractMap<String, JsonNode> {
+        private final RowSchema schema;
+        private final JsonNode[] values;
+        private int size;
+        //schema之外的字段
+        private Map<String, JsonNode> extra;
+
+        private Slots(RowSchema schema) {
+            this.schema = schema;
+            this.values = new JsonNode[schema.size()];
+        }
+
+        @Override
+        public JsonNode get(Object key) {
+            int index = schema.indexOf(key);
+            if (index >= 0) {
+                return values[index];
+            }
+            return extra == null ? null : extra.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public JsonNode put(String key, JsonNode value) {
+            int index = schema.indexOf(key);
+            if (index < 0) {
+                if (extra == null) {
+                    extra = new LinkedHashMap<>();
+                }
+                return extra.put(key, value);
+            }
+
+            JsonNode old = values[index];
+            values[index] = value;
+            if (old == null) {
+                size++;
+            }
+            return old;
+        }
+
+        @Override
+        public JsonNode remove(Object key) {
+            int index = schema.indexOf(key);
+            if (index < 0) {
+                return extra == null ? null : extra.remove(key);
+            }
+
+            JsonNode old = values[index];
+            if (old != null) {
+                values[index] = null;
+                size--;
+            }
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return extra == null ? size : size + extra.size();
+        }
+
+        @Override
+        public void clear() {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = null;
+            }
+            size = 0;
+            extra = null;
+        }
+
+        @Override
+        public Set<Entry<String, JsonNode>> entrySet() {
+            return new AbstractSet<Entry<String, JsonNode>>() {
+                @Override
+                public Iterator<Entry<String, JsonNode>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return Slots.this.size();
+                }
+            };
+        }
+
+        private int nextSlot(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        private final class EntryIterator implements Iterator<Entry<String, JsonNode>> {
+            private int cursor = nextSlot(0);
+            private int last = -1;
+            private Iterator<Entry<String, JsonNode>> extraIterator;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < values.length || extraIterator().hasNext();
+            }
+
+            @Override
+            public Entry<String, JsonNode> next() {
+                if (cursor < values.length) {
+                    last = cursor;
+                    cursor = nextSlot(cursor + 1);
+                    return new SlotEntry(last);
+                }
+
+                last = -1;
+                if (!extraIterator().hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return extraIterator.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last >= 0) {
+                    if (values[last] != null) {
+                        values[last] = null;
+                        size--;
+                    }
+                    last = -1;
+                } else if (extraIterator != null) {
+                    extraIterator.remove();
+                } else {
+                    throw new IllegalStateException();
+                }
+            }
+
+            private Iterator<Entry<String, JsonNode>> extraIterator() {
+                if (extraIterator == null) {
+                    extraIterator = extra == null ? Collections.emptyIterator() : extra.entrySet().iterator();
+                }
+                return extraIterator;
+            }
+        }
+
+        private final class SlotEntry implements Entry<String, JsonNode> {
+            private final int index;
+
+            private SlotEntry(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public String getKey() {
+                return schema.fieldName(index);
+            }
+
+            @Override
+            public JsonNode getValue() {
+                return values[index];
+            }
+
+            @Override
+            public JsonNode setValue(JsonNode value) {
+                JsonNode old = values[index];
+                values[index] = value;
+                return old;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                return getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return getKey().hashCode() ^ Objects.hashCode(getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.common.row;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Row的字段布局，字段顺序即槽位顺序，在生成执行计划时确定
+ */
+public final class RowSchema {
+    private final String[] fieldNames;
+    private final Map<String, Integer> indexes;
+    private final Set<String> fieldNameSet;
+
+    public RowSchema(Collection<String> fieldNames) {
+        this.fieldNames = fieldNames.toArray(new String[0]);
+        this.indexes = new HashMap<>(this.fieldNames.length * 2);
+        for (int i = 0; i < this.fieldNames.length; i++) {
+            this.indexes.put(this.fieldNames[i], i);
+        }
+        this.fieldNameSet = Collections.unmodifiableSet(indexes.keySet());
+    }
+
+    public int size() {
+        return fieldNames.length;
+    }
+
+    public String fieldName(int index) {
+        return fieldNames[index];
+    }
+
+    /**
+     * @return 不在schema中时返回-1
+     */
+    public int indexOf(Object fieldName) {
+        Integer index = indexes.get(fieldName);
+        return index == null ? -1 : index;
+    }
+
+    public Set<String> getFieldNames() {
+        return fieldNameSet;
+    }
+
+    @Override
+    public String toString() {
+        return "RowSchema{" +
+                "fieldNames=" + String.join(",", fieldNames) +
+                '}';
+    }
+}
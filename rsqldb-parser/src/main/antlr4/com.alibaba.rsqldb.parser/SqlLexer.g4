@@ -81,6 +81,9 @@ PRIMARY:                                'PRIMARY'           |       'primary';
 KEY:                                    'KEY'               |       'key';
 EMIT:                                   'EMIT'              |       'emit';
 CHANGES:                                'CHANGES'           |       'changes';
+WITHIN:                                 'WITHIN'            |       'within';
+ALLOW:                                  'ALLOW'             |       'allow';
+LATENESS:                               'LATENESS'          |       'lateness';
 FALSE:                                  'FALSE'             |       'false';
 TRUE:                                   'TRUE'              |       'true';
 WHEN:                                   'WHEN'              |       'when';
@@ -48,6 +48,7 @@ query
      (groupByPhrase)?
      (havingPhrase)?
      (joinPhrase (wherePhrase)? (groupByPhrase)? (havingPhrase)?)?
+     (latenessPhrase)?
     ;
 
 wherePhrase
@@ -60,7 +61,11 @@ havingPhrase
     : HAVING booleanExpression
     ;
 joinPhrase
-    : (LEFT | INNER)? JOIN tableName (AS identifier)? ON joinCondition
+    : (LEFT | INNER)? JOIN tableName (AS identifier)? ON joinCondition (WITHIN joinWindow)?
+    ;
+//ALLOW LATENESS INTERVAL '5' SECOND
+latenessPhrase
+    : ALLOW LATENESS INTERVAL QUOTED_NUMBER timeunit
     ;
 
 selectField
@@ -134,6 +139,11 @@ session_window
     : (SESSION | SESSION_START | SESSION_END) LR_BRACKET fieldName COMMA INTERVAL QUOTED_NUMBER timeunit RR_BRACKET
     ;
 
+//WITHIN HOP(INTERVAL '10' SECOND, INTERVAL '1' MINUTE)，join窗口不需要时间字段
+joinWindow
+    : (TUMBLE | HOP | SESSION) LR_BRACKET INTERVAL QUOTED_NUMBER timeunit (COMMA INTERVAL QUOTED_NUMBER timeunit)? RR_BRACKET
+    ;
+
 operator
     : EQUAL_SYMBOL | GREATER_SYMBOL | LESS_SYMBOL | NOT_EQUAL_SYMBOL | GREATER_EQUAL_SYMBOL | LESS_EQUAL_SYMBOL
     ;
@@ -185,6 +195,8 @@ nonReserved
     | PRIMARY | KEY
     | EMIT
     | CHANGES
+    | WITHIN
+    | ALLOW | LATENESS
     ;
 
 ifExists
@@ -16,26 +16,113 @@
 package com.alibaba.rsqldb.parser;
 
 
+import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
 import com.alibaba.rsqldb.parser.impl.DefaultErrorListener;
 import com.alibaba.rsqldb.parser.impl.DefaultVisitor;
+import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.ListNode;
 import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.parser.serialization.FieldKeyDeserializer;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CodePointCharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DefaultParser implements RsqlParser {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    static {
+        SimpleModule simpleModule = new SimpleModule();
+        simpleModule.addKeyDeserializer(Field.class, new FieldKeyDeserializer());
+        objectMapper.registerModule(simpleModule);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
+                .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+    }
+
     private final DefaultVisitor visitor = new DefaultVisitor();
 
+    //sql -> 解析结果，LRU淘汰
+    private final Map<String, List<Cached>> cache;
+
+    public DefaultParser() {
+        this(RSQLConstant.ParseCache.SIZE);
+    }
+
+    public DefaultParser(int cacheSize) {
+        if (cacheSize <= 0) {
+            this.cache = null;
+        } else {
+            this.cache = Collections.synchronizedMap(new LinkedHashMap<String, List<Cached>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<Cached>> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+        }
+    }
+
+    /**
+     * 带?占位符的sql，绑定参数后解析，相同参数的sql命中缓存
+     */
+    public PreparedSql prepare(String sql) {
+        return new PreparedSql(this, sql);
+    }
+
+    /**
+     * statement在build时会被修改，命中缓存时返回一份拷贝；
+     * sql中的空白会进入statement的content并参与生成jobId，所以缓存key只去掉首尾空白
+     */
     @Override
-    @SuppressWarnings("unchecked")
     public List<Statement> parseStatement(String sql) throws SyntaxErrorException {
+        if (StringUtils.isEmpty(sql) || cache == null) {
+            return doParse(sql);
+        }
+
+        String key = sql.trim();
+        List<Cached> cached = cache.get(key);
+        if (cached != null) {
+            List<Statement> result = new ArrayList<>(cached.size());
+            for (Cached item : cached) {
+                result.add(item.copy());
+            }
+            return result;
+        }
+
+        List<Statement> result = doParse(sql);
+
+        List<Cached> value = new ArrayList<>(result.size());
+        for (Statement statement : result) {
+            Cached item = Cached.of(statement);
+            if (item == null) {
+                return result;
+            }
+            value.add(item);
+        }
+        cache.put(key, value);
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Statement> doParse(String sql) throws SyntaxErrorException {
         List<Statement> result = new ArrayList<>();
         if (StringUtils.isEmpty(sql)) {
             return result;
@@ -49,10 +136,23 @@ public class DefaultParser implements RsqlParser {
         sqlLexer.removeErrorListeners();
         sqlLexer.addErrorListener(new DefaultErrorListener());
 
+        //先用SLL预测，大部分sql不需要完整上下文；SLL失败（包括语法错误）时用LL重新解析，报错与之前一致
         parser.removeErrorListeners();
-        parser.addErrorListener(new DefaultErrorListener());
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        com.alibaba.rsqldb.parser.SqlParser.SqlStatementsContext statements;
+        try {
+            statements = parser.sqlStatements();
+        } catch (ParseCancellationException e) {
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(new DefaultErrorListener());
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
 
-        com.alibaba.rsqldb.parser.SqlParser.SqlStatementsContext statements = parser.sqlStatements();
+            statements = parser.sqlStatements();
+        }
 
 
         ListNode<Node> nodes = (ListNode<Node>) visitor.visit(statements);
@@ -67,4 +167,31 @@ public class DefaultParser implements RsqlParser {
 
         return result;
     }
+
+    private static class Cached {
+        private final Class<? extends Statement> clazz;
+        private final byte[] body;
+
+        private Cached(Class<? extends Statement> clazz, byte[] body) {
+            this.clazz = clazz;
+            this.body = body;
+        }
+
+        //不能序列化的statement不缓存
+        static Cached of(Statement statement) {
+            try {
+                return new Cached(statement.getClass(), objectMapper.writeValueAsBytes(statement));
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+
+        Statement copy() throws SyntaxErrorException {
+            try {
+                return objectMapper.readValue(body, clazz);
+            } catch (Throwable t) {
+                throw new SyntaxErrorException("copy cached statement error.", t);
+            }
+        }
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带?占位符的sql，例如：select * from t where id = ? and name = ?;
+ * 引号、反引号和注释中的?不是占位符。参数按顺序替换为字面量：字符串加单引号并转义，数字、布尔原样，null为NULL
+ */
+public class PreparedSql {
+    private final DefaultParser parser;
+    private final String sql;
+    //按占位符切分后的sql片段，片段数 = 占位符数 + 1
+    private final List<String> parts;
+
+    PreparedSql(DefaultParser parser, String sql) {
+        this.parser = parser;
+        this.sql = sql;
+        this.parts = split(sql);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParameterCount() {
+        return parts.size() - 1;
+    }
+
+    public List<Statement> parse(Object... params) throws SyntaxErrorException {
+        return parser.parseStatement(bind(params));
+    }
+
+    public String bind(Object... params) throws SyntaxErrorException {
+        int count = params == null ? 0 : params.length;
+        if (count != getParameterCount()) {
+            throw new SyntaxErrorException("expect " + getParameterCount() + " parameters, but got " + count + ".");
+        }
+
+        StringBuilder builder = new StringBuilder(sql.length() + count * 8);
+        builder.append(parts.get(0));
+        for (int i = 0; i < count; i++) {
+            appendLiteral(builder, params[i]);
+            builder.append(parts.get(i + 1));
+        }
+        return builder.toString();
+    }
+
+    private static void appendLiteral(StringBuilder builder, Object param) throws SyntaxErrorException {
+        if (param == null) {
+            builder.append("NULL");
+        } else if (param instanceof Double || param instanceof Float) {
+            double value = ((Number) param).doubleValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new SyntaxErrorException("unsupported parameter: " + param);
+            }
+            //NUMBER不支持科学计数法，例如1.0E10；保留小数点，解析后仍然是浮点数
+            String plain = new BigDecimal(param.toString()).toPlainString();
+            builder.append(plain);
+            if (plain.indexOf('.') == -1) {
+                builder.append(".0");
+            }
+        } else if (param instanceof BigDecimal) {
+            builder.append(((BigDecimal) param).toPlainString());
+        } else if (param instanceof Number || param instanceof Boolean) {
+            builder.append(param);
+        } else if (param instanceof CharSequence || param instanceof Character) {
+            builder.append('\'').append(param.toString().replace("'", "''")).append('\'');
+        } else {
+            throw new SyntaxErrorException("unsupported parameter type: " + param.getClass().getName());
+        }
+    }
+
+    private static List<String> split(String sql) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                //引号内的字符原样保留，两个连续引号表示转义
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == c) {
+                        if (i + 1 < length && sql.charAt(i + 1) == c) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '?') {
+                result.add(sql.substring(start, i));
+                start = ++i;
+            } else {
+                i++;
+            }
+        }
+        result.add(sql.substring(Math.min(start, length)));
+        return result;
+    }
+}
@@ -16,7 +16,9 @@
 package com.alibaba.rsqldb.parser.impl;
 
 import com.alibaba.rsqldb.common.RSQLConstant;
+import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.statement.CreateTableStatement;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -32,10 +34,15 @@ import org.apache.rocketmq.streams.core.rstream.StreamBuilder;
 import org.apache.rocketmq.streams.core.rstream.WindowStream;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class BuildContext {
     private final DefaultMQProducer producer;
+    private final String streamId;
+    //当前构建的任务，共用source时随任务切换
+    private String jobId;
     private final StreamBuilder streamBuilder;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Map<String, Object> header = new HashMap<>();
@@ -43,12 +50,21 @@ public class BuildContext {
     //------------------------------source------------------------------
     private final Map<String/*tableName*/, RStream<JsonNode>> rStreamSource = new HashMap<>();
 
+    //查询引用到的源表字段，source端据此裁剪
+    private final Map<String/*tableName*/, Set<String>> projections = new HashMap<>();
+
+    //查询的where条件，source端解析时提前过滤
+    private final Map<String/*tableName*/, Expression> pushdownFilters = new HashMap<>();
+
+    //多个任务共用source：每张源表只构建一次，裁剪字段固定为各任务的并集，不下推过滤条件
+    private boolean sharedSource = false;
+
     //--------------------------------生成结果---------------------------------
     private RStream<? extends JsonNode> rStreamResult;
 
-    private GroupedStream<String, ? extends JsonNode> groupedStreamResult;
+    private GroupedStream<GroupByKey, ? extends JsonNode> groupedStreamResult;
 
-    private WindowStream<String, ? extends JsonNode> windowStreamResult;
+    private WindowStream<GroupByKey, ? extends JsonNode> windowStreamResult;
 
     private JoinedStream<?, ?> joinedStreamResult;
 
@@ -60,6 +76,8 @@ public class BuildContext {
 
     public BuildContext(DefaultMQProducer producer, String jobId) {
         this.producer = producer;
+        this.streamId = jobId;
+        this.jobId = jobId;
         this.streamBuilder = new StreamBuilder(jobId);
         this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
                 .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
@@ -69,6 +87,21 @@ public class BuildContext {
                 .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
     }
 
+    /**
+     * 创建stream时的id，共用source时为分组的id，不随正在构建的任务变化
+     */
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
     public StreamBuilder getStreamBuilder() {
         return streamBuilder;
     }
@@ -89,19 +122,67 @@ public class BuildContext {
         this.rStreamSource.put(tableName, rStream);
     }
 
-    public GroupedStream<String, ? extends JsonNode> getGroupedStreamResult() {
+    public Set<String> getSourceTableNames() {
+        return new HashSet<>(this.rStreamSource.keySet());
+    }
+
+    public boolean isSharedSource() {
+        return sharedSource;
+    }
+
+    public void shareSource(Map<String/*tableName*/, Set<String>> projections) {
+        this.sharedSource = true;
+        this.projections.clear();
+        this.projections.putAll(projections);
+        this.pushdownFilters.clear();
+    }
+
+    /**
+     * 共用source时，构建下一个任务前清理上一个任务的结果
+     */
+    public void resetResult() {
+        this.rStreamResult = null;
+        this.groupedStreamResult = null;
+        this.windowStreamResult = null;
+        this.joinedStreamResult = null;
+        this.createTableStatement = null;
+    }
+
+    public Set<String> getProjection(String tableName) {
+        return this.projections.get(tableName);
+    }
+
+    public void putProjection(String tableName, Set<String> fieldNames) {
+        if (fieldNames == null || sharedSource) {
+            return;
+        }
+        this.projections.put(tableName, fieldNames);
+    }
+
+    public Expression getPushdownFilter(String tableName) {
+        return this.pushdownFilters.get(tableName);
+    }
+
+    public void putPushdownFilter(String tableName, Expression expression) {
+        if (expression == null || sharedSource) {
+            return;
+        }
+        this.pushdownFilters.put(tableName, expression);
+    }
+
+    public GroupedStream<GroupByKey, ? extends JsonNode> getGroupedStreamResult() {
         return groupedStreamResult;
     }
 
-    public void setGroupedStreamResult(GroupedStream<String, ? extends JsonNode> groupedStreamResult) {
+    public void setGroupedStreamResult(GroupedStream<GroupByKey, ? extends JsonNode> groupedStreamResult) {
         this.groupedStreamResult = groupedStreamResult;
     }
 
-    public WindowStream<String, ? extends JsonNode> getWindowStreamResult() {
+    public WindowStream<GroupByKey, ? extends JsonNode> getWindowStreamResult() {
         return windowStreamResult;
     }
 
-    public void setWindowStreamResult(WindowStream<String, ? extends JsonNode> windowStreamResult) {
+    public void setWindowStreamResult(WindowStream<GroupByKey, ? extends JsonNode> windowStreamResult) {
         this.windowStreamResult = windowStreamResult;
     }
 
@@ -117,6 +117,30 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
 
     @Override
     public Node visitQuery(SqlParser.QueryContext ctx) {
+        QueryStatement queryStatement = buildQuery(ctx);
+
+        SqlParser.JoinPhraseContext joinPhraseContext = ctx.joinPhrase();
+        if (joinPhraseContext != null && joinPhraseContext.joinWindow() != null) {
+            ((JointStatement) queryStatement).setJoinWindow((WindowInfoInSQL) visit(joinPhraseContext.joinWindow()));
+        }
+
+        SqlParser.LatenessPhraseContext latenessPhraseContext = ctx.latenessPhrase();
+        if (latenessPhraseContext != null) {
+            if (!(queryStatement instanceof WindowQueryStatement) && !(queryStatement instanceof JointStatement)) {
+                throw new SyntaxErrorException("allow lateness only works on window or join query. sql=" + ParserUtil.getText(ctx));
+            }
+
+            long lateness = toMillis(latenessPhraseContext.QUOTED_NUMBER(), latenessPhraseContext.timeunit());
+            if (lateness > Integer.MAX_VALUE) {
+                throw new SyntaxErrorException("allow lateness is too large. sql=" + ParserUtil.getText(ctx));
+            }
+            queryStatement.setAllowLateness((int) lateness);
+        }
+
+        return queryStatement;
+    }
+
+    private QueryStatement buildQuery(SqlParser.QueryContext ctx) {
         SQLType SQLType = SelectTypeUtil.whichType(ctx);
 
         SqlParser.SelectFieldContext selectFieldContext = ctx.selectField();
@@ -778,6 +802,43 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
         return windowInfoInSQL;
     }
 
+    @Override
+    public Node visitJoinWindow(SqlParser.JoinWindowContext ctx) {
+        WindowInfoInSQL.WindowType type;
+        if (ctx.TUMBLE() != null) {
+            type = WindowInfoInSQL.WindowType.TUMBLE;
+        } else if (ctx.HOP() != null) {
+            type = WindowInfoInSQL.WindowType.HOP;
+        } else {
+            type = WindowInfoInSQL.WindowType.SESSION;
+        }
+
+        int intervalNum = ctx.QUOTED_NUMBER().size();
+        if ((type == WindowInfoInSQL.WindowType.HOP) != (intervalNum == 2)) {
+            throw new SyntaxErrorException("hop join window needs slide and size, tumble and session join window need size only. sql=" + ParserUtil.getText(ctx));
+        }
+
+        //与hop_window一致，HOP(slide, size)
+        long size = toMillis(ctx.QUOTED_NUMBER(intervalNum - 1), ctx.timeunit(intervalNum - 1));
+        long slide = toMillis(ctx.QUOTED_NUMBER(0), ctx.timeunit(0));
+
+        WindowInfoInSQL windowInfoInSQL = new WindowInfoInSQL(ParserUtil.getText(ctx), type, slide, size, null);
+        windowInfoInSQL.setTimeUnit(TimeUnit.MILLISECONDS);
+        return windowInfoInSQL;
+    }
+
+    private long toMillis(TerminalNode number, SqlParser.TimeunitContext timeunitContext) {
+        long num = Long.parseLong(ParserUtil.getLiteralText(number));
+        TimeUnit timeUnit = ParserUtil.getTimeUnit(timeunitContext.getText());
+
+        assert timeUnit != null;
+        long millis = timeUnit.toMillis(num);
+        if (millis <= 0) {
+            throw new SyntaxErrorException("interval must be positive. interval=" + num + " " + timeUnit);
+        }
+        return millis;
+    }
+
     @Override
     public Node visitJointExpression(SqlParser.JointExpressionContext ctx) {
         SqlParser.BooleanExpressionContext leftExpressionContext = ctx.booleanExpression(0);
@@ -883,7 +944,8 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
         switch (pair.getKey()) {
             case SUFFIX_LIKE:
             case DOUBLE_LIKE:
-            case PREFIX_LIKE:{
+            case PREFIX_LIKE:
+            case PATTERN:{
                 operator = Operator.LIKE;
                 break;
             }
@@ -907,24 +969,12 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             text = ParserUtil.getLiteralText(quotedString);
         }
 
-        WildcardType type;
-        String target;
-
-        if (text.startsWith("%") && text.endsWith("%")) {
-            type = WildcardType.DOUBLE_LIKE;
-            target = text.substring(1, text.length() - 1);
-        } else if (text.startsWith("%") && !text.endsWith("%")) {
-            type = WildcardType.PREFIX_LIKE;
-            target = text.substring(1);
-        } else if (!text.startsWith("%") && text.endsWith("%")) {
-            type = WildcardType.SUFFIX_LIKE;
-            target = text.substring(0, text.length() -1);
-        } else {
-            //indispensable
-            throw new SyntaxErrorException("% is indispensable in like grammar.");
+        //%匹配任意个字符，_匹配一个字符，例如'a_c'、'%a%b_'
+        if (text == null || (!text.contains("%") && !text.contains("_"))) {
+            throw new SyntaxErrorException("% or _ is indispensable in like grammar.");
         }
 
-        Pair<WildcardType, String> pair = new Pair<>(type, target);
+        Pair<WildcardType, String> pair = new Pair<>(WildcardType.PATTERN, text);
         return  new PairNode<WildcardType, String>(ParserUtil.getText(ctx), pair);
     }
 
@@ -992,7 +1042,7 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             return null;
         }
 
-        text = text.substring(1, text.length() - 1);
+        text = ParserUtil.unquote(text);
 
         return new StringType(ParserUtil.getText(ctx), text);
     }
@@ -1004,7 +1054,7 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             return null;
         }
 
-        text = text.substring(1, text.length() - 1);
+        text = ParserUtil.unquote(text);
         return new StringType(ParserUtil.getText(ctx), text);
     }
 
@@ -1016,7 +1066,7 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             return null;
         }
 
-        text = text.substring(1, text.length() - 1);
+        text = ParserUtil.unquote(text);
         return new StringType(ParserUtil.getText(ctx), text);
     }
 
@@ -1080,7 +1130,7 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             return null;
         }
 
-        text = text.substring(1, text.length() - 1);
+        text = ParserUtil.unquote(text);
 
         return new StringType(ParserUtil.getText(ctx), text);
     }
@@ -1109,7 +1159,7 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             return null;
         }
 
-        text = text.substring(1, text.length() - 1);
+        text = ParserUtil.unquote(text);
 
         return new StringType(ParserUtil.getText(ctx), text);
     }
@@ -1122,7 +1172,7 @@ public class DefaultVisitor extends SqlParserBaseVisitor<Node> {
             return null;
         }
 
-        text = text.substring(1, text.length() - 1);
+        text = ParserUtil.unquote(text);
 
         return new StringType(ParserUtil.getText(ctx), text);
     }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.metrics;
+
+import com.alibaba.rsqldb.common.RSQLConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个表达式计算出错的数据：累计出错条数，保留最近的若干条，错误日志按间隔限流打印
+ */
+public class ExpressionErrors {
+    private static final Logger logger = LoggerFactory.getLogger(ExpressionErrors.class);
+
+    private static final ConcurrentHashMap<String/*jobId*/, ConcurrentHashMap<String/*operator@expression*/, ExpressionErrors>> errors = new ConcurrentHashMap<>();
+
+    private final String jobId;
+    private final String operator;
+    private final String expression;
+    private final OperatorMetrics metrics;
+
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong index = new AtomicLong();
+    private final AtomicReferenceArray<Sample> samples;
+
+    private final AtomicLong nextLogTime = new AtomicLong();
+    private final AtomicLong loggedCount = new AtomicLong();
+
+    ExpressionErrors(String jobId, String operator, String expression, OperatorMetrics metrics) {
+        this.jobId = jobId;
+        this.operator = operator;
+        this.expression = expression;
+        this.metrics = metrics;
+        this.samples = new AtomicReferenceArray<>(Math.max(1, RSQLConstant.RecordError.SAMPLE_SIZE));
+    }
+
+    public static ExpressionErrors of(String jobId, String operator, String expression) {
+        OperatorMetrics metrics = MetricsRegistry.of(jobId, operator);
+        if (jobId == null) {
+            return new ExpressionErrors(null, operator, expression, metrics);
+        }
+
+        return errors.computeIfAbsent(jobId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operator + "@" + expression, key -> new ExpressionErrors(jobId, operator, expression, metrics));
+    }
+
+    public static void remove(String jobId) {
+        errors.remove(jobId);
+    }
+
+    public static List<Summary> summary(String jobId) {
+        List<Summary> result = new ArrayList<>();
+        if (jobId != null) {
+            Map<String, ExpressionErrors> expressions = errors.get(jobId);
+            if (expressions != null) {
+                summary(expressions.values(), result);
+            }
+        } else {
+            for (Map<String, ExpressionErrors> expressions : errors.values()) {
+                summary(expressions.values(), result);
+            }
+        }
+        return result;
+    }
+
+    private static void summary(Collection<ExpressionErrors> expressions, List<Summary> result) {
+        for (ExpressionErrors expression : expressions) {
+            result.add(expression.summary());
+        }
+    }
+
+    public void report(Object value, Throwable t) {
+        count.increment();
+        metrics.error();
+
+        long now = System.currentTimeMillis();
+        samples.set((int) (index.getAndIncrement() % samples.length()), new Sample(now, value, t));
+
+        long next = nextLogTime.get();
+        if (now >= next && nextLogTime.compareAndSet(next, now + RSQLConstant.RecordError.LOG_INTERVAL_MS)) {
+            long total = count.sum();
+            long suppressed = total - loggedCount.getAndSet(total) - 1;
+            logger.warn("{} error, jobId:[{}], expression:[{}], value=[{}], suppressed {} errors since last log.",
+                    operator, jobId, expression, value, suppressed, t);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    Summary summary() {
+        List<Sample> result = new ArrayList<>(samples.length());
+        long end = index.get();
+        for (long i = Math.max(0, end - samples.length()); i < end; i++) {
+            Sample sample = samples.get((int) (i % samples.length()));
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        Collections.reverse(result);
+        return new Summary(jobId, operator, expression, count.sum(), result);
+    }
+
+    public static class Summary {
+        private final String jobId;
+        private final String operator;
+        private final String expression;
+        private final long count;
+        //最近出错的数据，新的在前
+        private final List<Sample> samples;
+
+        Summary(String jobId, String operator, String expression, long count, List<Sample> samples) {
+            this.jobId = jobId;
+            this.operator = operator;
+            this.expression = expression;
+            this.count = count;
+            this.samples = samples;
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public List<Sample> getSamples() {
+            return samples;
+        }
+    }
+
+    //出错时只保存引用，查询时才转为字符串
+    public static class Sample {
+        private final long timestamp;
+        private final Object value;
+        private final Throwable error;
+
+        Sample(long timestamp, Object value, Throwable error) {
+            this.timestamp = timestamp;
+            this.value = value;
+            this.error = error;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getValue() {
+            return String.valueOf(value);
+        }
+
+        public String getError() {
+            return String.valueOf(error);
+        }
+    }
+}
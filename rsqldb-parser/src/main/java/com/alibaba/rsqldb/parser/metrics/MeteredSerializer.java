@@ -0,0 +1,56 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.metrics;
+
+import com.alibaba.rsqldb.common.exception.SerializeException;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+
+//统计sink编码的条数和耗时
+public class MeteredSerializer implements Serializer {
+    private final Serializer serializer;
+    private final OperatorMetrics metrics;
+
+    public MeteredSerializer(Serializer serializer, OperatorMetrics metrics) {
+        this.serializer = serializer;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public byte[] serialize(Object obj) throws SerializeException {
+        long start = metrics.start();
+        try {
+            return serializer.serialize(obj);
+        } catch (SerializeException | RuntimeException e) {
+            metrics.error();
+            throw e;
+        } finally {
+            metrics.record(start);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object key, Object value) throws SerializeException {
+        long start = metrics.start();
+        try {
+            return serializer.serialize(key, value);
+        } catch (SerializeException | RuntimeException e) {
+            metrics.error();
+            throw e;
+        } finally {
+            metrics.record(start);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.metrics;
+
+import com.alibaba.rsqldb.common.RSQLConstant;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按jobId保存各算子的运行指标，以Prometheus文本格式输出
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final ConcurrentHashMap<String/*jobId*/, ConcurrentHashMap<String/*operator*/, OperatorMetrics>> metrics = new ConcurrentHashMap<>();
+
+    public static OperatorMetrics of(String jobId, String operator) {
+        if (!RSQLConstant.Metrics.ENABLE || jobId == null) {
+            return OperatorMetrics.NOOP;
+        }
+
+        return metrics.computeIfAbsent(jobId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operator, key -> new OperatorMetrics(true));
+    }
+
+    public static void remove(String jobId) {
+        metrics.remove(jobId);
+    }
+
+    public static String toPrometheus() {
+        StringBuilder records = new StringBuilder();
+        StringBuilder errors = new StringBuilder();
+        StringBuilder latency = new StringBuilder();
+
+        for (Map.Entry<String, ConcurrentHashMap<String, OperatorMetrics>> job : metrics.entrySet()) {
+            for (Map.Entry<String, OperatorMetrics> operator : job.getValue().entrySet()) {
+                String labels = "job=\"" + escape(job.getKey()) + "\",operator=\"" + escape(operator.getKey()) + "\"";
+                OperatorMetrics value = operator.getValue();
+
+                records.append("rsqldb_operator_records_total{").append(labels).append("} ").append(value.getRecords()).append('\n');
+                errors.append("rsqldb_operator_errors_total{").append(labels).append("} ").append(value.getErrors()).append('\n');
+
+                Histogram histogram = value.getLatency();
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                for (double quantile : QUANTILES) {
+                    latency.append("rsqldb_operator_latency_seconds{").append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                            .append(histogram.getValueAtPercentile(quantile * 100) / 1e9).append('\n');
+                }
+                latency.append("rsqldb_operator_latency_seconds_sum{").append(labels).append("} ").append(value.getTotalNanos() / 1e9).append('\n');
+                latency.append("rsqldb_operator_latency_seconds_count{").append(labels).append("} ").append(histogram.getTotalCount()).append('\n');
+            }
+        }
+
+        return "# HELP rsqldb_operator_records_total Records processed by the operator.\n" +
+                "# TYPE rsqldb_operator_records_total counter\n" + records +
+                "# HELP rsqldb_operator_errors_total Records failed in the operator.\n" +
+                "# TYPE rsqldb_operator_errors_total counter\n" + errors +
+                "# HELP rsqldb_operator_latency_seconds Time spent on a single record by the operator.\n" +
+                "# TYPE rsqldb_operator_latency_seconds summary\n" + latency;
+    }
+
+    //prometheus标签值的转义
+    public static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个任务中一个算子的运行指标：处理条数、出错条数、单条处理耗时（纳秒）
+ */
+public class OperatorMetrics {
+    public static final String SOURCE = "source";
+    public static final String FILTER = "filter";
+    public static final String KEY_BY = "keyBy";
+    public static final String AGGREGATE = "aggregate";
+    public static final String WINDOW = "window";
+    public static final String HAVING = "having";
+    public static final String SINK = "sink";
+
+    static final OperatorMetrics NOOP = new OperatorMetrics(false);
+
+    private final boolean enable;
+    private final LongAdder records = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final Histogram latency;
+
+    OperatorMetrics(boolean enable) {
+        this.enable = enable;
+        this.latency = enable ? new ConcurrentHistogram(3) : null;
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public long start() {
+        return enable ? System.nanoTime() : 0;
+    }
+
+    public void record(long startNanos) {
+        if (enable) {
+            long cost = System.nanoTime() - startNanos;
+            records.increment();
+            totalNanos.add(cost);
+            latency.recordValue(Math.max(0, cost));
+        }
+    }
+
+    //只计数不计时，用于窗口触发、聚合结果等输出
+    public void mark() {
+        if (enable) {
+            records.increment();
+        }
+    }
+
+    public void error() {
+        if (enable) {
+            errors.increment();
+        }
+    }
+
+    public long getRecords() {
+        return records.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public Histogram getLatency() {
+        return latency.copy();
+    }
+}
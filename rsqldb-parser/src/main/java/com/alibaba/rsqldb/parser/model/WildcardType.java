@@ -19,6 +19,8 @@ public enum WildcardType {
     SUFFIX_LIKE(false, true),
     PREFIX_LIKE(true, false),
     DOUBLE_LIKE(true, true),
+    //中间带%的通配，%匹配任意个字符，_匹配一个字符
+    PATTERN(false, false),
     ;
 
     private final boolean prefix;
@@ -28,8 +28,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.NumericNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 
 // fieldName > 10 and AVG(fieldName) < 12 ...
 @JsonTypeInfo(
@@ -59,6 +62,19 @@ public abstract class Expression extends Node {
      */
     public abstract boolean isTrue(JsonNode jsonNode);
 
+    /**
+     * 在build阶段将表达式编译为谓词，字段名、字面量只解析一次，结果与{@link #isTrue(JsonNode)}一致
+     * @return
+     */
+    public Predicate<JsonNode> compile() {
+        return this::isTrue;
+    }
+
+    /**
+     * 收集表达式中引用的字段名
+     * @param fieldNames
+     */
+    public abstract void collectFieldNames(Set<String> fieldNames);
 
     protected boolean isEqual(JsonNode node, Literal<?> literal) {
         if (node == null && literal == null) {
@@ -94,4 +110,67 @@ public abstract class Expression extends Node {
 
         return false;
     }
+
+    protected static Predicate<JsonNode> compileEqual(Literal<?> literal) {
+        if (literal == null) {
+            return node -> node == null;
+        }
+
+        String target = String.valueOf(literal.result());
+
+        if (literal instanceof StringType) {
+            return node -> node instanceof TextNode && target.equals(node.textValue());
+        } else if (literal instanceof NumberType) {
+            Long exact = toLong(target);
+            if (exact == null) {
+                return node -> node instanceof NumericNode && target.equals(node.asText());
+            }
+
+            //整数的文本与long一一对应，直接比较数值
+            long targetLong = exact;
+            return node -> node instanceof NumericNode && (isLong(node) ? node.longValue() == targetLong : target.equals(node.asText()));
+        } else if (literal instanceof BooleanType) {
+            return node -> node instanceof BooleanNode && target.equals(node.booleanValue() ? "true" : "false");
+        }
+
+        return node -> false;
+    }
+
+    /**
+     * 与StringUtils.isBlank(node.asText()) || "null".equalsIgnoreCase(node.asText())一致，数字、布尔、字符串不生成文本
+     */
+    protected static boolean isNull(JsonNode node) {
+        if (node == null) {
+            return true;
+        }
+        if (node.isTextual()) {
+            String text = node.textValue();
+            return StringUtils.isBlank(text) || "null".equalsIgnoreCase(text);
+        }
+        if (node.isNumber() || node.isBoolean()) {
+            return false;
+        }
+
+        String text = node.asText();
+        return StringUtils.isBlank(text) || "null".equalsIgnoreCase(text);
+    }
+
+    protected static boolean isLong(JsonNode node) {
+        return node.isIntegralNumber() && node.canConvertToLong();
+    }
+
+    /**
+     * 只接受与Long.toString一致的文本，例如"10"，不接受"010"、"+10"、"10.0"
+     */
+    protected static Long toLong(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            long value = Long.parseLong(text);
+            return Long.toString(value).equals(text) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.model.expression;
+
+import com.alibaba.rsqldb.parser.model.WildcardType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * like的匹配规则在build时编译一次，匹配时不区分大小写也不生成小写拷贝。
+ * PREFIX_LIKE、SUFFIX_LIKE、DOUBLE_LIKE的target按字面匹配；
+ * PATTERN按%切分为若干段，首段锚定开头，末段锚定结尾，中间段依次取最左匹配，段内的_匹配任意一个字符。
+ * 没有_的'x%'、'%x'、'%x%'分别按前缀、后缀、包含匹配
+ */
+abstract class LikeMatcher {
+
+    abstract boolean matches(String value);
+
+    static LikeMatcher of(WildcardType type, String target, boolean caseSensitive) {
+        switch (type) {
+            case PREFIX_LIKE: {
+                return new StartsWith(target, caseSensitive);
+            }
+            case SUFFIX_LIKE: {
+                return new EndsWith(target, caseSensitive);
+            }
+            case DOUBLE_LIKE: {
+                return new Contains(target, caseSensitive);
+            }
+            case PATTERN: {
+                return pattern(target, caseSensitive);
+            }
+            default: {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+
+    private static LikeMatcher pattern(String target, boolean caseSensitive) {
+        if (target.indexOf('_') == -1 && target.length() > 1) {
+            boolean start = target.startsWith("%");
+            boolean end = target.endsWith("%");
+            String literal = target.substring(start ? 1 : 0, end ? target.length() - 1 : target.length());
+
+            if (!literal.isEmpty() && literal.indexOf('%') == -1) {
+                if (start && end) {
+                    return new Contains(literal, caseSensitive);
+                } else if (end) {
+                    return new StartsWith(literal, caseSensitive);
+                } else if (start) {
+                    return new EndsWith(literal, caseSensitive);
+                }
+            }
+        }
+        return new Pattern(target, caseSensitive);
+    }
+
+    //与String.regionMatches(true, ...)的比较方式一致
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static class StartsWith extends LikeMatcher {
+        private final String target;
+        private final boolean caseSensitive;
+
+        StartsWith(String target, boolean caseSensitive) {
+            this.target = target;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean matches(String value) {
+            return value.regionMatches(!caseSensitive, 0, target, 0, target.length());
+        }
+    }
+
+    private static class EndsWith extends LikeMatcher {
+        private final String target;
+        private final boolean caseSensitive;
+
+        EndsWith(String target, boolean caseSensitive) {
+            this.target = target;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean matches(String value) {
+            int offset = value.length() - target.length();
+            return offset >= 0 && value.regionMatches(!caseSensitive, offset, target, 0, target.length());
+        }
+    }
+
+    /**
+     * Boyer-Moore-Horspool，跳转表按字符低8位索引，冲突时取最小跳转距离
+     */
+    private static class Contains extends LikeMatcher {
+        private final char[] pattern;
+        private final boolean caseSensitive;
+        private final int[] shift = new int[256];
+
+        Contains(String target, boolean caseSensitive) {
+            this.caseSensitive = caseSensitive;
+            this.pattern = target.toCharArray();
+            if (!caseSensitive) {
+                for (int i = 0; i < pattern.length; i++) {
+                    pattern[i] = fold(pattern[i]);
+                }
+            }
+
+            int last = pattern.length - 1;
+            Arrays.fill(shift, Math.max(1, pattern.length));
+            for (int i = 0; i < last; i++) {
+                int index = pattern[i] & 0xFF;
+                shift[index] = Math.min(shift[index], last - i);
+            }
+        }
+
+        @Override
+        boolean matches(String value) {
+            int m = pattern.length;
+            if (m == 0) {
+                return true;
+            }
+
+            int last = m - 1;
+            int end = value.length() - m;
+            int i = 0;
+            while (i <= end) {
+                int j = last;
+                while (j >= 0 && charAt(value, i + j) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return true;
+                }
+                i += shift[charAt(value, i + last) & 0xFF];
+            }
+            return false;
+        }
+
+        private char charAt(String value, int index) {
+            char c = value.charAt(index);
+            return caseSensitive ? c : fold(c);
+        }
+    }
+
+    private static class Pattern extends LikeMatcher {
+        private static final char ANY = '_';
+
+        private final boolean caseSensitive;
+        //按%切分后的段，段内的_匹配任意一个字符
+        private final char[][] segments;
+        private final boolean anchorStart;
+        private final boolean anchorEnd;
+        private final int minLength;
+
+        Pattern(String target, boolean caseSensitive) {
+            this.caseSensitive = caseSensitive;
+            this.anchorStart = !target.startsWith("%");
+            this.anchorEnd = !target.endsWith("%");
+
+            List<char[]> result = new ArrayList<>();
+            int length = 0;
+            for (String segment : target.split("%")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                char[] chars = segment.toCharArray();
+                if (!caseSensitive) {
+                    for (int i = 0; i < chars.length; i++) {
+                        chars[i] = fold(chars[i]);
+                    }
+                }
+                result.add(chars);
+                length += chars.length;
+            }
+            this.segments = result.toArray(new char[0][]);
+            this.minLength = length;
+        }
+
+        @Override
+        boolean matches(String value) {
+            int length = value.length();
+            if (length < minLength) {
+                return false;
+            }
+            if (segments.length == 0) {
+                //只有%，或者空串
+                return !anchorStart || length == 0;
+            }
+
+            int first = 0;
+            int last = segments.length - 1;
+            int from = 0;
+            int to = length;
+
+            if (anchorStart) {
+                if (!matchAt(value, 0, segments[0])) {
+                    return false;
+                }
+                from = segments[0].length;
+                first = 1;
+            }
+            if (anchorEnd) {
+                char[] segment = segments[last];
+                int start = length - segment.length;
+                if (first > last) {
+                    //没有%，整个值与唯一的段等长匹配
+                    return start == 0;
+                }
+                if (start < from || !matchAt(value, start, segment)) {
+                    return false;
+                }
+                to = start;
+                last--;
+            }
+
+            for (int i = first; i <= last; i++) {
+                int index = indexOf(value, from, to, segments[i]);
+                if (index < 0) {
+                    return false;
+                }
+                from = index + segments[i].length;
+            }
+            return true;
+        }
+
+        private int indexOf(String value, int from, int to, char[] segment) {
+            for (int i = from, end = to - segment.length; i <= end; i++) {
+                if (matchAt(value, i, segment)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matchAt(String value, int offset, char[] segment) {
+            for (int i = 0; i < segment.length; i++) {
+                char expected = segment[i];
+                if (expected == ANY) {
+                    continue;
+                }
+                char c = value.charAt(offset + i);
+                if ((caseSensitive ? c : fold(c)) != expected) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
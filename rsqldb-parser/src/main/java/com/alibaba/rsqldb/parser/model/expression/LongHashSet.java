@@ -0,0 +1,109 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.model.expression;
+
+/**
+ * 开放寻址的long集合，只在build时写入，之后多线程只读，查询时不装箱
+ */
+final class LongHashSet {
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private boolean containsEmpty = false;
+    private int size = 0;
+    private int mask;
+
+    LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    void add(long value) {
+        if (value == EMPTY) {
+            if (!containsEmpty) {
+                containsEmpty = true;
+                size++;
+            }
+            return;
+        }
+
+        if ((size + 1) * 2 > table.length) {
+            resize();
+        }
+        if (insert(table, mask, value)) {
+            size++;
+        }
+    }
+
+    boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+
+        int index = hash(value) & mask;
+        while (true) {
+            long current = table[index];
+            if (current == value) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] newTable = new long[table.length << 1];
+        int newMask = newTable.length - 1;
+        for (long value : table) {
+            if (value != EMPTY) {
+                insert(newTable, newMask, value);
+            }
+        }
+        this.table = newTable;
+        this.mask = newMask;
+    }
+
+    private static boolean insert(long[] table, int mask, long value) {
+        int index = hash(value) & mask;
+        while (true) {
+            long current = table[index];
+            if (current == value) {
+                return false;
+            }
+            if (current == EMPTY) {
+                table[index] = value;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
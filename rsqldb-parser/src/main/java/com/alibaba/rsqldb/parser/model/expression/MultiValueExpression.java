@@ -15,24 +15,34 @@
  */
 package com.alibaba.rsqldb.parser.model.expression;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.Operator;
+import com.alibaba.rsqldb.parser.model.baseType.BooleanType;
 import com.alibaba.rsqldb.parser.model.baseType.Literal;
 import com.alibaba.rsqldb.parser.model.baseType.MultiLiteral;
+import com.alibaba.rsqldb.parser.model.baseType.NumberType;
 import com.alibaba.rsqldb.parser.model.baseType.StringType;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.NumericNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 //in("123", "1122", "221")
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MultiValueExpression extends SingleExpression {
     private MultiLiteral values;
+    //由values构建，不序列化
+    private transient volatile InSet inSet;
 
     @JsonCreator
     public MultiValueExpression(@JsonProperty("content") String content,
@@ -48,6 +58,7 @@ public class MultiValueExpression extends SingleExpression {
 
     public void setValues(MultiLiteral values) {
         this.values = values;
+        this.inSet = null;
     }
 
     @Override
@@ -63,16 +74,99 @@ public class MultiValueExpression extends SingleExpression {
             return this.values == null;
         }
 
-        boolean value = false;
+        return inSet().contains(node);
+    }
+
+    @Override
+    public Predicate<JsonNode> compile() {
+        if (values == null) {
+            return this::isTrue;
+        }
+
+        FieldAccessor accessor = new FieldAccessor(this.getField().getFieldName());
+        InSet inSet = inSet();
 
-        List<Literal<?>> literals = values.getLiterals();
-        for (Literal<?> literal : literals) {
-            value = super.isEqual(node, literal);
-            if (value) {
-                break;
+        return jsonNode -> {
+            JsonNode node = accessor.get(jsonNode);
+            if (node == null) {
+                return false;
             }
+            return inSet.contains(node);
+        };
+    }
+
+    private InSet inSet() {
+        InSet result = this.inSet;
+        if (result == null) {
+            result = new InSet(values.getLiterals());
+            this.inSet = result;
         }
+        return result;
+    }
+
+    /**
+     * in列表按类型分桶：整数放入long集合，其他数字、字符串按文本放入HashSet，布尔值两个标记。
+     * 判断结果与逐个调用{@link Expression#isEqual}一致：类型相同且文本相同
+     */
+    private static class InSet {
+        private final LongHashSet longs;
+        private final Set<String> numbers = new HashSet<>();
+        private final Set<String> strings = new HashSet<>();
+        private boolean containsTrue = false;
+        private boolean containsFalse = false;
 
-        return value;
+        InSet(List<Literal<?>> literals) {
+            this.longs = new LongHashSet(literals.size());
+            for (Literal<?> literal : literals) {
+                if (literal == null) {
+                    continue;
+                }
+
+                String target = String.valueOf(literal.result());
+                if (literal instanceof StringType) {
+                    strings.add(target);
+                } else if (literal instanceof NumberType) {
+                    Long value = toLong(target);
+                    if (value != null) {
+                        longs.add(value);
+                    } else {
+                        numbers.add(target);
+                    }
+                } else if (literal instanceof BooleanType) {
+                    if ("true".equals(target)) {
+                        containsTrue = true;
+                    } else if ("false".equals(target)) {
+                        containsFalse = true;
+                    }
+                }
+            }
+        }
+
+        boolean contains(JsonNode node) {
+            if (node instanceof TextNode) {
+                return strings.contains(node.textValue());
+            }
+
+            if (node instanceof NumericNode) {
+                if (isLong(node)) {
+                    //整数的文本与long一一对应，不在long集合中的数字文本都不是规范的long
+                    return longs.contains(node.longValue());
+                }
+
+                String text = node.asText();
+                if (numbers.contains(text)) {
+                    return true;
+                }
+                //例如scale为0的BigDecimal
+                Long value = longs.isEmpty() ? null : toLong(text);
+                return value != null && longs.contains(value);
+            }
+
+            if (node instanceof BooleanNode) {
+                return node.booleanValue() ? containsTrue : containsFalse;
+            }
+
+            return false;
+        }
     }
 }
@@ -22,6 +22,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.antlr.v4.runtime.ParserRuleContext;
 
+import java.util.Set;
+import java.util.function.Predicate;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OrExpression extends Expression {
     private Expression leftExpression;
@@ -61,4 +64,17 @@ public class OrExpression extends Expression {
     public boolean isTrue(JsonNode jsonNode) {
         return leftExpression.isTrue(jsonNode) || rightExpression.isTrue(jsonNode);
     }
+
+    @Override
+    public void collectFieldNames(Set<String> fieldNames) {
+        leftExpression.collectFieldNames(fieldNames);
+        rightExpression.collectFieldNames(fieldNames);
+    }
+
+    @Override
+    public Predicate<JsonNode> compile() {
+        Predicate<JsonNode> left = leftExpression.compile();
+        Predicate<JsonNode> right = rightExpression.compile();
+        return jsonNode -> left.test(jsonNode) || right.test(jsonNode);
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.alibaba.rsqldb.parser.model.expression;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.Operator;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -23,6 +24,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NumericNode;
 
+import java.util.function.Predicate;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class RangeValueExpression extends SingleExpression {
     private double low;
@@ -65,8 +68,56 @@ public class RangeValueExpression extends SingleExpression {
             return false;
         }
 
+        if (isLong(node) && isLongValue(low) && isLongValue(high)) {
+            long value = node.longValue();
+            return (long) low <= value && value <= (long) high;
+        }
+
         double value = node.asDouble();
 
         return low <= value && value <= high;
     }
+
+    @Override
+    public Predicate<JsonNode> compile() {
+        FieldAccessor accessor = new FieldAccessor(this.getField().getFieldName());
+        double low = this.low;
+        double high = this.high;
+
+        //上下界都是整数时，整数值按long精确比较
+        if (isLongValue(low) && isLongValue(high)) {
+            long lowLong = (long) low;
+            long highLong = (long) high;
+            return jsonNode -> {
+                JsonNode node = accessor.get(jsonNode);
+                if (!(node instanceof NumericNode)) {
+                    return false;
+                }
+
+                if (isLong(node)) {
+                    long value = node.longValue();
+                    return lowLong <= value && value <= highLong;
+                }
+
+                double value = node.asDouble();
+                return low <= value && value <= high;
+            };
+        }
+
+        return jsonNode -> {
+            JsonNode node = accessor.get(jsonNode);
+            if (!(node instanceof NumericNode)) {
+                return false;
+            }
+
+            double value = node.asDouble();
+
+            return low <= value && value <= high;
+        };
+    }
+
+    //2^63不能用long表示
+    private static boolean isLongValue(double value) {
+        return value == Math.rint(value) && value >= Long.MIN_VALUE && value < Long.MAX_VALUE;
+    }
 }
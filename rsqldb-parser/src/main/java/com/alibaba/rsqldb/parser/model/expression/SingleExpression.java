@@ -18,6 +18,8 @@ package com.alibaba.rsqldb.parser.model.expression;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.Operator;
 
+import java.util.Set;
+
 public abstract class SingleExpression extends Expression {
     private Field field;
     private Operator operator;
@@ -44,4 +46,9 @@ public abstract class SingleExpression extends Expression {
     public void setOperator(Operator operator) {
         this.operator = operator;
     }
+
+    @Override
+    public void collectFieldNames(Set<String> fieldNames) {
+        fieldNames.add(field.getFieldName());
+    }
 }
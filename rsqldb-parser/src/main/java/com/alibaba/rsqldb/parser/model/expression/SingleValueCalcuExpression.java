@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Predicate;
 
 //一定会和groupby一起使用
 // HAVING aggregate_function(column_name) operator value;
@@ -70,4 +71,15 @@ public class SingleValueCalcuExpression extends SingleValueExpression {
 
         return isTrue(jsonNode, asFieldName);
     }
+
+    @Override
+    public Predicate<JsonNode> compile() {
+        String asFieldName = super.getField().getAsFieldName();
+        if (StringUtils.isBlank(asFieldName)) {
+            return this::isTrue;
+        }
+
+        Predicate<JsonNode> predicate = compile(asFieldName);
+        return jsonNode -> jsonNode != null && predicate.test(jsonNode);
+    }
 }
@@ -16,27 +16,25 @@
 package com.alibaba.rsqldb.parser.model.expression;
 
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.Operator;
-import com.alibaba.rsqldb.parser.model.baseType.BooleanType;
 import com.alibaba.rsqldb.parser.model.baseType.Literal;
 import com.alibaba.rsqldb.parser.model.baseType.NumberType;
-import com.alibaba.rsqldb.parser.model.baseType.StringType;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.FloatNode;
 import com.fasterxml.jackson.databind.node.NumericNode;
-import com.fasterxml.jackson.databind.node.TextNode;
-import org.apache.commons.lang3.StringUtils;
 
-import java.util.Objects;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SingleValueExpression extends SingleExpression {
-    private static final String stringNull = "null";
     private Literal<?> value;
+    //由value解析，不序列化
+    private transient volatile NumberTarget numberTarget;
 
     @JsonCreator
     public SingleValueExpression(@JsonProperty("content") String content, @JsonProperty("field") Field field,
@@ -51,6 +49,7 @@ public class SingleValueExpression extends SingleExpression {
 
     public void setValue(Literal<?> value) {
         this.value = value;
+        this.numberTarget = null;
     }
 
     @Override
@@ -59,9 +58,67 @@ public class SingleValueExpression extends SingleExpression {
         return isTrue(jsonNode, fieldName);
     }
 
+    @Override
+    public Predicate<JsonNode> compile() {
+        String fieldName = this.getField().getFieldName();
+        return compile(fieldName);
+    }
+
+    protected Predicate<JsonNode> compile(String fieldName) {
+        Predicate<JsonNode> test = compileOperator();
+        if (test == null) {
+            //未知操作符，仍在运行时报错
+            return jsonNode -> isTrue(jsonNode, fieldName);
+        }
+
+        boolean valueIsNull = this.value == null;
+        FieldAccessor accessor = new FieldAccessor(fieldName);
+        return jsonNode -> {
+            JsonNode node = accessor.get(jsonNode);
+            if (isNull(node)) {
+                return valueIsNull;
+            }
+            return test.test(node);
+        };
+    }
+
+    private Predicate<JsonNode> compileOperator() {
+        Operator operator = this.getOperator();
+        if (operator == null) {
+            return null;
+        }
+
+        switch (operator) {
+            case EQUAL: {
+                return compileEqual(this.value);
+            }
+            case GREATER:
+            case LESS:
+            case NOT_EQUAL:
+            case GREATER_EQUAL:
+            case LESS_EQUAL: {
+                if (!(this.value instanceof NumberType)) {
+                    return node -> false;
+                }
+
+                NumberTarget target;
+                try {
+                    target = numberTarget();
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+
+                return node -> node instanceof NumericNode && target.compare(operator, node);
+            }
+            default: {
+                return null;
+            }
+        }
+    }
+
     protected boolean isTrue(JsonNode jsonNode, String fieldName) {
         JsonNode node = jsonNode.get(fieldName);
-        if (node == null || StringUtils.isBlank(node.asText()) || stringNull.equalsIgnoreCase(node.asText())) {
+        if (isNull(node)) {
             return this.value == null;
         }
 
@@ -85,34 +142,87 @@ public class SingleValueExpression extends SingleExpression {
                     return false;
                 }
 
-                Double value = Double.valueOf(node.asText());
-                Double target = Double.valueOf(String.valueOf(this.value.result()));
-
-                return compare(this.getOperator(), value, target);
+                return numberTarget().compare(this.getOperator(), node);
             }
         }
     }
 
-    private boolean compare(Operator operator, Double value, Double target) {
-        switch (operator) {
-            case GREATER: {
-                return value > target;
-            }
-            case LESS: {
-                return value < target;
-            }
-            case NOT_EQUAL: {
-                return !Objects.equals(value, target);
-            }
-            case GREATER_EQUAL: {
-                return value >= target;
-            }
-            case LESS_EQUAL: {
-                return value <= target;
+    private NumberTarget numberTarget() {
+        NumberTarget result = this.numberTarget;
+        if (result == null) {
+            result = new NumberTarget(String.valueOf(this.value.result()));
+            this.numberTarget = result;
+        }
+        return result;
+    }
+
+    /**
+     * 数字字面量只解析一次；两边都是整数时按long精确比较，否则按double比较
+     */
+    private static class NumberTarget {
+        private final double target;
+        private final boolean exact;
+        private final long targetLong;
+
+        NumberTarget(String text) {
+            this.target = Double.parseDouble(text);
+            Long value = toLong(text);
+            this.exact = value != null;
+            this.targetLong = exact ? value : 0;
+        }
+
+        boolean compare(Operator operator, JsonNode node) {
+            if (exact && isLong(node)) {
+                long value = node.longValue();
+                switch (operator) {
+                    case GREATER: {
+                        return value > targetLong;
+                    }
+                    case LESS: {
+                        return value < targetLong;
+                    }
+                    case NOT_EQUAL: {
+                        return value != targetLong;
+                    }
+                    case GREATER_EQUAL: {
+                        return value >= targetLong;
+                    }
+                    case LESS_EQUAL: {
+                        return value <= targetLong;
+                    }
+                    default: {
+                        throw new SyntaxErrorException("unknown operator=" + operator);
+                    }
+                }
             }
-            default: {
-                throw new SyntaxErrorException("unknown operator=" + operator);
+
+            double value = doubleValue(node);
+            switch (operator) {
+                case GREATER: {
+                    return value > target;
+                }
+                case LESS: {
+                    return value < target;
+                }
+                case NOT_EQUAL: {
+                    //与Double.equals语义一致
+                    return Double.compare(value, target) != 0;
+                }
+                case GREATER_EQUAL: {
+                    return value >= target;
+                }
+                case LESS_EQUAL: {
+                    return value <= target;
+                }
+                default: {
+                    throw new SyntaxErrorException("unknown operator=" + operator);
+                }
             }
         }
+
+        //float的文本与转为double后的值不同，仍按文本解析，与之前一致
+        private static double doubleValue(JsonNode node) {
+            return node instanceof FloatNode ? Double.parseDouble(node.asText()) : node.doubleValue();
+        }
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.alibaba.rsqldb.parser.model.expression;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.Operator;
 import com.alibaba.rsqldb.parser.model.WildcardType;
@@ -25,13 +26,15 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.Locale;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class WildcardExpression extends SingleExpression {
     private WildcardType type;
     private String target;
     private boolean caseSensitive = false;
+    //由type、target编译，不序列化
+    private transient volatile LikeMatcher matcher;
 
     @JsonCreator
     public WildcardExpression(@JsonProperty("content") String content,
@@ -52,6 +55,7 @@ public class WildcardExpression extends SingleExpression {
 
     public void setCaseSensitive(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
+        this.matcher = null;
     }
 
     public WildcardType getType() {
@@ -60,6 +64,7 @@ public class WildcardExpression extends SingleExpression {
 
     public void setType(WildcardType type) {
         this.type = type;
+        this.matcher = null;
     }
 
     public String getTarget() {
@@ -68,6 +73,31 @@ public class WildcardExpression extends SingleExpression {
 
     public void setTarget(String target) {
         this.target = target;
+        this.matcher = null;
+    }
+
+    @Override
+    public Predicate<JsonNode> compile() {
+        if (!Operator.LIKE.equals(this.getOperator())) {
+            return jsonNode -> false;
+        }
+
+        LikeMatcher matcher = matcher();
+        FieldAccessor accessor = new FieldAccessor(this.getField().getFieldName());
+        return jsonNode -> {
+            if (jsonNode == null) {
+                return false;
+            }
+            JsonNode node = accessor.get(jsonNode);
+            if (!(node instanceof TextNode)) {
+                return false;
+            }
+            String value = node.textValue();
+            if (StringUtils.isBlank(value) || "null".equalsIgnoreCase(value)) {
+                return false;
+            }
+            return matcher.matches(value);
+        };
     }
 
     @Override
@@ -79,7 +109,7 @@ public class WildcardExpression extends SingleExpression {
         String fieldName = this.getField().getFieldName();
         JsonNode node = jsonNode.get(fieldName);
 
-        if (node == null || StringUtils.isBlank(node.asText()) || "null".equalsIgnoreCase(node.asText())) {
+        if (isNull(node)) {
             return false;
         }
 
@@ -88,45 +118,18 @@ public class WildcardExpression extends SingleExpression {
         }
 
         if (Operator.LIKE.equals(this.getOperator())) {
-            return likeWildcard(node.asText());
+            return matcher().matches(node.asText());
         }
 
         return false;
     }
 
-    private boolean likeWildcard(String value) {
-        String tempTarget = target;
-        String tempValue = value;
-
-        if (!caseSensitive) {
-            tempTarget = target.toLowerCase(Locale.ROOT);
-            tempValue = value.toLowerCase(Locale.ROOT);
+    private LikeMatcher matcher() {
+        LikeMatcher result = this.matcher;
+        if (result == null) {
+            result = LikeMatcher.of(type, target, caseSensitive);
+            this.matcher = result;
         }
-
-        switch (type) {
-            case PREFIX_LIKE: {
-                if (tempValue.startsWith(tempTarget)) {
-                    return true;
-                }
-                break;
-            }
-            case SUFFIX_LIKE: {
-                if (tempValue.endsWith(tempTarget)) {
-                    return true;
-                }
-                break;
-            }
-            case DOUBLE_LIKE: {
-                if (tempValue.contains(tempTarget)) {
-                    return true;
-                }
-                break;
-            }
-            default: {
-                throw new UnsupportedOperationException();
-            }
-
-        }
-        return false;
+        return result;
     }
 }
@@ -18,11 +18,16 @@ package com.alibaba.rsqldb.parser.model.statement;
 import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.SerializeType;
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.common.row.RowSchema;
+import com.alibaba.rsqldb.parser.metrics.MeteredSerializer;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.FieldType;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.serialization.Deserializer;
 import com.alibaba.rsqldb.parser.serialization.json.JsonObjectKVSer;
-import com.alibaba.rsqldb.parser.serialization.json.JsonStringKVSer;
 import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.alibaba.rsqldb.parser.serialization.SourceFilter;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
 import com.alibaba.rsqldb.parser.model.Columns;
 import com.alibaba.rsqldb.parser.model.baseType.Literal;
@@ -45,9 +50,10 @@ import org.apache.rocketmq.streams.core.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -174,42 +180,79 @@ public class CreateTableStatement extends Statement {
 
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        Set<String> fieldNames = this.columns.getFields();
-
         if (context.getHeader(RSQLConstant.TABLE_TYPE) == RSQLConstant.TableType.SOURCE) {
+            if (context.isSharedSource() && context.getRStreamSource(this.getTableName()) != null) {
+                //其他任务已经订阅了这张表
+                context.setCreateTableStatement(this);
+                return context;
+            }
+
+            //只解析表中定义、且被查询引用到的字段
+            Set<String> fieldNames = this.columns.getFields();
+            Set<String> projection = context.getProjection(this.getTableName());
+            if (projection != null) {
+                fieldNames.retainAll(projection);
+            }
+
+            //proctime字段在解析之后才添加，不能下推
+            Set<String> excludeFields = new HashSet<>();
+            Pair<String, FieldType> processTimeField = this.columns.findProcessTimeField();
+            if (processTimeField != null) {
+                excludeFields.add(processTimeField.getKey());
+            }
+            SourceFilter filter = SourceFilter.of(context.getPushdownFilter(this.getTableName()), excludeFields);
+            RowSchema schema = RSQLConstant.TypedRow.ENABLE ? buildRowSchema(fieldNames) : null;
+
+            Deserializer deserializer = SerializeTypeContainer.getDeserializer(serializeType, this.columns);
+
+            //共用的source记在分组上，不计入第一个构建的任务
+            String metricsId = context.isSharedSource() ? context.getStreamId() : context.getJobId();
+            OperatorMetrics metrics = MetricsRegistry.of(metricsId, OperatorMetrics.SOURCE);
+
             StreamBuilder builder = context.getStreamBuilder();
             RStream<JsonNode> rStream = builder.source(topicName, source -> {
-                Deserializer deserializer = SerializeTypeContainer.getDeserializer(serializeType);
-                JsonNode result = deserializer.deserialize(source);
-                //过滤
-                Iterator<Map.Entry<String, JsonNode>> entryIterator = result.fields();
-                while (entryIterator.hasNext()) {
-                    Map.Entry<String, JsonNode> next = entryIterator.next();
-                    if (!fieldNames.contains(next.getKey())) {
-                        logger.info("remove field, name:{}, value:{}", next.getKey(), next.getValue());
-                        entryIterator.remove();
+                long start = metrics.start();
+                try {
+                    JsonNode result = schema != null ? deserializer.deserialize(source, schema, filter)
+                            : deserializer.deserialize(source, fieldNames, filter);
+                    if (result == null) {
+                        return new Pair<>(null, null);
                     }
-                }
 
-                //todo 是否需要检查进入的数据符合columns中定义的格式？
+                    //todo 是否需要检查进入的数据符合columns中定义的格式？
 
-                JsonNode data = addProcessTimeIfNecessary(result);
+                    JsonNode data = addProcessTimeIfNecessary(result);
 
-                return new Pair<>(null, data);
+                    return new Pair<>(null, data);
+                } catch (Throwable t) {
+                    metrics.error();
+                    throw t;
+                } finally {
+                    metrics.record(start);
+                }
             });
 
+            if (filter != null) {
+                //被下推条件过滤掉的数据
+                rStream = rStream.filter(Objects::nonNull);
+            }
+
             context.addRStreamSource(this.getTableName(), rStream);
             context.setCreateTableStatement(this);
         } else if (context.getHeader(RSQLConstant.TABLE_TYPE) == RSQLConstant.TableType.SINK) {
-            Serializer serializer = SerializeTypeContainer.getSerializer(serializeType);
+            Serializer serializer = SerializeTypeContainer.getSerializer(serializeType, this.columns);
+            OperatorMetrics metrics = MetricsRegistry.of(context.getJobId(), OperatorMetrics.SINK);
+            if (metrics.isEnable()) {
+                serializer = new MeteredSerializer(serializer, metrics);
+            }
             RStream<? extends JsonNode> stream = context.getrStreamResult();
-            WindowStream<String, ? extends JsonNode> windowStream = context.getWindowStreamResult();
-            GroupedStream<String, ? extends JsonNode> groupedStream = context.getGroupedStreamResult();
+            WindowStream<GroupByKey, ? extends JsonNode> windowStream = context.getWindowStreamResult();
+            GroupedStream<GroupByKey, ? extends JsonNode> groupedStream = context.getGroupedStreamResult();
 
             if (windowStream != null) {
-                windowStream.sink(topicName, new JsonStringKVSer<>(serializer));
+                windowStream.sink(topicName, new JsonObjectKVSer<>(serializer));
             } else if (groupedStream != null) {
-                groupedStream.sink(topicName, new JsonStringKVSer<>(serializer));
+                groupedStream.sink(topicName, new JsonObjectKVSer<>(serializer));
             } else {
                 stream.sink(topicName, new JsonObjectKVSer<>(serializer));
             }
@@ -219,6 +262,18 @@ public class CreateTableStatement extends Statement {
     }
 
 
+    //槽位顺序与建表时字段顺序一致，proctime在解析后添加，也占一个槽位
+    private RowSchema buildRowSchema(Set<String> fieldNames) {
+        List<String> result = new ArrayList<>();
+        for (Pair<String, FieldType> pair : this.columns.getHolder()) {
+            String fieldName = pair.getKey();
+            if (fieldNames.contains(fieldName) || pair.getValue() == FieldType.PROCTIME) {
+                result.add(fieldName);
+            }
+        }
+        return new RowSchema(result);
+    }
+
     private JsonNode addProcessTimeIfNecessary(JsonNode data) {
         Pair<String, FieldType> processTimeField = this.columns.findProcessTimeField();
         if (processTimeField == null) {
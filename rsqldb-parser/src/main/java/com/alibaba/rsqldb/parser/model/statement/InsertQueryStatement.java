@@ -18,6 +18,7 @@ package com.alibaba.rsqldb.parser.model.statement;
 import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
 import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.model.statement.query.QueryStatement;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -96,8 +97,8 @@ public class InsertQueryStatement extends Statement {
         //the right RStream will in StreamResult field, because build queryStatement will happen before this.
         RStream<? extends JsonNode> stream = context.getrStreamResult();
 
-        WindowStream<String, ? extends JsonNode> windowStream = context.getWindowStreamResult();
-        GroupedStream<String, ? extends JsonNode> groupedStream = context.getGroupedStreamResult();
+        WindowStream<GroupByKey, ? extends JsonNode> windowStream = context.getWindowStreamResult();
+        GroupedStream<GroupByKey, ? extends JsonNode> groupedStream = context.getGroupedStreamResult();
         if (windowStream != null) {
             windowStream = windowStream.map(value -> map(value, fieldName2NewName));
             context.setWindowStreamResult(windowStream);
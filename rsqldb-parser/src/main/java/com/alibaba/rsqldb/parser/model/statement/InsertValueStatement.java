@@ -109,12 +109,17 @@ public class InsertValueStatement extends Statement {
         map.forEach((s, literal) -> fieldAndValue.put(s, literal.result()));
 
         SerializeType type = context.getCreateTableStatement().getSerializeType();
-        Serializer serializer = SerializeTypeContainer.getSerializer(type);
-
-        //todo 应该怎么才能满足使用者自定义输出的要求，目前object -> json string -> byte[]
-        String str = context.getObjectMapper().writeValueAsString(fieldAndValue);
-
-        byte[] body = serializer.serialize(str);
+        Serializer serializer = SerializeTypeContainer.getSerializer(type, createTableStatement.getColumns());
+
+        byte[] body;
+        if (type == SerializeType.JSON) {
+            //todo 应该怎么才能满足使用者自定义输出的要求，目前object -> json string -> byte[]
+            String str = context.getObjectMapper().writeValueAsString(fieldAndValue);
+            body = serializer.serialize(str);
+        } else {
+            //CSV、AVRO按建表字段顺序编码
+            body = serializer.serialize(fieldAndValue);
+        }
 
         context.setInsertValueData(body);
         return context;
@@ -48,7 +48,7 @@ public abstract class Statement extends Node {
     }
 
     /**
-     * 从jsonNode中挑选select出的字段
+     * 从jsonNode中挑选select出的字段，按newName输出到新的节点中，不修改输入
      * @param jsonNode
      * @param fieldNames
      * @return
@@ -62,24 +62,26 @@ public abstract class Statement extends Node {
             throw new SyntaxErrorException("select field is null. sql=" + this.getContent());
         }
 
-        if (fieldNames.size() == 1
-                && fieldNames.keySet().toArray()[0].equals(RSQLConstant.STAR)) {
+        if (fieldNames.size() == 1 && fieldNames.containsKey(RSQLConstant.STAR)) {
             //全选
-        } else {
-            Iterator<Map.Entry<String, JsonNode>> entryIterator = jsonNode.fields();
-            while (entryIterator.hasNext()) {
-                Map.Entry<String, JsonNode> next = entryIterator.next();
-                if (!fieldNames.containsKey(next.getKey())) {
-                    entryIterator.remove();
-                } else {
-                    //todo
-                    ObjectNode objectNode = (ObjectNode) jsonNode;
-                    objectNode.replace(fieldNames.get(next.getKey()), next.getValue());
-                }
+            return jsonNode;
+        }
+
+        if (!(jsonNode instanceof ObjectNode)) {
+            return jsonNode;
+        }
+
+        ObjectNode result = ((ObjectNode) jsonNode).objectNode();
+        Iterator<Map.Entry<String, JsonNode>> entryIterator = jsonNode.fields();
+        while (entryIterator.hasNext()) {
+            Map.Entry<String, JsonNode> next = entryIterator.next();
+            String newName = fieldNames.get(next.getKey());
+            if (newName != null) {
+                result.set(newName, next.getValue());
             }
         }
 
-        return jsonNode;
+        return result;
     }
 
 
@@ -16,6 +16,9 @@
 package com.alibaba.rsqldb.parser.model.statement.query;
 
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.expression.Expression;
@@ -28,6 +31,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FilterQueryStatement extends QueryStatement {
@@ -50,19 +55,39 @@ public class FilterQueryStatement extends QueryStatement {
         this.filter = filter;
     }
 
+    @Override
+    public Set<String> referencedFields() {
+        Set<String> result = super.referencedFields();
+        if (result != null) {
+            filter.collectFieldNames(result);
+        }
+        return result;
+    }
+
+    @Override
+    public Expression pushdownFilter() {
+        return filter;
+    }
+
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
 
         //先where过滤在select 过滤
         RStream<JsonNode> rStream = context.getRStreamSource(this.getTableName());
 
+        Predicate<JsonNode> predicate = filter.compile();
+        OperatorMetrics metrics = MetricsRegistry.of(context.getJobId(), OperatorMetrics.FILTER);
+        ExpressionErrors errors = ExpressionErrors.of(context.getJobId(), OperatorMetrics.FILTER, filter.getContent());
         rStream = rStream.filter(value -> {
+            long start = metrics.start();
             try {
-                return filter.isTrue(value);
+                return predicate.test(value);
             } catch (Throwable t) {
                 //使用错误，例如字段是string，使用>过滤；
-                logger.info("filter error, sql:[{}], value=[{}]", FilterQueryStatement.this.getContent(), value, t);
+                errors.report(value, t);
                 return false;
+            } finally {
+                metrics.record(start);
             }
         });
 
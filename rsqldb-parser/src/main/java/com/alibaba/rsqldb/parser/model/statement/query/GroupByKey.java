@@ -0,0 +1,261 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.model.statement.query;
+
+import com.alibaba.rsqldb.common.row.FieldAccessor;
+import com.alibaba.rsqldb.parser.model.Field;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.rocketmq.streams.core.common.Constant;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * group by的组合key，以紧凑的二进制形式保存每个分组字段的值，hash在构造时计算。
+ * <p>
+ * 编码：每个字段 = 1字节类型 + 值（long为8字节，文本为4字节长度 + UTF-8字节）。
+ * shuffle时直接序列化bytes，不再经过字符串拼接。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class GroupByKey {
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte TEXT = 2;
+    private static final byte TRUE = 3;
+    private static final byte FALSE = 4;
+    //其他类型的节点，保存其json文本
+    private static final byte OTHER = 5;
+    //非JsonNode的字符串，toString时不加引号
+    private static final byte RAW = 6;
+
+    private static final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+
+    private final byte[] bytes;
+    private final int hash;
+
+    @JsonCreator
+    public GroupByKey(@JsonProperty("bytes") byte[] bytes) {
+        this.bytes = bytes != null ? bytes : new byte[0];
+        this.hash = Arrays.hashCode(this.bytes);
+    }
+
+    public static GroupByKey of(JsonNode value, String[] fieldNames) {
+        Encoder encoder = encoders.get();
+        encoder.reset();
+
+        for (String fieldName : fieldNames) {
+            encoder.write(value == null ? null : value.get(fieldName));
+        }
+
+        return new GroupByKey(encoder.toByteArray());
+    }
+
+    public static GroupByKey of(JsonNode value, FieldAccessor[] accessors) {
+        Encoder encoder = encoders.get();
+        encoder.reset();
+
+        for (FieldAccessor accessor : accessors) {
+            encoder.write(value == null ? null : accessor.get(value));
+        }
+
+        return new GroupByKey(encoder.toByteArray());
+    }
+
+    public static GroupByKey of(String value) {
+        Encoder encoder = encoders.get();
+        encoder.reset();
+        encoder.writeText(RAW, value);
+
+        return new GroupByKey(encoder.toByteArray());
+    }
+
+    public static FieldAccessor[] accessors(List<Field> fields) {
+        FieldAccessor[] result = new FieldAccessor[fields.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new FieldAccessor(fields.get(i).getFieldName());
+        }
+        return result;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof GroupByKey)) {
+            return false;
+        }
+
+        GroupByKey other = (GroupByKey) obj;
+        return hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    /**
+     * 与原来字符串形式的key保持一致：String.valueOf(JsonNode)，以Constant.SPLIT连接
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        int position = 0;
+        while (position < bytes.length) {
+            if (position != 0) {
+                sb.append(Constant.SPLIT);
+            }
+
+            byte type = bytes[position++];
+            switch (type) {
+                case NULL: {
+                    sb.append("null");
+                    break;
+                }
+                case LONG: {
+                    long value = 0;
+                    for (int i = 0; i < 8; i++) {
+                        value = (value << 8) | (bytes[position++] & 0xFF);
+                    }
+                    sb.append(value);
+                    break;
+                }
+                case TRUE: {
+                    sb.append(true);
+                    break;
+                }
+                case FALSE: {
+                    sb.append(false);
+                    break;
+                }
+                case TEXT:
+                case OTHER:
+                case RAW: {
+                    int length = ((bytes[position] & 0xFF) << 24) | ((bytes[position + 1] & 0xFF) << 16)
+                            | ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+                    position += 4;
+
+                    String text = new String(bytes, position, length, StandardCharsets.UTF_8);
+                    position += length;
+
+                    sb.append(type == TEXT ? TextNode.valueOf(text).toString() : text);
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException("unknown type in group by key: " + type);
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static class Encoder {
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        void reset() {
+            position = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        void write(JsonNode node) {
+            if (node == null || node.isNull()) {
+                writeByte(NULL);
+            } else if (node.isTextual()) {
+                writeText(TEXT, node.textValue());
+            } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+                writeLong(node.longValue());
+            } else if (node.isBoolean()) {
+                writeByte(node.booleanValue() ? TRUE : FALSE);
+            } else {
+                writeText(OTHER, node.toString());
+            }
+        }
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[position++] = value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(9);
+            buffer[position++] = LONG;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        //直接按UTF-8编码写入buffer，避免String.getBytes产生临时数组
+        void writeText(byte type, String value) {
+            ensureCapacity(5 + value.length() * 3);
+            buffer[position++] = type;
+
+            int lengthPosition = position;
+            position += 4;
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    //不成对的代理字符，与String.getBytes(UTF_8)一致替换为'?'
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+
+            int length = position - lengthPosition - 4;
+            buffer[lengthPosition] = (byte) (length >>> 24);
+            buffer[lengthPosition + 1] = (byte) (length >>> 16);
+            buffer[lengthPosition + 2] = (byte) (length >>> 8);
+            buffer[lengthPosition + 3] = (byte) length;
+        }
+
+        private void ensureCapacity(int size) {
+            if (position + size > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + size));
+            }
+        }
+    }
+}
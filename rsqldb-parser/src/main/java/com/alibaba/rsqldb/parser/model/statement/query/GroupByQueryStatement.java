@@ -16,7 +16,11 @@
 package com.alibaba.rsqldb.parser.model.statement.query;
 
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.expression.Expression;
@@ -27,7 +31,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.function.accumulator.Accumulator;
 import org.apache.rocketmq.streams.core.rstream.GroupedStream;
 import org.apache.rocketmq.streams.core.rstream.RStream;
@@ -36,6 +39,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 //聚合查询
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -133,19 +138,40 @@ public class GroupByQueryStatement extends QueryStatement {
     }
 
 
+    @Override
+    public Set<String> referencedFields() {
+        Set<String> result = super.referencedFields();
+        if (result == null) {
+            return null;
+        }
+
+        if (whereExpression != null) {
+            whereExpression.collectFieldNames(result);
+        }
+        for (Field field : groupByField) {
+            result.add(field.getFieldName());
+        }
+        return result;
+    }
+
+    @Override
+    public Expression pushdownFilter() {
+        return whereExpression;
+    }
+
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        GroupedStream<String, JsonNode> groupedStream = buildGroupBy(context.getRStreamSource(this.getTableName()));
+        GroupedStream<GroupByKey, JsonNode> groupedStream = buildGroupBy(context.getRStreamSource(this.getTableName()), context);
 
         //select
-        GroupedStream<String, ? extends JsonNode> selectField = groupedStream;
+        GroupedStream<GroupByKey, ? extends JsonNode> selectField = groupedStream;
         if (!isSelectAll()) {
-            Accumulator<JsonNode, ObjectNode> select = buildAccumulator();
+            Accumulator<JsonNode, ObjectNode> select = buildAccumulator(context, OperatorMetrics.AGGREGATE);
             selectField = groupedStream.aggregate(select);
         }
 
         //having
-        selectField = buildHaving(selectField);
+        selectField = buildHaving(selectField, context);
 
         context.setGroupedStreamResult(selectField);
 
@@ -153,45 +179,55 @@ public class GroupByQueryStatement extends QueryStatement {
     }
 
 
-    protected GroupedStream<String, JsonNode> buildGroupBy(RStream<JsonNode> stream) {
+    protected GroupedStream<GroupByKey, JsonNode> buildGroupBy(RStream<JsonNode> stream, BuildContext context) {
 
         //where 过滤
         if (whereExpression != null) {
+            Predicate<JsonNode> predicate = whereExpression.compile();
+            OperatorMetrics metrics = MetricsRegistry.of(context.getJobId(), OperatorMetrics.FILTER);
+            ExpressionErrors errors = ExpressionErrors.of(context.getJobId(), OperatorMetrics.FILTER, whereExpression.getContent());
             stream = stream.filter(value -> {
+                long start = metrics.start();
                 try {
-                    return whereExpression.isTrue(value);
+                    return predicate.test(value);
                 } catch (Throwable t) {
                     //使用错误，例如字段是string，使用>过滤；
-                    logger.info("where filter error, sql:[{}], value=[{}]", GroupByQueryStatement.this.getContent(), value, t);
+                    errors.report(value, t);
                     return false;
+                } finally {
+                    metrics.record(start);
                 }
             });
         }
 
         // groupBy
+        FieldAccessor[] accessors = GroupByKey.accessors(groupByField);
+        OperatorMetrics metrics = MetricsRegistry.of(context.getJobId(), OperatorMetrics.KEY_BY);
         return stream.keyBy(value -> {
-            StringBuilder sb = new StringBuilder();
-            for (Field field : groupByField) {
-                String fieldName = field.getFieldName();
-                String temp = String.valueOf(value.get(fieldName));
-                sb.append(temp);
-                sb.append(Constant.SPLIT);
+            long start = metrics.start();
+            try {
+                return GroupByKey.of(value, accessors);
+            } finally {
+                metrics.record(start);
             }
-
-            String result = sb.toString();
-            return result.substring(0, result.length() - 1);
         });
     }
 
-    protected GroupedStream<String, ? extends JsonNode> buildHaving(GroupedStream<String, ? extends JsonNode> selectField) {
+    protected GroupedStream<GroupByKey, ? extends JsonNode> buildHaving(GroupedStream<GroupByKey, ? extends JsonNode> selectField, BuildContext context) {
         if (havingExpression != null) {
+            Predicate<JsonNode> predicate = havingExpression.compile();
+            OperatorMetrics metrics = MetricsRegistry.of(context.getJobId(), OperatorMetrics.HAVING);
+            ExpressionErrors errors = ExpressionErrors.of(context.getJobId(), OperatorMetrics.HAVING, havingExpression.getContent());
             return selectField.filter(value -> {
+                long start = metrics.start();
                 try {
-                    return havingExpression.isTrue(value);
+                    return predicate.test(value);
                 } catch (Throwable t) {
                     //使用错误，例如字段是string，使用>过滤；
-                    logger.info("having filter error, sql:[{}], value=[{}]", GroupByQueryStatement.this.getContent(), value, t);
+                    errors.report(value, t);
                     return false;
+                } finally {
+                    metrics.record(start);
                 }
             });
         }
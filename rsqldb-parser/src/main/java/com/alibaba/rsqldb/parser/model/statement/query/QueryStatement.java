@@ -27,6 +27,8 @@ import com.alibaba.rsqldb.common.function.SQLFunction;
 import com.alibaba.rsqldb.common.function.SumFunction;
 import com.alibaba.rsqldb.common.function.WindowBoundaryTimeFunction;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.expression.AndExpression;
@@ -57,6 +59,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -85,6 +88,9 @@ public class QueryStatement extends Statement {
 
     private List<SQLFunction> sqlFunctions;
 
+    //ALLOW LATENESS指定的允许迟到毫秒数，null表示使用默认值
+    private Integer allowLateness;
+
     @JsonCreator
     public QueryStatement(@JsonProperty("content") String content, @JsonProperty("tableName") String tableName,
                           @JsonProperty("selectFieldAndCalculator") Map<Field, Calculator> selectFieldAndCalculator) {
@@ -176,6 +182,38 @@ public class QueryStatement extends Statement {
         this.selectFieldAndCalculator = selectFieldAndCalculator;
     }
 
+    public Integer getAllowLateness() {
+        return allowLateness;
+    }
+
+    public void setAllowLateness(Integer allowLateness) {
+        this.allowLateness = allowLateness;
+    }
+
+    /**
+     * 查询引用到的源表字段，source端只解析这些字段
+     * @return null 表示需要全部字段
+     */
+    public Set<String> referencedFields() {
+        if (isSelectAll()) {
+            return null;
+        }
+
+        Set<String> result = new HashSet<>();
+        for (Field field : selectFieldAndCalculator.keySet()) {
+            result.add(field.getFieldName());
+        }
+        return result;
+    }
+
+    /**
+     * 可以下推到source端、在解析时提前判断的过滤条件
+     * @return null 表示没有
+     */
+    public Expression pushdownFilter() {
+        return null;
+    }
+
 
 
     //having 子句中的每一个元素也必须出现在select列表中
@@ -234,18 +272,21 @@ public class QueryStatement extends Statement {
 
     protected void buildSelectItem(RStream<JsonNode> rStream, BuildContext context) {
         if (isSelectField()) {
-            rStream = rStream.map(value -> map(value, fieldName2AsName()));
+            HashMap<String, String> fieldName2AsName = fieldName2AsName();
+            rStream = rStream.map(value -> map(value, fieldName2AsName));
             context.setrStreamResult(rStream);
         } else {
             //select class, avg(score) from table就是所有值都只能在一个实例上计算，不然结果不准确
-            GroupedStream<String, ObjectNode> groupedStream = rStream.keyBy(value -> QueryStatement.this.getContent()).aggregate(buildAccumulator());
+            GroupByKey key = GroupByKey.of(this.getContent());
+            GroupedStream<GroupByKey, ObjectNode> groupedStream = rStream.keyBy(value -> key)
+                    .aggregate(buildAccumulator(context, OperatorMetrics.AGGREGATE));
             context.setGroupedStreamResult(groupedStream);
         }
     }
 
-
-    protected Accumulator<JsonNode, ObjectNode> buildAccumulator() {
-        return new RSQLAccumulator(sqlFunctions);
+    //聚合输出的条数在accumulator中统计，不额外增加算子
+    protected RSQLAccumulator buildAccumulator(BuildContext context, String operator) {
+        return new RSQLAccumulator(sqlFunctions).withMetrics(MetricsRegistry.of(context.getJobId(), operator));
     }
 
     private boolean checkInSelect(String fieldName, Calculator checkCalculator) {
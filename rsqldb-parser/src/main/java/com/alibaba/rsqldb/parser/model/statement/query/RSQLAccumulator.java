@@ -15,7 +15,9 @@
  */
 package com.alibaba.rsqldb.parser.model.statement.query;
 
+import com.alibaba.rsqldb.common.function.AccumulatorState;
 import com.alibaba.rsqldb.common.function.SQLFunction;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -23,48 +25,41 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.rocketmq.streams.core.function.accumulator.Accumulator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
 
  @JsonIgnoreProperties(ignoreUnknown = true)
  public class RSQLAccumulator implements Accumulator<JsonNode, ObjectNode> {
-     private static final Logger logger = LoggerFactory.getLogger(RSQLAccumulator.class);
-
      private final List<SQLFunction> sqlFunctions;
-     private final ConcurrentHashMap<String/*fieldName@asName@SQLFunction.getClass.getName*/, SQLFunction> sqlFunctionMap;
-     private final ConcurrentHashMap<String, Object> tempHolder = new ConcurrentHashMap<>();
-
-     @JsonCreator
-     public RSQLAccumulator(@JsonProperty("sqlFunctions") List<SQLFunction> sqlFunctions) {
-         this.sqlFunctions = sqlFunctions;
-         this.sqlFunctionMap = buildSQLMap();
+     //每个SQLFunction在state中的起始slot
+     private final int[] indexes;
+     private final AccumulatorState state;
+     //输出结果时计数，不参与序列化
+     private OperatorMetrics metrics;
+
+     public RSQLAccumulator(List<SQLFunction> sqlFunctions) {
+         this(sqlFunctions, null);
      }
 
-     private ConcurrentHashMap<String, SQLFunction> buildSQLMap() {
-         ConcurrentHashMap<String, SQLFunction> result = new ConcurrentHashMap<>();
-
-         if (sqlFunctions == null || sqlFunctions.size() == 0) {
-             return result;
+     @JsonCreator
+     public RSQLAccumulator(@JsonProperty("sqlFunctions") List<SQLFunction> sqlFunctions,
+                            @JsonProperty("state") AccumulatorState state) {
+         this.sqlFunctions = sqlFunctions != null ? sqlFunctions : new ArrayList<>();
+         this.indexes = new int[this.sqlFunctions.size()];
+
+         int size = 0;
+         for (int i = 0; i < this.sqlFunctions.size(); i++) {
+             indexes[i] = size;
+             size += this.sqlFunctions.get(i).stateSize();
          }
 
-         for (SQLFunction sqlFunction : sqlFunctions) {
-             String tableName = sqlFunction.getTableName();
-             String fieldName = sqlFunction.getFieldName();
-             String asName = sqlFunction.getAsName();
-             String className = sqlFunction.getClass().getName();
-
-             String key = String.join("@", tableName, fieldName, asName, className);
-
-             result.putIfAbsent(key, sqlFunction);
+         if (state != null && state.size() == size) {
+             this.state = state;
+         } else {
+             this.state = new AccumulatorState(size);
          }
-
-         return result;
      }
 
      @Override
@@ -73,55 +68,53 @@ import java.util.concurrent.ConcurrentHashMap;
              return;
          }
 
-         for (SQLFunction function : sqlFunctionMap.values()) {
-             function.apply(value, tempHolder);
+         for (int i = 0; i < indexes.length; i++) {
+             sqlFunctions.get(i).apply(value, state, indexes[i]);
          }
      }
 
      @Override
      public void merge(Accumulator<JsonNode, ObjectNode> other) {
+         if (!(other instanceof RSQLAccumulator)) {
+             throw new IllegalArgumentException("can not merge accumulator: " + other);
+         }
 
+         merge(((RSQLAccumulator) other).state);
      }
 
-     //触发窗口时调用
-     @Override
-     public ObjectNode result(Properties context) {
-         //需要二次计算的，进行二次计算
-         for (SQLFunction function : sqlFunctions) {
-             function.secondCalcu(tempHolder, context);
+     public void merge(AccumulatorState other) {
+         if (other == null) {
+             return;
          }
 
-         ObjectNode node = JsonNodeFactory.instance.objectNode();
-
+         if (other.size() != state.size()) {
+             throw new IllegalArgumentException("state size mismatch, expect " + state.size() + " but " + other.size());
+         }
 
-         for (SQLFunction sqlFunction : sqlFunctions) {
-             String asName = sqlFunction.getAsName();
+         for (int i = 0; i < indexes.length; i++) {
+             sqlFunctions.get(i).merge(state, indexes[i], other, indexes[i]);
+         }
+     }
 
-             Object temp = tempHolder.get(asName);
+     public RSQLAccumulator withMetrics(OperatorMetrics metrics) {
+         this.metrics = metrics;
+         return this;
+     }
 
-             if (temp instanceof Number) {
-                 BigDecimal value = new BigDecimal(String.valueOf(temp));
+     //触发窗口时调用
+     @Override
+     public ObjectNode result(Properties context) {
+         if (metrics != null) {
+             metrics.mark();
+         }
 
-                 String valueStr = value.toString();
-                 if (valueStr.contains(".")) {
-                     node.put(asName, value.doubleValue());
-                 } else {
-                     node.put(asName, value.longValue());
-                 }
+         ObjectNode node = JsonNodeFactory.instance.objectNode();
 
-             } else if (temp instanceof String) {
-                 node.put(asName, (String) temp);
-             } else if (temp instanceof JsonNode) {
-                 node.set(asName, (JsonNode) temp);
-             } else if (temp == null) {
-                 node.set(asName, null);
-             } else {
-                 logger.error("unsupported type: " + temp.getClass());
-                 throw new UnsupportedOperationException();
-             }
+         for (int i = 0; i < indexes.length; i++) {
+             sqlFunctions.get(i).result(state, indexes[i], node, context);
          }
 
-         tempHolder.clear();
+         state.clear();
 
          return node;
      }
@@ -130,13 +123,13 @@ import java.util.concurrent.ConcurrentHashMap;
          return sqlFunctions;
      }
 
-     public ConcurrentHashMap<String, Object> getTempHolder() {
-         return tempHolder;
+     public AccumulatorState getState() {
+         return state;
      }
 
      @Override
      public Accumulator<JsonNode, ObjectNode> clone() {
-         return new RSQLAccumulator(new ArrayList<>(this.sqlFunctions));
+         return new RSQLAccumulator(new ArrayList<>(this.sqlFunctions)).withMetrics(metrics);
      }
 
 
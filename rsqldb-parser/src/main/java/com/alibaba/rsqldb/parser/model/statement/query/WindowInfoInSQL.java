@@ -21,6 +21,9 @@ import com.alibaba.rsqldb.parser.model.Node;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.rocketmq.streams.core.window.Time;
+import org.apache.rocketmq.streams.core.window.WindowBuilder;
+import org.apache.rocketmq.streams.core.window.WindowInfo;
 
 import java.util.concurrent.TimeUnit;
 
@@ -120,6 +123,23 @@ public class WindowInfoInSQL extends Node {
         this.newFieldName = newFieldName;
     }
 
+    public WindowInfo toWindowInfo() {
+        switch (type) {
+            case TUMBLE: {
+                return WindowBuilder.tumblingWindow(Time.of(size, timeUnit));
+            }
+            case HOP: {
+                return WindowBuilder.slidingWindow(Time.of(size, timeUnit), Time.of(slide, timeUnit));
+            }
+            case SESSION: {
+                return WindowBuilder.sessionWindow(Time.of(size, timeUnit));
+            }
+            default: {
+                throw new IllegalArgumentException("unknown window type: " + type);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "WindowInfo{" +
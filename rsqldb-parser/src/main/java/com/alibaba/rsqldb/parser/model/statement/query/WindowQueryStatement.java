@@ -17,7 +17,11 @@ package com.alibaba.rsqldb.parser.model.statement.query;
 
 import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.Field;
@@ -32,14 +36,13 @@ import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.streams.core.rstream.GroupedStream;
 import org.apache.rocketmq.streams.core.rstream.RStream;
 import org.apache.rocketmq.streams.core.rstream.WindowStream;
-import org.apache.rocketmq.streams.core.window.Time;
-import org.apache.rocketmq.streams.core.window.WindowBuilder;
-import org.apache.rocketmq.streams.core.window.WindowInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class WindowQueryStatement extends GroupByQueryStatement {
@@ -89,14 +92,26 @@ public class WindowQueryStatement extends GroupByQueryStatement {
         }
     }
 
+    @Override
+    public Set<String> referencedFields() {
+        Set<String> result = super.referencedFields();
+        if (result != null) {
+            result.add(groupByWindow.getTimeField().getFieldName());
+        }
+        return result;
+    }
+
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        context.putHeader(RSQLConstant.CONFIG_PREFIX + StreamConfig.ALLOW_LATENESS_MILLISECOND, 10*1000);
+        Integer allowLateness = this.getAllowLateness();
+        context.putHeader(RSQLConstant.CONFIG_PREFIX + StreamConfig.ALLOW_LATENESS_MILLISECOND,
+                allowLateness != null ? allowLateness : RSQLConstant.Window.ALLOW_LATENESS_MS);
 
         RStream<JsonNode> rStream = context.getRStreamSource(this.getTableName());
+        String timeField = groupByWindow.getTimeField().getFieldName();
+        FieldAccessor accessor = new FieldAccessor(timeField);
         RStream<JsonNode> stream = rStream.selectTimestamp(value -> {
-            String timeField = groupByWindow.getTimeField().getFieldName();
-            JsonNode node = value.get(timeField);
+            JsonNode node = accessor.get(value);
             try {
                 return node.asLong();
             } catch (Throwable t) {
@@ -106,39 +121,19 @@ public class WindowQueryStatement extends GroupByQueryStatement {
         });
 
 
-        GroupedStream<String, JsonNode> groupedStream = buildGroupBy(stream);
-
-        WindowInfo windowInfo;
-        switch (groupByWindow.getType()) {
-            case TUMBLE: {
-                windowInfo = WindowBuilder.tumblingWindow(Time.of(groupByWindow.getSize(), groupByWindow.getTimeUnit()));
-                break;
-            }
-            case HOP: {
-                windowInfo = WindowBuilder.slidingWindow(Time.of(groupByWindow.getSize(), groupByWindow.getTimeUnit()),
-                        Time.of(groupByWindow.getSlide(), groupByWindow.getTimeUnit()));
-                break;
-            }
-            case SESSION: {
-                windowInfo = WindowBuilder.sessionWindow(Time.of(groupByWindow.getSize(), groupByWindow.getTimeUnit()));
-                break;
-            }
-            default: {
-                throw new IllegalArgumentException("unknown window type: " + groupByWindow.getType());
-            }
-        }
+        GroupedStream<GroupByKey, JsonNode> groupedStream = buildGroupBy(stream, context);
 
-        WindowStream<String, JsonNode> windowStream = groupedStream.window(windowInfo);
+        WindowStream<GroupByKey, JsonNode> windowStream = groupedStream.window(groupByWindow.toWindowInfo());
 
-        WindowStream<String, ? extends JsonNode> selectField = windowStream;
+        WindowStream<GroupByKey, ? extends JsonNode> selectField = windowStream;
         //select
         if (!isSelectAll()) {
-            Accumulator<JsonNode, ObjectNode> action = buildAccumulator();
+            Accumulator<JsonNode, ObjectNode> action = buildAccumulator(context, OperatorMetrics.WINDOW);
             selectField = windowStream.aggregate(action);
         }
 
         //having
-        selectField = buildHaving(selectField);
+        selectField = buildHaving(selectField, context);
 
 
         context.setWindowStreamResult(selectField);
@@ -146,15 +141,21 @@ public class WindowQueryStatement extends GroupByQueryStatement {
         return context;
     }
 
-    protected WindowStream<String, ? extends JsonNode> buildHaving(WindowStream<String, ? extends JsonNode> selectField) {
+    protected WindowStream<GroupByKey, ? extends JsonNode> buildHaving(WindowStream<GroupByKey, ? extends JsonNode> selectField, BuildContext context) {
         if (this.getHavingExpression() != null) {
+            Predicate<JsonNode> predicate = this.getHavingExpression().compile();
+            OperatorMetrics metrics = MetricsRegistry.of(context.getJobId(), OperatorMetrics.HAVING);
+            ExpressionErrors errors = ExpressionErrors.of(context.getJobId(), OperatorMetrics.HAVING, this.getHavingExpression().getContent());
             return selectField.filter(value -> {
+                long start = metrics.start();
                 try {
-                    return this.getHavingExpression().isTrue(value);
+                    return predicate.test(value);
                 } catch (Throwable t) {
                     //使用错误，例如字段是string，使用>过滤；
-                    logger.warn("having filter error, sql:[{}], value=[{}]", WindowQueryStatement.this.getContent(), value, t);
+                    errors.report(value, t);
                     return false;
+                } finally {
+                    metrics.record(start);
                 }
             });
         }
@@ -16,9 +16,12 @@
 package com.alibaba.rsqldb.parser.model.statement.query.join;
 
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.Field;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinCondition;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinType;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -32,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JointGroupByHavingStatement extends JointGroupByStatement {
@@ -60,13 +64,16 @@ public class JointGroupByHavingStatement extends JointGroupByStatement {
 
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        GroupedStream<String, ? extends JsonNode> groupedStream = buildJoinGBSelect(context);
+        GroupedStream<GroupByKey, ? extends JsonNode> groupedStream = buildJoinGBSelect(context);
+
+        Predicate<JsonNode> predicate = havingExpression.compile();
+        ExpressionErrors errors = ExpressionErrors.of(context.getJobId(), OperatorMetrics.HAVING, havingExpression.getContent());
         groupedStream = groupedStream.filter(value -> {
             try {
-                return havingExpression.isTrue(value);
+                return predicate.test(value);
             } catch (Throwable t) {
                 //使用错误，例如字段是string，使用>过滤；
-                logger.info("having filter error, sql:[{}], value=[{}]", JointGroupByHavingStatement.this.getContent(), value, t);
+                errors.report(value, t);
                 return false;
             }
         });
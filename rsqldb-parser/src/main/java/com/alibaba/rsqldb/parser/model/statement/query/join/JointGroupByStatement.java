@@ -15,9 +15,12 @@
  */
 package com.alibaba.rsqldb.parser.model.statement.query.join;
 
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.Field;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinCondition;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinType;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -26,7 +29,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.antlr.v4.runtime.ParserRuleContext;
-import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.function.accumulator.Accumulator;
 import org.apache.rocketmq.streams.core.rstream.GroupedStream;
 import org.apache.rocketmq.streams.core.rstream.RStream;
@@ -59,38 +61,28 @@ public class JointGroupByStatement extends JointStatement {
 
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        GroupedStream<String, ? extends JsonNode> groupedStream = buildJoinGBSelect(context);
+        GroupedStream<GroupByKey, ? extends JsonNode> groupedStream = buildJoinGBSelect(context);
 
         context.setGroupedStreamResult(groupedStream);
 
         return context;
     }
 
-    protected GroupedStream<String, ? extends JsonNode> buildJoinGBSelect(BuildContext context) {
+    protected GroupedStream<GroupByKey, ? extends JsonNode> buildJoinGBSelect(BuildContext context) {
         RStream<JsonNode> leftStream = context.getRStreamSource(this.getTableName());
         RStream<JsonNode> rightStream = context.getRStreamSource(this.getJoinTableName());
 
         //join
-        RStream<JsonNode> rStream = join(leftStream, rightStream);
+        RStream<JsonNode> rStream = join(context, leftStream, rightStream);
 
         //groupby
-        GroupedStream<String, JsonNode> groupedStream = rStream.keyBy(value -> {
-            StringBuilder sb = new StringBuilder();
-            for (Field field : groupByField) {
-                String fieldName = field.getFieldName();
-                String temp = String.valueOf(value.get(fieldName));
-                sb.append(temp);
-                sb.append(Constant.SPLIT);
-            }
-
-            String result = sb.toString();
-            return result.substring(0, result.length() - 1);
-        });
+        FieldAccessor[] accessors = GroupByKey.accessors(groupByField);
+        GroupedStream<GroupByKey, JsonNode> groupedStream = rStream.keyBy(value -> GroupByKey.of(value, accessors));
 
         //select
-        GroupedStream<String, ? extends JsonNode> selectField = groupedStream;
+        GroupedStream<GroupByKey, ? extends JsonNode> selectField = groupedStream;
         if (!isSelectAll()) {
-            Accumulator<JsonNode, ObjectNode> select = buildAccumulator();
+            Accumulator<JsonNode, ObjectNode> select = buildAccumulator(context, OperatorMetrics.AGGREGATE);
             selectField = groupedStream.aggregate(select);
         }
 
@@ -15,6 +15,7 @@
  */
 package com.alibaba.rsqldb.parser.model.statement.query.join;
 
+import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.exception.RSQLServerException;
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
@@ -22,6 +23,7 @@ import com.alibaba.rsqldb.parser.impl.ParserConstant;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.statement.query.QueryStatement;
+import com.alibaba.rsqldb.parser.model.statement.query.WindowInfoInSQL;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinCondition;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinType;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -31,14 +33,18 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.streams.core.rstream.JoinedStream;
 import org.apache.rocketmq.streams.core.rstream.RStream;
 import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.window.Time;
 import org.apache.rocketmq.streams.core.window.WindowBuilder;
+import org.apache.rocketmq.streams.core.window.WindowInfo;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JointStatement extends QueryStatement {
@@ -49,6 +55,9 @@ public class JointStatement extends QueryStatement {
 
     private JoinCondition joinCondition;
 
+    //WITHIN指定的join窗口，null表示使用默认的滚动窗口
+    private WindowInfoInSQL joinWindow;
+
     @JsonCreator
     public JointStatement(@JsonProperty("content") String content, @JsonProperty("tableName") String tableName,
                           @JsonProperty("selectFieldAndCalculator") Map<Field, Calculator> selectFieldAndCalculator,
@@ -104,6 +113,14 @@ public class JointStatement extends QueryStatement {
         this.joinCondition = joinCondition;
     }
 
+    public WindowInfoInSQL getJoinWindow() {
+        return joinWindow;
+    }
+
+    public void setJoinWindow(WindowInfoInSQL joinWindow) {
+        this.joinWindow = joinWindow;
+    }
+
     public void validator() {
         //joinCondition 中key的tablename=asSourceTableName/table
         //value的tableName = asJoinTableName/joinTableName
@@ -146,13 +163,19 @@ public class JointStatement extends QueryStatement {
         }
     }
 
+    //join两侧的字段可能来自任一张表，不做裁剪
+    @Override
+    public Set<String> referencedFields() {
+        return null;
+    }
+
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
         RStream<JsonNode> leftStream = context.getRStreamSource(this.getTableName());
         RStream<JsonNode> rightStream = context.getRStreamSource(this.joinTableName);
 
         //join
-        RStream<JsonNode> rStream = join(leftStream, rightStream);
+        RStream<JsonNode> rStream = join(context, leftStream, rightStream);
 
         //select
         buildSelectItem(rStream, context);
@@ -160,7 +183,14 @@ public class JointStatement extends QueryStatement {
         return context;
     }
 
-    protected RStream<JsonNode> join(RStream<JsonNode> leftStream, RStream<JsonNode> rightStream) {
+    protected RStream<JsonNode> join(BuildContext context, RStream<JsonNode> leftStream, RStream<JsonNode> rightStream) {
+        if (this.getAllowLateness() != null) {
+            context.putHeader(RSQLConstant.CONFIG_PREFIX + StreamConfig.ALLOW_LATENESS_MILLISECOND, this.getAllowLateness());
+        }
+
+        WindowInfo windowInfo = joinWindow != null ? joinWindow.toWindowInfo()
+                : WindowBuilder.tumblingWindow(Time.of(RSQLConstant.Window.JOIN_WINDOW_MS, TimeUnit.MILLISECONDS));
+
         JoinedStream<JsonNode, JsonNode> joinedStream;
         switch (joinType) {
             case LEFT_JOIN: {
@@ -204,7 +234,7 @@ public class JointStatement extends QueryStatement {
                     }
 
                     return result;
-                }).window(WindowBuilder.tumblingWindow(Time.seconds(10)))
+                }).window(windowInfo)
                 .apply((value1, value2) -> {
                     ObjectNode objectNode = JsonNodeFactory.instance.objectNode();
                     //新建临时表
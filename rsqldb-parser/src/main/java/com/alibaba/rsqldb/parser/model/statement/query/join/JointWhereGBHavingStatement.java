@@ -16,10 +16,13 @@
 package com.alibaba.rsqldb.parser.model.statement.query.join;
 
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.statement.SQLType;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.model.statement.query.GroupByQueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinCondition;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinType;
@@ -35,6 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JointWhereGBHavingStatement extends JointWhereGroupByStatement {
@@ -77,14 +81,17 @@ public class JointWhereGBHavingStatement extends JointWhereGroupByStatement {
 
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        GroupedStream<String, ? extends JsonNode> groupedStream = super.buildJoinWhereGBSelect(context);
+        GroupedStream<GroupByKey, ? extends JsonNode> groupedStream = super.buildJoinWhereGBSelect(context);
+
+        Predicate<JsonNode> predicate = havingExpression.compile();
+        ExpressionErrors errors = ExpressionErrors.of(context.getJobId(), OperatorMetrics.HAVING, havingExpression.getContent());
 
         groupedStream = groupedStream.filter(value -> {
             try {
-                return havingExpression.isTrue(value);
+                return predicate.test(value);
             } catch (Throwable t) {
                 //使用错误，例如字段是string，使用>过滤；
-                logger.info("having filter error, sql:[{}], value=[{}]", JointWhereGBHavingStatement.this.getContent(), value, t);
+                errors.report(value, t);
                 return false;
             }
         });
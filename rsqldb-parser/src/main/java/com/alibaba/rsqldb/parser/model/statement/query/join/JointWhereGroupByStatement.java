@@ -16,10 +16,13 @@
 package com.alibaba.rsqldb.parser.model.statement.query.join;
 
 import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
 import com.alibaba.rsqldb.parser.model.Calculator;
 import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.Field;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinCondition;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinType;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -27,7 +30,6 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.function.accumulator.Accumulator;
 import org.apache.rocketmq.streams.core.rstream.GroupedStream;
 import org.apache.rocketmq.streams.core.rstream.RStream;
@@ -79,33 +81,23 @@ public class JointWhereGroupByStatement extends JointWhereStatement {
 
     @Override
     public BuildContext build(BuildContext context) throws Throwable {
-        GroupedStream<String, ? extends JsonNode> selectField = buildJoinWhereGBSelect(context);
+        GroupedStream<GroupByKey, ? extends JsonNode> selectField = buildJoinWhereGBSelect(context);
 
         context.setGroupedStreamResult(selectField);
 
         return context;
     }
 
-    protected GroupedStream<String, ? extends JsonNode> buildJoinWhereGBSelect(BuildContext context) {
+    protected GroupedStream<GroupByKey, ? extends JsonNode> buildJoinWhereGBSelect(BuildContext context) {
         RStream<JsonNode> rStream = super.buildJoinWhere(context);
 
-        GroupedStream<String, JsonNode> groupedStream = rStream.keyBy(value -> {
-            StringBuilder sb = new StringBuilder();
-            for (Field field : groupByField) {
-                String fieldName = field.getFieldName();
-                String temp = String.valueOf(value.get(fieldName));
-                sb.append(temp);
-                sb.append(Constant.SPLIT);
-            }
-
-            String result = sb.toString();
-            return result.substring(0, result.length() - 1);
-        });
+        FieldAccessor[] accessors = GroupByKey.accessors(groupByField);
+        GroupedStream<GroupByKey, JsonNode> groupedStream = rStream.keyBy(value -> GroupByKey.of(value, accessors));
 
         //select
-        GroupedStream<String, ? extends JsonNode> selectField = groupedStream;
+        GroupedStream<GroupByKey, ? extends JsonNode> selectField = groupedStream;
         if (!isSelectAll()) {
-            Accumulator<JsonNode, ObjectNode> select = buildAccumulator();
+            Accumulator<JsonNode, ObjectNode> select = buildAccumulator(context, OperatorMetrics.AGGREGATE);
             selectField = groupedStream.aggregate(select);
         }
 
@@ -28,6 +28,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.rocketmq.streams.core.rstream.RStream;
 
 import java.util.Map;
+import java.util.function.Predicate;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JointWhereStatement extends JointStatement {
@@ -99,15 +100,17 @@ public class JointWhereStatement extends JointStatement {
         //before where
         RStream<JsonNode> leftStream = context.getRStreamSource(this.getTableName());
         if (beforeJoinWhereExpression != null) {
-            leftStream = leftStream.filter(value -> beforeJoinWhereExpression.isTrue(value));
+            Predicate<JsonNode> before = beforeJoinWhereExpression.compile();
+            leftStream = leftStream.filter(before::test);
         }
 
         RStream<JsonNode> rightStream = context.getRStreamSource(this.getJoinTableName());
 
         //join
-        RStream<JsonNode> rStream = join(leftStream, rightStream);
+        RStream<JsonNode> rStream = join(context, leftStream, rightStream);
 
         //after where
-        return rStream.filter(value -> afterJoinWhereExpression.isTrue(value));
+        Predicate<JsonNode> after = afterJoinWhereExpression.compile();
+        return rStream.filter(after::test);
     }
 }
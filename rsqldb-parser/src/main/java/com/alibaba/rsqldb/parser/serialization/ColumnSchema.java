@@ -0,0 +1,142 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization;
+
+import com.alibaba.rsqldb.common.exception.DeserializeException;
+import com.alibaba.rsqldb.common.exception.SerializeException;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.model.FieldType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.apache.rocketmq.streams.core.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按建表字段顺序排列的列，供CSV、AVRO等按位置编码的格式使用；proctime字段不出现在数据中
+ */
+public class ColumnSchema {
+    private static final JsonNodeFactory factory = JsonNodeFactory.withExactBigDecimals(true);
+
+    private final String[] names;
+    private final FieldType[] types;
+
+    public ColumnSchema(Columns columns) {
+        List<Pair<String, FieldType>> holder = new ArrayList<>();
+        for (Pair<String, FieldType> pair : columns.getHolder()) {
+            if (pair.getValue() != FieldType.PROCTIME) {
+                holder.add(pair);
+            }
+        }
+
+        this.names = new String[holder.size()];
+        this.types = new FieldType[holder.size()];
+        for (int i = 0; i < holder.size(); i++) {
+            this.names[i] = holder.get(i).getKey();
+            this.types[i] = holder.get(i).getValue();
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public FieldType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * 文本按列类型转为节点，空串视为null
+     */
+    public JsonNode parse(int index, String text) throws DeserializeException {
+        if (text == null || text.isEmpty()) {
+            return factory.nullNode();
+        }
+
+        try {
+            switch (types[index]) {
+                case INT:
+                    return factory.numberNode(Integer.parseInt(text.trim()));
+                case BIGINT:
+                case TIMESTAMP:
+                    return factory.numberNode(Long.parseLong(text.trim()));
+                default:
+                    return factory.textNode(text);
+            }
+        } catch (NumberFormatException e) {
+            throw new DeserializeException("value of field [" + names[index] + "] is not " + types[index] + ": " + text, e);
+        }
+    }
+
+    /**
+     * 编码后的Java值转为节点，字符串类型可能是Utf8等CharSequence
+     */
+    public JsonNode toNode(Object value) {
+        if (value == null) {
+            return factory.nullNode();
+        }
+        if (value instanceof Integer) {
+            return factory.numberNode((Integer) value);
+        }
+        if (value instanceof Long) {
+            return factory.numberNode((Long) value);
+        }
+        return factory.textNode(value.toString());
+    }
+
+    /**
+     * 取出记录中该列的值并按列类型转换，缺失时为null
+     */
+    public Object valueOf(int index, JsonNode record) throws SerializeException {
+        JsonNode node = record.get(names[index]);
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+
+        FieldType type = types[index];
+        try {
+            switch (type) {
+                case INT:
+                    if (node.isNumber() && node.canConvertToInt()) {
+                        return node.intValue();
+                    }
+                    if (node.isTextual()) {
+                        return Integer.parseInt(node.textValue().trim());
+                    }
+                    break;
+                case BIGINT:
+                case TIMESTAMP:
+                    if (node.isNumber() && node.canConvertToLong()) {
+                        return node.longValue();
+                    }
+                    if (node.isTextual()) {
+                        return Long.parseLong(node.textValue().trim());
+                    }
+                    break;
+                default:
+                    return node.isValueNode() ? node.asText() : node.toString();
+            }
+        } catch (NumberFormatException e) {
+            throw new SerializeException("value of field [" + names[index] + "] is not " + type + ": " + node, e);
+        }
+        throw new SerializeException("value of field [" + names[index] + "] is not " + type + ": " + node);
+    }
+}
@@ -16,12 +16,54 @@
 package com.alibaba.rsqldb.parser.serialization;
 
 import com.alibaba.rsqldb.common.exception.DeserializeException;
+import com.alibaba.rsqldb.common.row.Row;
+import com.alibaba.rsqldb.common.row.RowSchema;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Set;
 
 public interface Deserializer {
     JsonNode deserialize(byte[] source) throws DeserializeException;
 
+    /**
+     * 只保留fieldNames中的顶层字段
+     */
+    default JsonNode deserialize(byte[] source, Set<String> fieldNames) throws DeserializeException {
+        JsonNode result = deserialize(source);
+        if (result instanceof ObjectNode) {
+            ((ObjectNode) result).retain(fieldNames);
+        }
+        return result;
+    }
+
+    /**
+     * filter不成立时返回null
+     */
+    default JsonNode deserialize(byte[] source, Set<String> fieldNames, SourceFilter filter) throws DeserializeException {
+        JsonNode result = deserialize(source, fieldNames);
+        if (filter != null && result != null && !filter.test(result)) {
+            return null;
+        }
+        return result;
+    }
+
     default <T> T deserialize(byte[] source, Class<T> clazz) throws DeserializeException {
         return null;
     }
+
+    /**
+     * 按schema解析为定长槽位的Row，只保留schema中的字段；filter不成立时返回null
+     */
+    default JsonNode deserialize(byte[] source, RowSchema schema, SourceFilter filter) throws DeserializeException {
+        JsonNode result = deserialize(source, schema.getFieldNames(), filter);
+        if (!(result instanceof ObjectNode)) {
+            return result;
+        }
+
+        Row row = new Row(JsonNodeFactory.withExactBigDecimals(true), schema);
+        row.setAll((ObjectNode) result);
+        return row;
+    }
 }
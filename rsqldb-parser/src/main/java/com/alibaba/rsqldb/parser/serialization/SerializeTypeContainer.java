@@ -16,6 +16,11 @@
 package com.alibaba.rsqldb.parser.serialization;
 
 import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.serialization.avro.AvroDe;
+import com.alibaba.rsqldb.parser.serialization.avro.AvroSer;
+import com.alibaba.rsqldb.parser.serialization.csv.CsvDe;
+import com.alibaba.rsqldb.parser.serialization.csv.CsvSer;
 import com.alibaba.rsqldb.parser.serialization.json.JsonDe;
 import com.alibaba.rsqldb.parser.serialization.json.JsonSer;
 
@@ -37,4 +42,35 @@ public class SerializeTypeContainer {
     public static Serializer getSerializer(SerializeType type) {
         return serializerHolder.get(type);
     }
+
+    /**
+     * CSV、AVRO按建表字段的顺序和类型编码，每张表单独创建
+     */
+    public static Deserializer getDeserializer(SerializeType type, Columns columns) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case CSV:
+                return new CsvDe(columns);
+            case AVRO:
+                return new AvroDe(columns);
+            default:
+                return getDeserializer(type);
+        }
+    }
+
+    public static Serializer getSerializer(SerializeType type, Columns columns) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case CSV:
+                return new CsvSer(columns);
+            case AVRO:
+                return new AvroSer(columns);
+            default:
+                return getSerializer(type);
+        }
+    }
 }
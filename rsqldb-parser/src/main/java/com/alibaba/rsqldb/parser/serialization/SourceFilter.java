@@ -0,0 +1,119 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization;
+
+import com.alibaba.rsqldb.parser.model.expression.AndExpression;
+import com.alibaba.rsqldb.parser.model.expression.Expression;
+import com.alibaba.rsqldb.parser.model.expression.SingleExpression;
+import com.alibaba.rsqldb.parser.model.expression.SingleValueCalcuExpression;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * where中可以下推到source解析阶段的条件：顶层and连接的单字段条件。
+ * 任一条件不成立，记录在构建完整的JsonNode之前就被丢弃；完整的where仍在下游执行。
+ */
+public class SourceFilter {
+    private final String[] fieldNames;
+    private final Predicate<JsonNode>[] predicates;
+
+    @SuppressWarnings("unchecked")
+    private SourceFilter(List<SingleExpression> expressions) {
+        this.fieldNames = new String[expressions.size()];
+        this.predicates = new Predicate[expressions.size()];
+        for (int i = 0; i < expressions.size(); i++) {
+            SingleExpression expression = expressions.get(i);
+            this.fieldNames[i] = expression.getField().getFieldName();
+            this.predicates[i] = expression.compile();
+        }
+    }
+
+    /**
+     * @param expression where条件
+     * @param excludeFields 解析之后才会生成的字段，例如proctime，不能下推
+     * @return 没有可以下推的条件时返回null
+     */
+    public static SourceFilter of(Expression expression, Set<String> excludeFields) {
+        if (expression == null) {
+            return null;
+        }
+
+        List<SingleExpression> expressions = new ArrayList<>();
+        collect(expression, excludeFields, expressions);
+
+        return expressions.isEmpty() ? null : new SourceFilter(expressions);
+    }
+
+    private static void collect(Expression expression, Set<String> excludeFields, List<SingleExpression> result) {
+        if (expression instanceof AndExpression) {
+            AndExpression andExpression = (AndExpression) expression;
+            collect(andExpression.getLeftExpression(), excludeFields, result);
+            collect(andExpression.getRightExpression(), excludeFields, result);
+        } else if (expression instanceof SingleExpression && !(expression instanceof SingleValueCalcuExpression)) {
+            SingleExpression singleExpression = (SingleExpression) expression;
+            String fieldName = singleExpression.getField().getFieldName();
+            if (fieldName != null && !excludeFields.contains(fieldName)) {
+                result.add(singleExpression);
+            }
+        }
+    }
+
+    /**
+     * fieldName 刚被解析出来时调用，record中只需包含已经解析的字段
+     */
+    public boolean test(String fieldName, JsonNode record) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(fieldName) && !test(i, record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析结束后调用，判断没有出现在数据中的字段
+     */
+    public boolean testAbsent(JsonNode record) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (!record.has(fieldNames[i]) && !test(i, record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean test(JsonNode record) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (!test(i, record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //与下游filter一致，求值异常视为不成立
+    private boolean test(int index, JsonNode record) {
+        try {
+            return predicates[index].test(record);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization.avro;
+
+import com.alibaba.rsqldb.common.exception.DeserializeException;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.serialization.ColumnSchema;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+import java.io.IOException;
+
+/**
+ * avro二进制编码的单条记录，不带schema头，schema由建表字段生成
+ */
+public class AvroDe implements Deserializer {
+    private static final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+
+    private final JsonNodeFactory factory = JsonNodeFactory.withExactBigDecimals(true);
+    private final ColumnSchema schema;
+    private final GenericDatumReader<GenericRecord> reader;
+
+    public AvroDe(Columns columns) {
+        this.schema = new ColumnSchema(columns);
+        this.reader = new GenericDatumReader<>(AvroSchemas.of(schema));
+    }
+
+    @Override
+    public JsonNode deserialize(byte[] source) throws DeserializeException {
+        if (source == null || source.length == 0) {
+            return null;
+        }
+
+        GenericRecord record;
+        try {
+            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(source, decoders.get());
+            decoders.set(decoder);
+            record = reader.read(null, decoder);
+        } catch (IOException | AvroRuntimeException e) {
+            throw new DeserializeException(e);
+        }
+
+        ObjectNode result = factory.objectNode();
+        for (int i = 0; i < schema.size(); i++) {
+            result.set(schema.getName(i), schema.toNode(record.get(i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization.avro;
+
+import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.parser.serialization.ColumnSchema;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaParseException;
+
+class AvroSchemas {
+    /**
+     * 每个字段都是可为null的union，字段顺序与建表字段一致
+     */
+    static Schema of(ColumnSchema columns) {
+        try {
+            SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Row").fields();
+            for (int i = 0; i < columns.size(); i++) {
+                String name = columns.getName(i);
+                switch (columns.getType(i)) {
+                    case INT:
+                        fields = fields.optionalInt(name);
+                        break;
+                    case BIGINT:
+                    case TIMESTAMP:
+                        fields = fields.optionalLong(name);
+                        break;
+                    default:
+                        fields = fields.optionalString(name);
+                }
+            }
+            return fields.endRecord();
+        } catch (SchemaParseException e) {
+            throw new SyntaxErrorException("can not build avro schema from columns: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization.avro;
+
+import com.alibaba.rsqldb.common.exception.SerializeException;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.serialization.ColumnSchema;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 输出avro二进制编码的单条记录，不带schema头
+ */
+public class AvroSer implements Serializer {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ThreadLocal<BinaryEncoder> encoders = new ThreadLocal<>();
+
+    private final ColumnSchema schema;
+    private final Schema avroSchema;
+    private final GenericDatumWriter<GenericRecord> writer;
+
+    public AvroSer(Columns columns) {
+        this.schema = new ColumnSchema(columns);
+        this.avroSchema = AvroSchemas.of(schema);
+        this.writer = new GenericDatumWriter<>(avroSchema);
+    }
+
+    @Override
+    public byte[] serialize(Object obj) throws SerializeException {
+        if (obj == null) {
+            return new byte[0];
+        }
+
+        JsonNode node = obj instanceof JsonNode ? (JsonNode) obj : objectMapper.valueToTree(obj);
+
+        GenericRecord record = new GenericData.Record(avroSchema);
+        for (int i = 0; i < schema.size(); i++) {
+            record.put(i, schema.valueOf(i, node));
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, encoders.get());
+            encoders.set(encoder);
+            writer.write(record, encoder);
+            encoder.flush();
+            return out.toByteArray();
+        } catch (IOException | AvroRuntimeException e) {
+            throw new SerializeException(e);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object key, Object value) throws SerializeException {
+        return this.serialize(value);
+    }
+}
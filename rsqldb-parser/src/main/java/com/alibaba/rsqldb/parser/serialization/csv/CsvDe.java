@@ -0,0 +1,76 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization.csv;
+
+import com.alibaba.rsqldb.common.exception.DeserializeException;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.serialization.ColumnSchema;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 每条消息是一行CSV，列按建表字段顺序排列
+ */
+public class CsvDe implements Deserializer {
+    private static final ObjectReader reader = new CsvMapper().readerFor(String[].class);
+
+    private final JsonNodeFactory factory = JsonNodeFactory.withExactBigDecimals(true);
+    private final ColumnSchema schema;
+
+    public CsvDe(Columns columns) {
+        this.schema = new ColumnSchema(columns);
+    }
+
+    @Override
+    public JsonNode deserialize(byte[] source) throws DeserializeException {
+        return deserialize(source, (Set<String>) null);
+    }
+
+    /**
+     * 不在fieldNames中的列不构建节点
+     */
+    @Override
+    public JsonNode deserialize(byte[] source, Set<String> fieldNames) throws DeserializeException {
+        if (source == null || source.length == 0) {
+            return null;
+        }
+
+        String[] values;
+        try {
+            values = reader.readValue(source);
+        } catch (IOException e) {
+            throw new DeserializeException(e);
+        }
+
+        ObjectNode result = factory.objectNode();
+        //行尾缺少的列视为字段不存在
+        int size = Math.min(values.length, schema.size());
+        for (int i = 0; i < size; i++) {
+            String name = schema.getName(i);
+            if (fieldNames == null || fieldNames.contains(name)) {
+                result.set(name, schema.parse(i, values[i]));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser.serialization.csv;
+
+import com.alibaba.rsqldb.common.exception.SerializeException;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.serialization.ColumnSchema;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * 按建表字段顺序输出一行CSV，不带换行符，null输出为空串
+ */
+public class CsvSer implements Serializer {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectWriter writer = new CsvMapper()
+            .writerFor(Object[].class)
+            .with(CsvSchema.emptySchema().withLineSeparator(""));
+
+    private final ColumnSchema schema;
+
+    public CsvSer(Columns columns) {
+        this.schema = new ColumnSchema(columns);
+    }
+
+    @Override
+    public byte[] serialize(Object obj) throws SerializeException {
+        if (obj == null) {
+            return new byte[0];
+        }
+
+        JsonNode record = obj instanceof JsonNode ? (JsonNode) obj : objectMapper.valueToTree(obj);
+
+        Object[] values = new Object[schema.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = schema.valueOf(i, record);
+        }
+
+        try {
+            return writer.writeValueAsBytes(values);
+        } catch (JsonProcessingException e) {
+            throw new SerializeException(e);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object key, Object value) throws SerializeException {
+        return this.serialize(value);
+    }
+}
@@ -16,17 +16,24 @@
 package com.alibaba.rsqldb.parser.serialization.json;
 
 import com.alibaba.rsqldb.common.exception.DeserializeException;
+import com.alibaba.rsqldb.common.row.Row;
+import com.alibaba.rsqldb.common.row.RowSchema;
 import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.serialization.Deserializer;
 import com.alibaba.rsqldb.parser.serialization.FieldKeyDeserializer;
+import com.alibaba.rsqldb.parser.serialization.SourceFilter;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.util.Set;
 
 
 public class JsonDe implements Deserializer {
@@ -56,6 +63,69 @@ public class JsonDe implements Deserializer {
         }
     }
 
+    @Override
+    public JsonNode deserialize(byte[] source, Set<String> fieldNames) throws DeserializeException {
+        return deserialize(source, fieldNames, null);
+    }
+
+    /**
+     * 流式解析，不在fieldNames中的字段直接跳过，不构建节点；
+     * 每解析出一个字段就判断filter，不成立时立即返回null，不再解析剩余部分
+     */
+    @Override
+    public JsonNode deserialize(byte[] source, Set<String> fieldNames, SourceFilter filter) throws DeserializeException {
+        return deserialize(source, fieldNames, filter, objectMapper.getNodeFactory().objectNode());
+    }
+
+    @Override
+    public JsonNode deserialize(byte[] source, RowSchema schema, SourceFilter filter) throws DeserializeException {
+        return deserialize(source, schema.getFieldNames(), filter, new Row(objectMapper.getNodeFactory(), schema));
+    }
+
+    private JsonNode deserialize(byte[] source, Set<String> fieldNames, SourceFilter filter, ObjectNode result) throws DeserializeException {
+        if (source == null || source.length == 0) {
+            return null;
+        }
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(source)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                JsonNode node = objectMapper.readTree(source);
+                if (filter != null && node != null && !filter.test(node)) {
+                    return null;
+                }
+                return node;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (!fieldNames.contains(fieldName)) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                if (token == JsonToken.VALUE_NULL) {
+                    result.putNull(fieldName);
+                } else {
+                    result.set(fieldName, objectMapper.readTree(parser));
+                }
+
+                if (filter != null && !filter.test(fieldName, result)) {
+                    return null;
+                }
+            }
+
+            if (filter != null && !filter.testAbsent(result)) {
+                return null;
+            }
+
+            return result;
+        } catch (IOException e) {
+            throw new DeserializeException(e);
+        }
+    }
+
     @Override
     public <T> T deserialize(byte[] source, Class<T> clazz) throws DeserializeException {
         if (source == null || source.length == 0) {
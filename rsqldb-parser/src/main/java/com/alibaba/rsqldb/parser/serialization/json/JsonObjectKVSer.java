@@ -18,7 +18,7 @@ package com.alibaba.rsqldb.parser.serialization.json;
 import com.alibaba.rsqldb.parser.serialization.Serializer;
 import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
 
-public class JsonObjectKVSer<V> implements KeyValueSerializer<Object, V> {
+public class JsonObjectKVSer<K, V> implements KeyValueSerializer<K, V> {
     private final Serializer serializer;
 
     public JsonObjectKVSer(Serializer serializer) {
@@ -26,7 +26,7 @@ public class JsonObjectKVSer<V> implements KeyValueSerializer<Object, V> {
     }
 
     @Override
-    public byte[] serialize(Object o, V data) throws Throwable {
-        return serializer.serialize(o, data);
+    public byte[] serialize(K key, V data) throws Throwable {
+        return serializer.serialize(key, data);
     }
 }
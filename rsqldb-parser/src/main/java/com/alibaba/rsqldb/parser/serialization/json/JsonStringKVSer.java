@@ -1,33 +0,0 @@
-/*
- * Copyright 1999-2023 Alibaba Group Holding Ltd.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.alibaba.rsqldb.parser.serialization.json;
-
-
-import com.alibaba.rsqldb.parser.serialization.Serializer;
-import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
-
-public class JsonStringKVSer<V> implements KeyValueSerializer<String, V> {
-    private final Serializer serializer;
-
-    public JsonStringKVSer(Serializer serializer) {
-        this.serializer = serializer;
-    }
-
-    @Override
-    public byte[] serialize(String s, V data) throws Throwable {
-        return this.serializer.serialize(s, data);
-    }
-}
@@ -46,6 +46,24 @@ public class ParserUtil {
     }
 
 
+    /**
+     * 去掉字符串常量首尾的引号，并把引号内两个连续的引号还原为一个，例如'it''s'还原为it's
+     */
+    public static String unquote(String text) {
+        if (text == null || text.length() < 2) {
+            return text;
+        }
+
+        char quote = text.charAt(0);
+        String content = text.substring(1, text.length() - 1);
+        if (content.indexOf(quote) == -1) {
+            return content;
+        }
+
+        String single = String.valueOf(quote);
+        return content.replace(single + single, single);
+    }
+
     private static String removeQuoted(String content) {
         if (StringUtils.isEmpty(content)) {
             return null;
@@ -65,8 +83,7 @@ public class ParserUtil {
             return null;
         }
 
-        String text = terminalNode.getText();
-        text = text.substring(1, text.length() - 1);
+        String text = unquote(terminalNode.getText());
 
         if (StringUtils.isEmpty(text)) {
             return null;
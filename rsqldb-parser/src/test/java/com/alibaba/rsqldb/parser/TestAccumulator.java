@@ -0,0 +1,149 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.common.function.AVGFunction;
+import com.alibaba.rsqldb.common.function.CountFunction;
+import com.alibaba.rsqldb.common.function.EmptyFunction;
+import com.alibaba.rsqldb.common.function.MaxFunction;
+import com.alibaba.rsqldb.common.function.MinFunction;
+import com.alibaba.rsqldb.common.function.SQLFunction;
+import com.alibaba.rsqldb.common.function.SumFunction;
+import com.alibaba.rsqldb.parser.model.statement.query.RSQLAccumulator;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestAccumulator {
+    private final Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.JSON);
+    private final Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.JSON);
+
+    private List<SQLFunction> functions() {
+        List<SQLFunction> functions = new ArrayList<>();
+        functions.add(new EmptyFunction(null, "position", "position"));
+        functions.add(new CountFunction(null, "*", "count"));
+        functions.add(new SumFunction(null, "num", "sum"));
+        functions.add(new AVGFunction(null, "num", "avg"));
+        functions.add(new MaxFunction(null, "score", "max"));
+        functions.add(new MinFunction(null, "score", "min"));
+        return functions;
+    }
+
+    private JsonNode record(String json) throws Throwable {
+        return deserializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void integral() throws Throwable {
+        RSQLAccumulator accumulator = new RSQLAccumulator(functions());
+        accumulator.addValue(record("{\"position\":\"shenzhen\",\"num\":1,\"score\":7}"));
+        accumulator.addValue(record("{\"position\":\"shenzhen\",\"num\":2,\"score\":3}"));
+        accumulator.addValue(record("{\"position\":\"hangzhou\",\"num\":4,\"score\":5}"));
+
+        ObjectNode result = accumulator.result(new Properties());
+
+        assertEquals("hangzhou", result.get("position").asText());
+        assertEquals(3, result.get("count").longValue());
+        assertTrue(result.get("sum").isLong());
+        assertEquals(7, result.get("sum").longValue());
+        assertEquals(2.33, result.get("avg").doubleValue(), 0);
+        assertEquals(7, result.get("max").longValue());
+        assertEquals(3, result.get("min").longValue());
+    }
+
+    @Test
+    public void decimal() throws Throwable {
+        RSQLAccumulator accumulator = new RSQLAccumulator(functions());
+        accumulator.addValue(record("{\"num\":0.1,\"score\":7}"));
+        accumulator.addValue(record("{\"num\":0.2,\"score\":7.5}"));
+        accumulator.addValue(record("{\"num\":\"abc\",\"score\":7.0}"));
+
+        ObjectNode result = accumulator.result(new Properties());
+
+        assertTrue(result.get("position").isNull());
+        assertEquals(0.3, result.get("sum").doubleValue(), 0);
+        assertEquals(0.1, result.get("avg").doubleValue(), 0);
+        assertEquals(7.5, result.get("max").doubleValue(), 0);
+        assertTrue(result.get("min").isLong());
+        assertEquals(7, result.get("min").longValue());
+    }
+
+    @Test
+    public void overflow() throws Throwable {
+        RSQLAccumulator accumulator = new RSQLAccumulator(functions());
+        accumulator.addValue(record("{\"num\":" + Long.MAX_VALUE + "}"));
+        accumulator.addValue(record("{\"num\":" + Long.MAX_VALUE + "}"));
+
+        ObjectNode result = accumulator.result(new Properties());
+        BigDecimal max = BigDecimal.valueOf(Long.MAX_VALUE);
+        assertEquals(max.add(max), result.get("sum").decimalValue());
+        assertEquals(max.doubleValue(), result.get("avg").doubleValue(), 0);
+    }
+
+    @Test
+    public void serializeState() throws Throwable {
+        RSQLAccumulator accumulator = new RSQLAccumulator(functions());
+        accumulator.addValue(record("{\"position\":\"shenzhen\",\"num\":1,\"score\":1.5}"));
+
+        byte[] bytes = serializer.serialize(accumulator);
+        RSQLAccumulator target = deserializer.deserialize(bytes, RSQLAccumulator.class);
+        target.addValue(record("{\"position\":\"shenzhen\",\"num\":2,\"score\":0.5}"));
+
+        ObjectNode result = target.result(new Properties());
+        assertEquals("shenzhen", result.get("position").asText());
+        assertEquals(2, result.get("count").longValue());
+        assertEquals(3, result.get("sum").longValue());
+        assertEquals(1.5, result.get("max").doubleValue(), 0);
+        assertEquals(0.5, result.get("min").doubleValue(), 0);
+    }
+
+    @Test
+    public void merge() throws Throwable {
+        String[] records = {
+                "{\"position\":\"shenzhen\",\"num\":1,\"score\":7}",
+                "{\"position\":\"shenzhen\",\"num\":2.5,\"score\":3}",
+                "{\"position\":\"hangzhou\",\"num\":4,\"score\":5.5}",
+                "{\"position\":\"beijing\",\"score\":1}"
+        };
+
+        RSQLAccumulator all = new RSQLAccumulator(functions());
+        RSQLAccumulator first = new RSQLAccumulator(functions());
+        RSQLAccumulator second = new RSQLAccumulator(functions());
+        for (int i = 0; i < records.length; i++) {
+            all.addValue(record(records[i]));
+            (i < 2 ? first : second).addValue(record(records[i]));
+        }
+
+        first.merge(second);
+
+        //合并后的状态随窗口checkpoint保存，恢复后结果不变
+        RSQLAccumulator restored = deserializer.deserialize(serializer.serialize(first), RSQLAccumulator.class);
+        assertEquals(all.result(new Properties()), restored.result(new Properties()));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.parser.model.Calculator;
+import com.alibaba.rsqldb.parser.model.Field;
+import com.alibaba.rsqldb.parser.model.Operator;
+import com.alibaba.rsqldb.parser.model.WildcardType;
+import com.alibaba.rsqldb.parser.model.baseType.BooleanType;
+import com.alibaba.rsqldb.parser.model.baseType.Literal;
+import com.alibaba.rsqldb.parser.model.baseType.MultiLiteral;
+import com.alibaba.rsqldb.parser.model.baseType.NumberType;
+import com.alibaba.rsqldb.parser.model.baseType.StringType;
+import com.alibaba.rsqldb.parser.model.expression.AndExpression;
+import com.alibaba.rsqldb.parser.model.expression.Expression;
+import com.alibaba.rsqldb.parser.model.expression.MultiValueExpression;
+import com.alibaba.rsqldb.parser.model.expression.OrExpression;
+import com.alibaba.rsqldb.parser.model.expression.RangeValueExpression;
+import com.alibaba.rsqldb.parser.model.expression.SingleValueCalcuExpression;
+import com.alibaba.rsqldb.parser.model.expression.SingleValueExpression;
+import com.alibaba.rsqldb.parser.model.expression.WildcardExpression;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestExpressionCompile {
+    private final Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.JSON);
+
+    private final String[] records = {
+            "{}",
+            "{\"v\":null}",
+            "{\"v\":\"\"}",
+            "{\"v\":\"null\"}",
+            "{\"v\":\"NULL\"}",
+            "{\"v\":\"10\"}",
+            "{\"v\":\"abc\"}",
+            "{\"v\":\"abcstreams\"}",
+            "{\"v\":10}",
+            "{\"v\":10.0}",
+            "{\"v\":9.99}",
+            "{\"v\":-0.0}",
+            "{\"v\":0}",
+            "{\"v\":12345678901234567890}",
+            "{\"v\":true}",
+            "{\"v\":false}",
+            "{\"v\":[1,2]}",
+            "{\"v\":{}}",
+            "{\"v\":\"  \"}",
+            "{\"v\":9007199254740993}",
+            "{\"v\":1E+1}"
+    };
+
+    private List<Expression> expressions() {
+        Field v = new Field("v", "v");
+        List<Literal<?>> literals = Arrays.asList(new NumberType("10", 10L), new StringType("'abc'", "abc"),
+                new BooleanType("true", true), new NumberType("0.0", 0.0d));
+
+        List<Expression> result = new ArrayList<>();
+        for (Literal<?> literal : literals) {
+            for (Operator operator : Arrays.asList(Operator.EQUAL, Operator.NOT_EQUAL, Operator.GREATER,
+                    Operator.GREATER_EQUAL, Operator.LESS, Operator.LESS_EQUAL)) {
+                result.add(new SingleValueExpression("v " + operator + " " + literal.getContent(), v, operator, literal));
+            }
+        }
+        result.add(new SingleValueExpression("v = null", v, Operator.EQUAL, null));
+        result.add(new SingleValueExpression("v > null", v, Operator.GREATER, null));
+        result.add(new RangeValueExpression("v between 0 and 10", v, 0, 10));
+        result.add(new MultiValueExpression("v in (...)", v, new MultiLiteral("(...)", literals)));
+        result.add(new MultiValueExpression("v in null", v, null));
+        result.add(new WildcardExpression("v like '%streams'", v, Operator.LIKE, WildcardType.PREFIX_LIKE, "abc", false));
+        result.add(new WildcardExpression("v like 'ABC%'", v, Operator.LIKE, WildcardType.SUFFIX_LIKE, "ABC", false));
+        result.add(new WildcardExpression("v like '%cSt%'", v, Operator.LIKE, WildcardType.DOUBLE_LIKE, "cSt", false));
+        result.add(new WildcardExpression("v like binary '%cSt%'", v, Operator.LIKE, WildcardType.DOUBLE_LIKE, "cSt", true));
+        result.add(new WildcardExpression("v like 'a%s_r%s'", v, Operator.LIKE, WildcardType.PATTERN, "a%s_r%s", false));
+        result.add(new SingleValueCalcuExpression("sum(v) > 10", new Field("sum(v)", null, "v", "v"), Operator.GREATER,
+                new NumberType("10", 10L), Calculator.SUM));
+
+        Expression first = result.get(0);
+        Expression second = result.get(result.size() - 3);
+        result.add(new AndExpression("and", first, second));
+        result.add(new OrExpression("or", first, second));
+        result.add(new OrExpression("or", new AndExpression("and", second, first), result.get(2)));
+        return result;
+    }
+
+    @Test
+    public void sameAsInterpreted() throws Throwable {
+        for (Expression expression : expressions()) {
+            Predicate<JsonNode> predicate = expression.compile();
+            for (String record : records) {
+                JsonNode node = deserializer.deserialize(record.getBytes(StandardCharsets.UTF_8));
+                assertEquals(expression.getContent() + " on " + record, test(expression::isTrue, node), test(predicate, node));
+            }
+        }
+    }
+
+    @Test
+    public void like() throws Throwable {
+        Field v = new Field("v", "v");
+        String[][] cases = {
+                //pattern, value, expected
+                {"a%b", "ab", "true"},
+                {"a%b", "aXYb", "true"},
+                {"a%b", "aXYbc", "false"},
+                {"%a_c%", "xxABCxx", "true"},
+                {"%a_c%", "xxacxx", "false"},
+                {"a%b%c", "abc", "true"},
+                {"a%b%c", "acb", "false"},
+                {"a%bc%bc", "abcbc", "true"},
+                {"a%bc%bc", "abc", "false"},
+                {"a_%_c", "abbc", "true"},
+                {"a_%_c", "abc", "false"},
+                {"%%%", "anything", "true"},
+                {"a_c", "abc", "true"},
+                {"a_c", "ac", "false"},
+                {"a_c", "abbc", "false"},
+                {"_b%", "abcd", "true"},
+                {"%b_", "xxabc", "true"},
+                {"%b_", "xxab", "false"},
+                {"ab%", "ABCD", "true"},
+                {"%cd", "abCD", "true"},
+                {"%bc%", "aBCd", "true"},
+                {"%bc%", "acbd", "false"},
+        };
+        for (String[] item : cases) {
+            WildcardExpression expression = new WildcardExpression("v like '" + item[0] + "'", v, Operator.LIKE,
+                    WildcardType.PATTERN, item[0], false);
+            JsonNode node = deserializer.deserialize(("{\"v\":\"" + item[1] + "\"}").getBytes(StandardCharsets.UTF_8));
+            assertEquals(item[0] + " on " + item[1], Boolean.parseBoolean(item[2]), expression.compile().test(node));
+            assertEquals(item[0] + " on " + item[1], Boolean.parseBoolean(item[2]), expression.isTrue(node));
+        }
+
+        WildcardExpression contains = new WildcardExpression("v like '%STREAM%'", v, Operator.LIKE, WildcardType.DOUBLE_LIKE, "STREAM", false);
+        JsonNode node = deserializer.deserialize("{\"v\":\"rocketmq-streams\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(true, contains.compile().test(node));
+        contains.setCaseSensitive(true);
+        assertEquals(false, contains.compile().test(node));
+    }
+
+    @Test
+    public void exactLong() throws Throwable {
+        Field v = new Field("v", "v");
+        //2^53 + 1不能用double精确表示，按double比较时与2^53相等
+        JsonNode node = deserializer.deserialize("{\"v\":9007199254740993}".getBytes(StandardCharsets.UTF_8));
+        NumberType target = new NumberType("9007199254740992", 9007199254740992L);
+
+        assertEquals(true, new SingleValueExpression("v > t", v, Operator.GREATER, target).compile().test(node));
+        assertEquals(true, new SingleValueExpression("v != t", v, Operator.NOT_EQUAL, target).compile().test(node));
+        assertEquals(false, new SingleValueExpression("v <= t", v, Operator.LESS_EQUAL, target).isTrue(node));
+        assertEquals(false, new SingleValueExpression("v = t", v, Operator.EQUAL, target).compile().test(node));
+        assertEquals(true, new SingleValueExpression("v >= 1.5", v, Operator.GREATER_EQUAL, new NumberType("1.5", 1.5d)).compile().test(node));
+        assertEquals(false, new RangeValueExpression("v between 0 and 9007199254740992", v, 0, 9007199254740992d).compile().test(node));
+    }
+
+    @Test
+    public void in() throws Throwable {
+        List<Literal<?>> literals = new ArrayList<>();
+        for (long i = 0; i < 5000; i++) {
+            literals.add(new NumberType(String.valueOf(i * 7), i * 7));
+        }
+        literals.add(new NumberType("-3", -3));
+        literals.add(new NumberType("12345678901234567890", new java.math.BigInteger("12345678901234567890")));
+        literals.add(new NumberType("1.50", new java.math.BigDecimal("1.50")));
+        literals.add(new StringType("'abc'", "abc"));
+        literals.add(new BooleanType("false", false));
+        MultiValueExpression expression = new MultiValueExpression("v in (...)", new Field("v", "v"), new MultiLiteral("(...)", literals));
+        Predicate<JsonNode> predicate = expression.compile();
+
+        String[][] cases = {
+                {"{\"v\":0}", "true"},
+                {"{\"v\":34993}", "true"},
+                {"{\"v\":34994}", "false"},
+                {"{\"v\":35000}", "false"},
+                {"{\"v\":-3}", "true"},
+                {"{\"v\":\"14\"}", "false"},
+                {"{\"v\":14.0}", "false"},
+                {"{\"v\":12345678901234567890}", "true"},
+                {"{\"v\":1.50}", "true"},
+                {"{\"v\":1.5}", "false"},
+                {"{\"v\":\"abc\"}", "true"},
+                {"{\"v\":\"ABC\"}", "false"},
+                {"{\"v\":false}", "true"},
+                {"{\"v\":true}", "false"},
+                {"{\"v\":null}", "false"},
+                {"{}", "false"},
+        };
+        for (String[] item : cases) {
+            JsonNode node = deserializer.deserialize(item[0].getBytes(StandardCharsets.UTF_8));
+            assertEquals(item[0], Boolean.parseBoolean(item[1]), predicate.test(node));
+        }
+    }
+
+    //与filter中的处理一致，求值异常视为不成立
+    private boolean test(Predicate<JsonNode> predicate, JsonNode node) {
+        try {
+            return predicate.test(node);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+}
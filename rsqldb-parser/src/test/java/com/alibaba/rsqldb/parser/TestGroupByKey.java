@@ -0,0 +1,70 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TestGroupByKey {
+    private final Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.JSON);
+    private final Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.JSON);
+
+    private final String[] fieldNames = {"position", "num", "score", "flag", "missing"};
+
+    private JsonNode record(String json) throws Throwable {
+        return deserializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void equality() throws Throwable {
+        GroupByKey key = GroupByKey.of(record("{\"position\":\"深圳\",\"num\":12,\"score\":1.5,\"flag\":true}"), fieldNames);
+        GroupByKey same = GroupByKey.of(record("{\"flag\":true,\"score\":1.5,\"num\":12,\"position\":\"深圳\",\"missing\":null}"), fieldNames);
+        GroupByKey other = GroupByKey.of(record("{\"position\":\"深圳\",\"num\":\"12\",\"score\":1.5,\"flag\":true}"), fieldNames);
+
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertNotEquals(key, other);
+    }
+
+    @Test
+    public void legacyString() throws Throwable {
+        GroupByKey key = GroupByKey.of(record("{\"position\":\"shen\\\"zhen\",\"num\":12,\"score\":1.50,\"flag\":false}"), fieldNames);
+
+        assertEquals("\"shen\\\"zhen\"@12@1.50@false@null", key.toString());
+        assertEquals("select count(*) from t", GroupByKey.of("select count(*) from t").toString());
+    }
+
+    @Test
+    public void serialize() throws Throwable {
+        GroupByKey key = GroupByKey.of(record("{\"position\":\"😀 hangzhou\",\"num\":-1}"), fieldNames);
+
+        byte[] bytes = serializer.serialize(key);
+        GroupByKey target = deserializer.deserialize(bytes, GroupByKey.class);
+
+        assertEquals(key, target);
+        assertEquals(key.toString(), target.toString());
+    }
+}
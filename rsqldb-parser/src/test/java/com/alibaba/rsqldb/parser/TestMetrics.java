@@ -0,0 +1,112 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.RSQLConstant;
+import com.alibaba.rsqldb.common.function.CountFunction;
+import com.alibaba.rsqldb.common.function.SQLFunction;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.metrics.OperatorMetrics;
+import com.alibaba.rsqldb.parser.model.statement.query.RSQLAccumulator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestMetrics {
+
+    @Before
+    public void enable() {
+        RSQLConstant.Metrics.ENABLE = true;
+    }
+
+    @After
+    public void disable() {
+        RSQLConstant.Metrics.ENABLE = false;
+    }
+
+    @Test
+    public void disabled() {
+        RSQLConstant.Metrics.ENABLE = false;
+        assertFalse(MetricsRegistry.of("job3", OperatorMetrics.FILTER).isEnable());
+    }
+
+    //聚合输出在accumulator中计数，clone之后仍然计数
+    @Test
+    public void accumulatorOutput() {
+        List<SQLFunction> functions = new ArrayList<>();
+        functions.add(new CountFunction(null, "*", "count"));
+        RSQLAccumulator accumulator = new RSQLAccumulator(functions)
+                .withMetrics(MetricsRegistry.of("job4", OperatorMetrics.AGGREGATE));
+
+        accumulator.result(new Properties());
+        accumulator.clone().result(new Properties());
+
+        assertEquals(2, MetricsRegistry.of("job4", OperatorMetrics.AGGREGATE).getRecords());
+        MetricsRegistry.remove("job4");
+    }
+
+    @Test
+    public void prometheus() {
+        OperatorMetrics filter = MetricsRegistry.of("job\"1", OperatorMetrics.FILTER);
+        long start = filter.start();
+        filter.record(start);
+        filter.record(start);
+        filter.error();
+        MetricsRegistry.of("job\"1", OperatorMetrics.WINDOW).mark();
+
+        String text = MetricsRegistry.toPrometheus();
+        assertTrue(text.contains("rsqldb_operator_records_total{job=\"job\\\"1\",operator=\"filter\"} 2\n"));
+        assertTrue(text.contains("rsqldb_operator_errors_total{job=\"job\\\"1\",operator=\"filter\"} 1\n"));
+        assertTrue(text.contains("rsqldb_operator_latency_seconds_count{job=\"job\\\"1\",operator=\"filter\"} 2\n"));
+        assertTrue(text.contains("rsqldb_operator_records_total{job=\"job\\\"1\",operator=\"window\"} 1\n"));
+        //只计数的算子没有耗时
+        assertFalse(text.contains("rsqldb_operator_latency_seconds_count{job=\"job\\\"1\",operator=\"window\"}"));
+
+        MetricsRegistry.remove("job\"1");
+        assertFalse(MetricsRegistry.toPrometheus().contains("job\\\"1"));
+    }
+
+    @Test
+    public void expressionErrors() {
+        ExpressionErrors errors = ExpressionErrors.of("job2", OperatorMetrics.FILTER, "age > 10");
+        for (int i = 0; i < 150; i++) {
+            errors.report(i, new IllegalArgumentException("bad " + i));
+        }
+
+        List<ExpressionErrors.Summary> summaries = ExpressionErrors.summary("job2");
+        assertEquals(1, summaries.size());
+        ExpressionErrors.Summary summary = summaries.get(0);
+        assertEquals(150, summary.getCount());
+        assertEquals(100, summary.getSamples().size());
+        //新的在前，只保留最近100条
+        assertEquals("149", summary.getSamples().get(0).getValue());
+        assertEquals("50", summary.getSamples().get(99).getValue());
+        assertEquals(150, MetricsRegistry.of("job2", OperatorMetrics.FILTER).getErrors());
+
+        ExpressionErrors.remove("job2");
+        MetricsRegistry.remove("job2");
+        assertTrue(ExpressionErrors.summary("job2").isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.exception.SyntaxErrorException;
+import com.alibaba.rsqldb.parser.model.baseType.Literal;
+import com.alibaba.rsqldb.parser.model.expression.AndExpression;
+import com.alibaba.rsqldb.parser.model.expression.SingleValueExpression;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.parser.model.statement.query.FilterQueryStatement;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class TestParseCache {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String[] sqls = {
+            "create table odeum(`id` INT,`name` VARCHAR, `gmt_modified` TIMESTAMP) WITH (topic = 'rsqldb-odeum', data_format='JSON');",
+            "select field_1, field_2 from rocketmq_source where field_1 > 23 and field_2 = 'qw' or field_3 in('qw', '1q2', 122);",
+            "SELECT `position`, avg(num) AS nums FROM source_function_0 WHERE position= 'shenzhen' GROUP BY position HAVING avg(num) > 10;",
+            "SELECT TUMBLE_START(ts, INTERVAL '1' MINUTE) AS window_start, TUMBLE_END(ts, INTERVAL '1' MINUTE) AS window_end, " +
+                    "username AS username, COUNT(click_url) AS clicks FROM window_test GROUP BY TUMBLE(ts, INTERVAL '1' MINUTE), username;"
+    };
+
+    @Test
+    public void cached() throws Throwable {
+        DefaultParser parser = new DefaultParser(16);
+        for (String sql : sqls) {
+            List<Statement> first = parser.parseStatement(sql);
+            List<Statement> second = parser.parseStatement("  " + sql + "\n");
+
+            assertEquals(first.size(), second.size());
+            for (int i = 0; i < first.size(); i++) {
+                assertNotSame(first.get(i), second.get(i));
+                assertEquals(first.get(i).getClass(), second.get(i).getClass());
+                assertEquals(objectMapper.writeValueAsString(first.get(i)), objectMapper.writeValueAsString(second.get(i)));
+            }
+
+            //与不缓存时解析结果一致
+            List<Statement> expected = new DefaultParser(0).parseStatement(sql);
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(second));
+        }
+    }
+
+    @Test(expected = SyntaxErrorException.class)
+    public void syntaxError() {
+        new DefaultParser(16).parseStatement("select from where;");
+    }
+
+    @Test
+    public void prepared() throws Throwable {
+        DefaultParser parser = new DefaultParser(16);
+        PreparedSql prepared = parser.prepare("select name from t where id = ? and name = ? and tag = '?' -- ?\n;");
+
+        assertEquals(2, prepared.getParameterCount());
+        assertEquals("select name from t where id = 12 and name = 'it''s' and tag = '?' -- ?\n;", prepared.bind(12, "it's"));
+        assertEquals(1, prepared.parse(12, "it's").size());
+    }
+
+    //绑定的值解析后和传入的值相同
+    @Test
+    public void preparedLiteral() throws Throwable {
+        PreparedSql prepared = new DefaultParser(16).prepare("select name from t where name = ? and score > ?;");
+        assertEquals("select name from t where name = 'it''s' and score > 10000000000.0;", prepared.bind("it's", 1.0E10));
+
+        FilterQueryStatement statement = (FilterQueryStatement) prepared.parse("it's", 1.0E10).get(0);
+        AndExpression filter = (AndExpression) statement.getFilter();
+        Literal<?> name = ((SingleValueExpression) filter.getLeftExpression()).getValue();
+        Literal<?> score = ((SingleValueExpression) filter.getRightExpression()).getValue();
+
+        assertEquals("it's", name.result());
+        assertEquals(1.0E10, score.result());
+    }
+
+    @Test(expected = SyntaxErrorException.class)
+    public void preparedMissingParameter() {
+        new DefaultParser(16).prepare("select name from t where id = ?;").bind();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.parser.model.expression.Expression;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.parser.model.statement.query.QueryStatement;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.alibaba.rsqldb.parser.serialization.SourceFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestProjection {
+    private final Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.JSON);
+
+    @Test
+    public void deserialize() throws Throwable {
+        Set<String> fieldNames = new HashSet<>(Arrays.asList("id", "name", "score", "empty"));
+
+        String[] sources = {
+                "{\"id\":1,\"name\":\"rsqldb\",\"score\":87.50,\"empty\":null,\"tags\":[1,{\"a\":[]}],\"ext\":{\"id\":2}}",
+                "{\"ext\":{\"name\":\"nested\"},\"id\":12345678901234567890,\"name\":\"\\u6df1\\u5733\"}",
+                "{\"name\":{\"first\":\"a\"},\"id\":1,\"id\":2}",
+                "{}",
+                "[{\"id\":1,\"other\":2}]",
+                "\"text\""
+        };
+
+        for (String source : sources) {
+            byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+
+            JsonNode expected = deserializer.deserialize(bytes);
+            if (expected instanceof ObjectNode) {
+                ((ObjectNode) expected).retain(fieldNames);
+            }
+
+            assertEquals(source, expected, deserializer.deserialize(bytes, fieldNames));
+        }
+    }
+
+    @Test
+    public void referencedFields() throws Throwable {
+        assertEquals(new HashSet<>(Arrays.asList("field_1", "field_2", "field_5")),
+                referencedFields("select field_1, field_2 from source where field_5 > 10;"));
+
+        assertEquals(new HashSet<>(Arrays.asList("position", "num")),
+                referencedFields("select position, avg(num) as nums from source group by position having nums > 10;"));
+
+        assertNull(referencedFields("select * from source where field_5 > 10;"));
+    }
+
+    @Test
+    public void pushdownFilter() throws Throwable {
+        Set<String> fieldNames = new HashSet<>(Arrays.asList("id", "name", "score"));
+
+        String[] sources = {
+                "{\"id\":1,\"name\":\"rsqldb\",\"score\":87.5,\"ext\":{\"id\":2}}",
+                "{\"id\":12,\"name\":\"rsqldb\",\"score\":60}",
+                "{\"score\":90,\"name\":\"streams\",\"id\":20}",
+                "{\"name\":\"streams\"}",
+                "{\"id\":\"abc\",\"score\":null}",
+                "[{\"id\":1}]"
+        };
+        String[] sqls = {
+                "select id from source where id > 10;",
+                "select id from source where id > 10 and score between 50 and 80;",
+                "select id from source where name in ('rsqldb', 'flink') and id >= 1;",
+                "select id from source where id > 10 or name = 'streams';",
+                "select id from source where other = 1;"
+        };
+
+        for (String sql : sqls) {
+            QueryStatement statement = (QueryStatement) new DefaultParser().parseStatement(sql).get(0);
+            Expression where = statement.pushdownFilter();
+            assertNotNull(sql, where);
+
+            SourceFilter filter = SourceFilter.of(where, Collections.emptySet());
+            for (String source : sources) {
+                byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+
+                JsonNode full = deserializer.deserialize(bytes, fieldNames);
+                JsonNode pushed = deserializer.deserialize(bytes, fieldNames, filter);
+
+                if (pushed == null) {
+                    assertEquals(sql + " on " + source, false, isTrue(where, full));
+                } else {
+                    assertEquals(sql + " on " + source, full, pushed);
+                }
+            }
+        }
+
+        assertNull(SourceFilter.of(((QueryStatement) new DefaultParser().parseStatement(sqls[3]).get(0)).pushdownFilter(),
+                Collections.emptySet()));
+    }
+
+    private boolean isTrue(Expression expression, JsonNode node) {
+        try {
+            return expression.isTrue(node);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private Set<String> referencedFields(String sql) throws Throwable {
+        List<Statement> statements = new DefaultParser().parseStatement(sql);
+        return ((QueryStatement) statements.get(0)).referencedFields();
+    }
+}
@@ -27,7 +27,10 @@ import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.expression.SingleValueCalcuExpression;
 import com.alibaba.rsqldb.parser.model.statement.InsertQueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.parser.model.statement.query.WindowInfoInSQL;
+import com.alibaba.rsqldb.parser.model.statement.query.WindowQueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.query.join.JointGroupByHavingStatement;
+import com.alibaba.rsqldb.parser.model.statement.query.join.JointStatement;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinCondition;
 import com.alibaba.rsqldb.parser.model.statement.query.phrase.JoinType;
 import com.alibaba.rsqldb.parser.serialization.Deserializer;
@@ -40,10 +43,12 @@ import org.junit.Test;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TestQuery {
     //----------------------------------where-------------------------------------
@@ -382,6 +387,49 @@ public class TestQuery {
         }
     }
 
+    @Test
+    public void query32() throws Throwable {
+        String sql = "SELECT t.id AS ticket_id, p.name AS perform_name FROM ticket AS t\n" +
+                " LEFT JOIN perform AS p ON t.perform_id = p.id WITHIN HOP(INTERVAL '10' SECOND, INTERVAL '1' MINUTE)\n" +
+                " ALLOW LATENESS INTERVAL '500' MILLISECOND;";
+
+        DefaultParser parser = new DefaultParser();
+        List<Statement> statements = parser.parseStatement(sql);
+
+        JointStatement jointStatement = serde(statements.get(0), JointStatement.class);
+
+        WindowInfoInSQL joinWindow = jointStatement.getJoinWindow();
+        assertEquals(WindowInfoInSQL.WindowType.HOP, joinWindow.getType());
+        assertEquals(10 * 1000, joinWindow.getSlide());
+        assertEquals(60 * 1000, joinWindow.getSize());
+        assertEquals(TimeUnit.MILLISECONDS, joinWindow.getTimeUnit());
+        assertEquals(Integer.valueOf(500), jointStatement.getAllowLateness());
+    }
+
+    @Test
+    public void query33() throws Throwable {
+        String sql = "SELECT TUMBLE_START(ts, INTERVAL '1' MINUTE) AS window_start, username, COUNT(click_url) AS clicks\n" +
+                "FROM user_clicks\n" +
+                "GROUP BY TUMBLE(ts, INTERVAL '1' MINUTE), username\n" +
+                "ALLOW LATENESS INTERVAL '1' MINUTE;";
+
+        DefaultParser parser = new DefaultParser();
+        WindowQueryStatement statement = (WindowQueryStatement) parser.parseStatement(sql).get(0);
+        assertEquals(Integer.valueOf(60 * 1000), statement.getAllowLateness());
+
+        try {
+            parser.parseStatement("SELECT field_1 FROM source WHERE field_1 = 1 ALLOW LATENESS INTERVAL '1' SECOND;");
+            fail();
+        } catch (SyntaxErrorException ignored) {
+        }
+
+        try {
+            parser.parseStatement("SELECT t.id AS id FROM ticket AS t JOIN perform AS p ON t.perform_id = p.id WITHIN HOP(INTERVAL '1' MINUTE);");
+            fail();
+        } catch (SyntaxErrorException ignored) {
+        }
+    }
+
     private <T> T serde(Statement statement, Class<T> clazz) throws Throwable {
         Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.JSON);
         byte[] bytes = serializer.serialize(statement);
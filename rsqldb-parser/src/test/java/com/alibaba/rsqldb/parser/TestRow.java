@@ -0,0 +1,106 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.common.row.FieldAccessor;
+import com.alibaba.rsqldb.common.row.Row;
+import com.alibaba.rsqldb.common.row.RowSchema;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRow {
+    private static final String SOURCE = "{\"name\":\"rsqldb\",\"id\":1,\"score\":87.50,\"ext\":{\"a\":1},\"empty\":null}";
+
+    private final Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.JSON);
+    private final Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.JSON);
+    private final RowSchema schema = new RowSchema(Arrays.asList("id", "name", "score", "empty", "missing"));
+
+    @Test
+    public void sameAsObjectNode() throws Throwable {
+        byte[] bytes = SOURCE.getBytes(StandardCharsets.UTF_8);
+
+        JsonNode expected = deserializer.deserialize(bytes, schema.getFieldNames(), null);
+        JsonNode row = deserializer.deserialize(bytes, schema, null);
+
+        assertTrue(row instanceof Row);
+        assertEquals(expected, row);
+        assertEquals(row, expected);
+        assertEquals(expected.hashCode(), row.hashCode());
+        assertEquals(4, row.size());
+        assertNull(row.get("missing"));
+        assertTrue(row.get("empty").isNull());
+        assertEquals(row, deserializer.deserialize(serializer.serialize(row)));
+        assertEquals(expected, row.deepCopy());
+    }
+
+    @Test
+    public void mutate() throws Throwable {
+        Row row = (Row) deserializer.deserialize(SOURCE.getBytes(StandardCharsets.UTF_8), schema, null);
+
+        //schema之外的字段
+        row.put("alias", "value");
+        row.put("missing", 2);
+        assertEquals(6, row.size());
+        assertEquals("value", row.get("alias").asText());
+
+        Iterator<Map.Entry<String, JsonNode>> iterator = row.fields();
+        while (iterator.hasNext()) {
+            Map.Entry<String, JsonNode> next = iterator.next();
+            if (next.getKey().equals("id") || next.getKey().equals("alias")) {
+                iterator.remove();
+            }
+        }
+        assertFalse(row.has("id"));
+        assertFalse(row.has("alias"));
+        assertEquals(4, row.size());
+
+        row.retain("name");
+        assertEquals(1, row.size());
+        assertEquals("{\"name\":\"rsqldb\"}", new String(serializer.serialize(row), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void accessor() throws Throwable {
+        byte[] bytes = SOURCE.getBytes(StandardCharsets.UTF_8);
+        JsonNode row = deserializer.deserialize(bytes, schema, null);
+        ObjectNode node = (ObjectNode) deserializer.deserialize(bytes);
+        node.remove("ext");
+
+        FieldAccessor[] accessors = {new FieldAccessor("name"), new FieldAccessor("score"), new FieldAccessor("ext")};
+        for (FieldAccessor accessor : accessors) {
+            assertEquals(node.get(accessor.getFieldName()), accessor.get(row));
+            assertEquals(node.get(accessor.getFieldName()), accessor.get(node));
+        }
+
+        assertEquals(GroupByKey.of(node, accessors), GroupByKey.of(row, accessors));
+    }
+}
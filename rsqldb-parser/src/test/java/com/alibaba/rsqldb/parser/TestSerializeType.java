@@ -0,0 +1,89 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.parser;
+
+import com.alibaba.rsqldb.common.SerializeType;
+import com.alibaba.rsqldb.parser.model.Columns;
+import com.alibaba.rsqldb.parser.model.FieldType;
+import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
+import com.alibaba.rsqldb.parser.serialization.Serializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSerializeType {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Columns columns() {
+        Columns columns = new Columns("");
+        columns.addFieldNameAndType("id", FieldType.INT);
+        columns.addFieldNameAndType("name", FieldType.VARCHAR);
+        columns.addFieldNameAndType("gmt_modified", FieldType.TIMESTAMP);
+        columns.addFieldNameAndType("ts", FieldType.PROCTIME);
+        return columns;
+    }
+
+    @Test
+    public void csv() throws Throwable {
+        Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.CSV, columns());
+        Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.CSV, columns());
+
+        JsonNode node = deserializer.deserialize("1,\"a,b\",1672502400000".getBytes(StandardCharsets.UTF_8));
+        assertEquals(objectMapper.readTree("{\"id\":1,\"name\":\"a,b\",\"gmt_modified\":1672502400000}"), node);
+
+        byte[] bytes = serializer.serialize(node);
+        assertEquals("1,\"a,b\",1672502400000", new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(node, deserializer.deserialize(bytes));
+
+        //空值为null，缺少的列不出现
+        node = deserializer.deserialize("2,".getBytes(StandardCharsets.UTF_8));
+        assertTrue(node.get("name").isNull());
+        assertFalse(node.has("gmt_modified"));
+
+        node = deserializer.deserialize("3,c,4".getBytes(StandardCharsets.UTF_8), new HashSet<>(Arrays.asList("id")));
+        assertEquals(objectMapper.readTree("{\"id\":3}"), node);
+    }
+
+    @Test
+    public void avro() throws Throwable {
+        Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.AVRO, columns());
+        Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.AVRO, columns());
+
+        ObjectNode node = (ObjectNode) objectMapper.readTree("{\"id\":1,\"name\":\"深圳\",\"gmt_modified\":1672502400000}");
+        assertEquals(node, deserializer.deserialize(serializer.serialize(node)));
+
+        //缺失字段为null，数值文本按列类型转换
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", "2");
+        values.put("name", 3);
+        JsonNode result = deserializer.deserialize(serializer.serialize(values));
+        assertEquals(2, result.get("id").intValue());
+        assertEquals("3", result.get("name").textValue());
+        assertTrue(result.get("gmt_modified").isNull());
+    }
+}
@@ -33,6 +33,7 @@
  import com.alibaba.rsqldb.parser.model.expression.SingleValueExpression;
  import com.alibaba.rsqldb.parser.model.expression.WildcardExpression;
  import com.alibaba.rsqldb.parser.model.statement.query.FilterQueryStatement;
+ import com.fasterxml.jackson.databind.ObjectMapper;
  import org.junit.Test;
 
  import java.util.List;
@@ -471,13 +472,51 @@
 
          WildcardExpression wildcardExpression = (WildcardExpression) filter;
 
-         assertEquals("topic-", wildcardExpression.getTarget());
-         assertEquals(WildcardType.PREFIX_LIKE, wildcardExpression.getType());
+         assertEquals("%topic-", wildcardExpression.getTarget());
+         assertEquals(WildcardType.PATTERN, wildcardExpression.getType());
          assertFalse(wildcardExpression.isCaseSensitive());
          assertEquals(Operator.LIKE, wildcardExpression.getOperator());
          assertEquals("field_1",wildcardExpression.getField().getFieldName());
      }
 
+     @Test
+     public void query23() throws Throwable {
+         String sql = "select field_1 from rocketmq_source where binary field_1 like 'topic-%_a%';";
+         FilterQueryStatement filterQueryStatement = super.parser(sql, FilterQueryStatement.class);
+
+         WildcardExpression wildcardExpression = (WildcardExpression) filterQueryStatement.getFilter();
+
+         assertEquals("topic-%_a%", wildcardExpression.getTarget());
+         assertEquals(WildcardType.PATTERN, wildcardExpression.getType());
+         assertTrue(wildcardExpression.isCaseSensitive());
+     }
+
+     @Test
+     public void query24() throws Throwable {
+         String sql = "select field_1 from rocketmq_source where field_1 like 'a_c';";
+         FilterQueryStatement filterQueryStatement = super.parser(sql, FilterQueryStatement.class);
+
+         WildcardExpression wildcardExpression = (WildcardExpression) filterQueryStatement.getFilter();
+
+         assertEquals("a_c", wildcardExpression.getTarget());
+         assertEquals(WildcardType.PATTERN, wildcardExpression.getType());
+         assertTrue(wildcardExpression.isTrue(new ObjectMapper().readTree("{\"field_1\":\"abc\"}")));
+         assertFalse(wildcardExpression.isTrue(new ObjectMapper().readTree("{\"field_1\":\"ac\"}")));
+     }
+
+     @Test
+     public void query25() throws Throwable {
+         String sql = "select field_1 from rocketmq_source where field_1 like '_opic-%a';";
+         FilterQueryStatement filterQueryStatement = super.parser(sql, FilterQueryStatement.class);
+
+         WildcardExpression wildcardExpression = (WildcardExpression) filterQueryStatement.getFilter();
+
+         assertEquals("_opic-%a", wildcardExpression.getTarget());
+         assertEquals(WildcardType.PATTERN, wildcardExpression.getType());
+         assertTrue(wildcardExpression.isTrue(new ObjectMapper().readTree("{\"field_1\":\"topic-1a\"}")));
+         assertFalse(wildcardExpression.isTrue(new ObjectMapper().readTree("{\"field_1\":\"opic-1a\"}")));
+     }
+
      @Test
      public void query22() throws Throwable {
          String sql = "select field_1\n" +
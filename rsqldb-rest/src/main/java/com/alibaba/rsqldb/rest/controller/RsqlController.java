@@ -15,6 +15,7 @@
  */
 package com.alibaba.rsqldb.rest.controller;
 
+import com.alibaba.rsqldb.common.exception.RSQLClientException;
 import com.alibaba.rsqldb.common.exception.RSQLServerException;
 import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.rest.response.BaseResult;
@@ -28,21 +29,30 @@ import com.alibaba.rsqldb.storage.api.Command;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 
 @RestController
 @RequestMapping("/rsqldb")
 public class RsqlController {
     private static final Logger logger = LoggerFactory.getLogger(RsqlController.class);
+    private static final long TIMEOUT_MS = 10 * 1000;
+    private static final long RESULT_TIMEOUT_MS = 30 * 60 * 1000;
 
     private RsqlService rsqlService;
 
@@ -103,100 +113,135 @@ public class RsqlController {
         }
     }
 
+    //命令执行进度，重启后可据此判断任务是否恢复完成
+    @PostMapping("/progress")
+    public BaseResult progress() {
+        try {
+            return new SuccessResult<>(this.rsqlService.progress(), RequestStatus.SUCCESS);
+        } catch (Throwable t) {
+            logger.error("query progress error, error message:{}", t.getMessage(), t);
+            return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
+        }
+    }
+
     @PostMapping("/queryById")
-    public BaseResult queryTaskByJobId(@RequestParam(value = "jobId") String jobId) {
+    public DeferredResult<BaseResult> queryTaskByJobId(@RequestParam(value = "jobId") String jobId) {
         if (StringUtils.isBlank(jobId)) {
-            return buildReturn();
+            return completed(buildReturn());
         }
 
-        try {
-            Command command = this.rsqlService.queryTaskByJobId(jobId);
-            Node node = command.getNode();
-
-            QueryResult result;
-            if (node != null) {
-                result = new QueryResult(command.getJobId(), node.getContent(), command.getStatus());
-            } else {
-                result = new QueryResult(command.getJobId(), null, command.getStatus());
+        return async("queryById", jobId, () -> this.rsqlService.queryTaskByJobId(jobId).thenApply(command -> {
+            if (command == null) {
+                throw new RSQLClientException(String.format("the command is empty corresponding to jobId: %s", jobId));
             }
 
-            return new SuccessResult<>(result, RequestStatus.SUCCESS);
-        } catch (Throwable t) {
-            logger.error("remove error, jobId=[{}], error message:{}", jobId, t.getMessage(), t);
-
-            if (t instanceof RSQLServerException) {
-                return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
-            } else {
-                return new FailedResult(t.getMessage(), RequestStatus.CLIENT_EXCEPTION);
-            }
-        }
+            Node node = command.getNode();
+            return new QueryResult(command.getJobId(), node == null ? null : node.getContent(), command.getStatus());
+        }));
     }
 
     //停止任务
     @PostMapping("/terminate")
-    public BaseResult terminate(@RequestParam(value = "jobId") String jobId) {
+    public DeferredResult<BaseResult> terminate(@RequestParam(value = "jobId") String jobId) {
         if (StringUtils.isBlank(jobId)) {
-            return buildReturn();
+            return completed(buildReturn());
         }
 
-        try {
-            this.rsqlService.terminate(jobId);
-
-            return new SuccessResult<>(jobId, RequestStatus.SUCCESS);
-        } catch (Throwable t) {
-            logger.error("remove error, jobId=[{}], error message:{}", jobId, t.getMessage(), t);
+        return async("terminate", jobId, () -> this.rsqlService.terminate(jobId).thenApply(ignored -> jobId));
+    }
 
-            if (t instanceof RSQLServerException) {
-                return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
-            } else {
-                return new FailedResult(t.getMessage(), RequestStatus.CLIENT_EXCEPTION);
-            }
+    @PostMapping("/restart")
+    public DeferredResult<BaseResult> restart(@RequestParam(value = "jobId") String jobId) {
+        if (StringUtils.isBlank(jobId)) {
+            return completed(buildReturn());
         }
+
+        return async("restart", jobId, () -> this.rsqlService.restart(jobId).thenApply(ignored -> jobId));
     }
 
-    @PostMapping("/restart")
-    public BaseResult restart(@RequestParam(value = "jobId") String jobId) {
+
+    @PostMapping("/remove")
+    public DeferredResult<BaseResult> remove(@RequestParam(value = "jobId") String jobId) {
         if (StringUtils.isBlank(jobId)) {
-            return buildReturn();
+            return completed(buildReturn());
         }
 
-        try {
-            this.rsqlService.restart(jobId);
+        return async("remove", jobId, () -> this.rsqlService.remove(jobId).thenApply(ignored -> jobId));
+    }
 
-            return new SuccessResult<>(jobId, RequestStatus.SUCCESS);
+    //以SSE推送没有sink的select语句的结果，每条结果一个事件
+    @GetMapping(value = "/results", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter results(@RequestParam(value = "jobId") String jobId,
+                              @RequestParam(value = "timeoutMs", required = false) Long timeoutMs) {
+        try {
+            return this.rsqlService.subscribe(jobId, timeoutMs == null ? RESULT_TIMEOUT_MS : timeoutMs);
         } catch (Throwable t) {
-            logger.error("remove error, jobId=[{}], error message:{}", jobId, t.getMessage(), t);
-
-            if (t instanceof RSQLServerException) {
-                return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
-            } else {
-                return new FailedResult(t.getMessage(), RequestStatus.CLIENT_EXCEPTION);
+            logger.error("subscribe query result error, jobId=[{}], error message:{}", jobId, t.getMessage());
+
+            SseEmitter emitter = new SseEmitter();
+            try {
+                emitter.send(SseEmitter.event().name("error").data(t.getMessage()));
+                emitter.complete();
+            } catch (Throwable e) {
+                emitter.completeWithError(e);
             }
+            return emitter;
         }
     }
 
+    //Prometheus拉取各任务算子的指标
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String metrics() {
+        return this.rsqlService.metrics();
+    }
 
-    @PostMapping("/remove")
-    public BaseResult remove(@RequestParam(value = "jobId") String jobId) {
-        if (StringUtils.isBlank(jobId)) {
-            return buildReturn();
+    //表达式计算出错的条数及最近出错的数据
+    @PostMapping("/errors")
+    public BaseResult errors(@RequestParam(value = "jobId", required = false) String jobId) {
+        try {
+            return new SuccessResult<>(this.rsqlService.errors(jobId), RequestStatus.SUCCESS);
+        } catch (Throwable t) {
+            logger.error("query errors error, jobId=[{}], error message:{}", jobId, t.getMessage(), t);
+            return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
         }
+    }
 
-        try {
-            this.rsqlService.remove(jobId);
+    //命令执行完成后由回调写入结果，不占用请求线程；超时后返回失败
+    private DeferredResult<BaseResult> async(String action, String jobId, Supplier<CompletableFuture<?>> task) {
+        DeferredResult<BaseResult> result = new DeferredResult<>(TIMEOUT_MS,
+                new FailedResult("wait for command executed timeout, jobId=" + jobId, RequestStatus.RSQLDB_SERVER_EXCEPTION));
 
-            return new SuccessResult<>(jobId, RequestStatus.SUCCESS);
+        try {
+            task.get().whenComplete((value, t) -> {
+                if (t == null) {
+                    result.setResult(new SuccessResult<>(value, RequestStatus.SUCCESS));
+                } else {
+                    result.setResult(failed(action, jobId, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t));
+                }
+            });
         } catch (Throwable t) {
-            logger.error("remove error, jobId=[{}], error message:{}", jobId, t.getMessage(), t);
+            result.setResult(failed(action, jobId, t));
+        }
 
-            if (t instanceof RSQLServerException) {
-                return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
-            } else {
-                return new FailedResult(t.getMessage(), RequestStatus.CLIENT_EXCEPTION);
-            }
+        return result;
+    }
+
+    private BaseResult failed(String action, String jobId, Throwable t) {
+        logger.error("{} error, jobId=[{}], error message:{}", action, jobId, t.getMessage(), t);
+
+        if (t instanceof RSQLServerException) {
+            return new FailedResult(t.getMessage(), RequestStatus.RSQLDB_SERVER_EXCEPTION);
+        } else {
+            return new FailedResult(t.getMessage(), RequestStatus.CLIENT_EXCEPTION);
         }
     }
 
+    private DeferredResult<BaseResult> completed(BaseResult value) {
+        DeferredResult<BaseResult> result = new DeferredResult<>();
+        result.setResult(value);
+        return result;
+    }
+
     private BaseResult buildReturn() {
         return new FailedResult("jobId is indispensable.", RequestStatus.CLIENT_EXCEPTION);
     }
@@ -17,6 +17,7 @@ package com.alibaba.rsqldb.rest.service;
 
 import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.storage.api.Command;
+import org.apache.rocketmq.streams.core.util.Pair;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -26,13 +27,19 @@ public interface Engin {
 
     CompletableFuture<Throwable> putCommand(String jobId, Node node, boolean startJob) throws Throwable;
 
+    //按顺序批量提交，返回的future在所有命令执行完成后完成
+    CompletableFuture<Throwable> putCommands(List<Pair<String/*jobId*/, Node>> jobs, boolean startJob) throws Throwable;
+
+    EnginProgress progress();
+
     List<Command> queryAll();
 
-    Command queryByJobId(String jobId);
+    //以下方法都不阻塞调用线程，命令执行完成后future完成，失败时异常完成
+    CompletableFuture<Command> queryByJobId(String jobId);
 
-    void terminate(String jobId) throws Throwable;
+    CompletableFuture<Void> terminate(String jobId);
 
-    void restart(String jobId) throws Throwable;
+    CompletableFuture<Void> restart(String jobId);
 
-    void remove(String jobId) throws Throwable;
+    CompletableFuture<Void> remove(String jobId);
 }
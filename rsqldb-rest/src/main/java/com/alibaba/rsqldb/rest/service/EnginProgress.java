@@ -0,0 +1,83 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.alibaba.rsqldb.rest.service;
+
+/**
+ * 命令执行进度，重启恢复大量任务时用于观察启动进展
+ */
+public class EnginProgress {
+    //0表示engin尚未启动，仍在恢复命令
+    private final long startTime;
+    private final int concurrency;
+    private final long submitted;
+    private final long completed;
+    private final long failed;
+    private final boolean restoreFailed;
+
+    public EnginProgress(long startTime, int concurrency, long submitted, long completed, long failed, boolean restoreFailed) {
+        this.startTime = startTime;
+        this.concurrency = concurrency;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.restoreFailed = restoreFailed;
+    }
+
+    public boolean isStarted() {
+        return startTime > 0;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    //已拉取、尚未执行完的命令数
+    public long getExecuting() {
+        return submitted - completed - failed;
+    }
+
+    public boolean isRestoreFailed() {
+        return restoreFailed;
+    }
+
+    @Override
+    public String toString() {
+        return "EnginProgress{" +
+                "startTime=" + startTime +
+                ", concurrency=" + concurrency +
+                ", submitted=" + submitted +
+                ", completed=" + completed +
+                ", failed=" + failed +
+                ", restoreFailed=" + restoreFailed +
+                '}';
+    }
+}
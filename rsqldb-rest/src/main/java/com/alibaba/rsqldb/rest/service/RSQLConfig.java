@@ -23,6 +23,13 @@ public class RSQLConfig {
 
     private String storage = "rocketmq";
 
+    //并行执行命令的线程数，同一jobId的命令总是串行
+    private int commandConcurrency = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    //没有sink的select语句缓存的结果条数，及缓冲满时的处理策略：drop_oldest、drop_newest、block
+    private int resultBufferSize = 1000;
+    private String resultBufferPolicy = "drop_oldest";
+
     RSQLConfig() {
     }
 
@@ -45,4 +52,30 @@ public class RSQLConfig {
             this.storage = storage.toLowerCase();
         }
     }
+
+    public int getCommandConcurrency() {
+        return commandConcurrency;
+    }
+
+    public void setCommandConcurrency(int commandConcurrency) {
+        this.commandConcurrency = commandConcurrency;
+    }
+
+    public int getResultBufferSize() {
+        return resultBufferSize;
+    }
+
+    public void setResultBufferSize(int resultBufferSize) {
+        this.resultBufferSize = resultBufferSize;
+    }
+
+    public String getResultBufferPolicy() {
+        return resultBufferPolicy;
+    }
+
+    public void setResultBufferPolicy(String resultBufferPolicy) {
+        if (!StringUtils.isBlank(resultBufferPolicy)) {
+            this.resultBufferPolicy = resultBufferPolicy.toLowerCase();
+        }
+    }
 }
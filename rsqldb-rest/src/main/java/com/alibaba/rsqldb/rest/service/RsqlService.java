@@ -17,21 +17,36 @@ package com.alibaba.rsqldb.rest.service;
 
 
 
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
 import com.alibaba.rsqldb.storage.api.Command;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface RsqlService {
     List<String> executeSql(String sql, String jobId, boolean startJob) throws Throwable;
 
     List<Command> queryTask();
 
-    Command queryTaskByJobId(String jobId);
+    EnginProgress progress();
+
+    CompletableFuture<Command> queryTaskByJobId(String jobId);
+
+    CompletableFuture<Void> terminate(String jobId);
+
+    CompletableFuture<Void> restart(String jobId);
+
+    CompletableFuture<Void> remove(String jobId);
 
-    void terminate(String jobId) throws Throwable;
+    //订阅没有sink的select语句的结果
+    SseEmitter subscribe(String jobId, long timeoutMs);
 
-    void restart(String jobId) throws Throwable;
+    //各任务算子的运行指标，Prometheus文本格式
+    String metrics();
 
-    void remove(String jobId) throws Throwable;
+    //表达式计算出错的数据，jobId为空时返回所有任务
+    List<ExpressionErrors.Summary> errors(String jobId);
 
 }
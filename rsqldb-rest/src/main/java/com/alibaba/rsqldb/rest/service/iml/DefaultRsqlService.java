@@ -16,19 +16,26 @@
 package com.alibaba.rsqldb.rest.service.iml;
 
 import com.alibaba.rsqldb.parser.DefaultParser;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.rest.service.EnginProgress;
 import com.alibaba.rsqldb.rest.service.RSQLConfig;
 import com.alibaba.rsqldb.rest.service.RSQLConfigBuilder;
 import com.alibaba.rsqldb.rest.service.RsqlService;
 import com.alibaba.rsqldb.storage.api.Command;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class DefaultRsqlService implements RsqlService {
@@ -40,10 +47,13 @@ public class DefaultRsqlService implements RsqlService {
 
     private DefaultParser defaultParser;
 
+    private QueryResults queryResults;
 
-    public DefaultRsqlService(RSQLConfigBuilder builder, RSQLEngin rsqlEngin) {
+
+    public DefaultRsqlService(RSQLConfigBuilder builder, RSQLEngin rsqlEngin, QueryResults queryResults) {
         this.rsqlConfig = builder.build();
         this.rsqlEngin = rsqlEngin;
+        this.queryResults = queryResults;
         this.defaultParser = new DefaultParser();
     }
 
@@ -65,16 +75,24 @@ public class DefaultRsqlService implements RsqlService {
         List<Statement> temp = defaultParser.parseStatement(sql);
 
         ArrayList<String> result = new ArrayList<>();
+        List<Pair<String, Node>> jobs = new ArrayList<>();
 
         for (int i = 0; i < temp.size(); i++) {
             Statement statement = temp.get(i);
             String tempJobId = makeJobId(jobId, statement, i, temp.size());
 
-            this.rsqlEngin.putCommand(tempJobId, statement, startJob);
-
+            jobs.add(new Pair<>(tempJobId, statement));
             result.add(tempJobId);
         }
 
+        //整个脚本一次提交，不再逐条等待发送
+        CompletableFuture<Throwable> future = this.rsqlEngin.putCommands(jobs, startJob);
+        future.thenAccept(error -> {
+            if (error != null) {
+                logger.error("execute sql error, jobIds={}", result, error);
+            }
+        });
+
         //todo 需要等待这个流处理任务在本地节点执行成功，才能为CLI交互式查询做准备
         return result;
     }
@@ -107,24 +125,44 @@ public class DefaultRsqlService implements RsqlService {
     }
 
     @Override
-    public Command queryTaskByJobId(String jobId) {
+    public EnginProgress progress() {
+        return this.rsqlEngin.progress();
+    }
+
+    @Override
+    public CompletableFuture<Command> queryTaskByJobId(String jobId) {
         return this.rsqlEngin.queryByJobId(jobId);
     }
 
     @Override
-    public void terminate(String jobId) throws Throwable {
+    public CompletableFuture<Void> terminate(String jobId) {
         //终止本地任务
-        this.rsqlEngin.terminate(jobId);
+        return this.rsqlEngin.terminate(jobId);
+    }
+
+    @Override
+    public CompletableFuture<Void> restart(String jobId) {
+        return this.rsqlEngin.restart(jobId);
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String jobId) {
+        return this.rsqlEngin.remove(jobId);
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId, long timeoutMs) {
+        return this.queryResults.subscribe(jobId, timeoutMs);
     }
 
     @Override
-    public void restart(String jobId) throws Throwable {
-        this.rsqlEngin.restart(jobId);
+    public String metrics() {
+        return MetricsRegistry.toPrometheus() + queryResults.toPrometheus();
     }
 
     @Override
-    public void remove(String jobId) throws Throwable {
-        this.rsqlEngin.remove(jobId);
+    public List<ExpressionErrors.Summary> errors(String jobId) {
+        return ExpressionErrors.summary(StringUtils.isBlank(jobId) ? null : jobId);
     }
 
 
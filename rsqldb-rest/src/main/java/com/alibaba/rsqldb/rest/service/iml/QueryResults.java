@@ -0,0 +1,167 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.rest.service.iml;
+
+import com.alibaba.rsqldb.common.exception.RSQLClientException;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.rest.service.RSQLConfig;
+import com.alibaba.rsqldb.rest.service.RSQLConfigBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.rocketmq.common.ThreadFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 没有sink的select语句的结果通道：流任务把结果写入有界的ResultBuffer，这里定时取出，通过SSE推送给订阅的客户端。
+ * <p>
+ * 每个订阅者在发送线程池上异步发送，分发线程不阻塞。订阅者积压过多时暂停取出（BLOCK策略下反压到流任务），
+ * 单个批次发送超过SEND_TIMEOUT_MS的订阅者被移除，反压随之解除。
+ * 发送线程池的线程数和排队数都有上限，排不进队的订阅者直接被移除。
+ */
+@Service
+public class QueryResults {
+    private static final Logger logger = LoggerFactory.getLogger(QueryResults.class);
+
+    private static final int MAX_BATCH = 500;
+    private static final int MAX_PENDING_BATCH = 16;
+    private static final long SEND_TIMEOUT_MS = 5000;
+    private static final int SENDER_THREADS = 8;
+    private static final int MAX_WAITING_SUBSCRIBERS = 1024;
+
+    private final int capacity;
+    private final ResultBuffer.Policy policy;
+    private final ConcurrentHashMap<String/*jobId*/, ResultBuffer> buffers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryImpl("RSQL_ResultDispatcher_"));
+    //每个订阅者同时最多占用一个线程或一个排队位置
+    private final ThreadPoolExecutor sender = new ThreadPoolExecutor(
+            SENDER_THREADS,
+            SENDER_THREADS,
+            1000 * 60,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_WAITING_SUBSCRIBERS),
+            new ThreadFactoryImpl("RSQL_ResultSender_"));
+    private final AtomicLong evicted = new AtomicLong();
+
+    public QueryResults(RSQLConfigBuilder builder) {
+        RSQLConfig rsqlConfig = builder.build();
+        this.capacity = Math.max(1, rsqlConfig.getResultBufferSize());
+        this.policy = ResultBuffer.Policy.valueOf(rsqlConfig.getResultBufferPolicy().toUpperCase());
+        this.sender.allowCoreThreadTimeOut(true);
+        this.dispatcher.scheduleWithFixedDelay(this::dispatch, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    ResultBuffer open(String jobId) {
+        return buffers.computeIfAbsent(jobId, key -> new ResultBuffer(capacity, policy));
+    }
+
+    public SseEmitter subscribe(String jobId, long timeoutMs) {
+        ResultBuffer buffer = buffers.get(jobId);
+        if (buffer == null) {
+            throw new RSQLClientException("there is no query result for jobId: " + jobId);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        ResultSubscriber subscriber = new ResultSubscriber(emitter);
+        emitter.onCompletion(() -> unsubscribe(buffer, subscriber));
+        emitter.onTimeout(() -> unsubscribe(buffer, subscriber));
+        emitter.onError(t -> unsubscribe(buffer, subscriber));
+        buffer.subscribe(subscriber);
+
+        return emitter;
+    }
+
+    private void unsubscribe(ResultBuffer buffer, ResultSubscriber subscriber) {
+        buffer.unsubscribe(subscriber);
+        subscriber.cancel();
+    }
+
+    void close(String jobId) {
+        ResultBuffer buffer = buffers.remove(jobId);
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    private void dispatch() {
+        long now = System.currentTimeMillis();
+
+        for (ResultBuffer buffer : buffers.values()) {
+            boolean full = false;
+            for (ResultSubscriber subscriber : buffer.getSubscribers()) {
+                if (subscriber.stalled(now, SEND_TIMEOUT_MS)) {
+                    logger.info("send query result timeout, unsubscribe it.");
+                    evicted.incrementAndGet();
+                    unsubscribe(buffer, subscriber);
+                    subscriber.getEmitter().completeWithError(new TimeoutException("send query result timeout."));
+                } else if (subscriber.pendingSize() >= MAX_PENDING_BATCH) {
+                    full = true;
+                }
+            }
+
+            List<ResultSubscriber> subscribers = buffer.getSubscribers();
+            if (subscribers.isEmpty() || full) {
+                continue;
+            }
+
+            List<JsonNode> values = buffer.poll(MAX_BATCH);
+            if (values.isEmpty()) {
+                continue;
+            }
+
+            for (ResultSubscriber subscriber : subscribers) {
+                subscriber.send(values, sender);
+            }
+        }
+    }
+
+    //被丢弃的结果条数和被移除的订阅者数量
+    String toPrometheus() {
+        StringBuilder dropped = new StringBuilder();
+        for (Map.Entry<String, ResultBuffer> entry : buffers.entrySet()) {
+            dropped.append("rsqldb_query_result_dropped_total{job=\"").append(MetricsRegistry.escape(entry.getKey())).append("\"} ")
+                    .append(entry.getValue().getDropped()).append('\n');
+        }
+
+        return "# HELP rsqldb_query_result_dropped_total Query results dropped because the result buffer was full.\n" +
+                "# TYPE rsqldb_query_result_dropped_total counter\n" + dropped +
+                "# HELP rsqldb_query_result_subscribers_evicted_total Subscribers removed because sending timed out.\n" +
+                "# TYPE rsqldb_query_result_subscribers_evicted_total counter\n" +
+                "rsqldb_query_result_subscribers_evicted_total " + evicted.get() + '\n';
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.dispatcher.shutdownNow();
+        this.sender.shutdownNow();
+        for (String jobId : buffers.keySet()) {
+            close(jobId);
+        }
+    }
+}
@@ -15,12 +15,16 @@
  */
 package com.alibaba.rsqldb.rest.service.iml;
 
+import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.exception.RSQLClientException;
 import com.alibaba.rsqldb.common.exception.RSQLServerException;
 import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.ExpressionErrors;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
 import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
 import com.alibaba.rsqldb.rest.service.Engin;
+import com.alibaba.rsqldb.rest.service.EnginProgress;
 import com.alibaba.rsqldb.rest.service.RSQLConfig;
 import com.alibaba.rsqldb.rest.service.RSQLConfigBuilder;
 import com.alibaba.rsqldb.rest.spi.ServiceLoader;
@@ -35,19 +39,26 @@ import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.ThreadFactoryImpl;
 import org.apache.rocketmq.streams.core.RocketMQStream;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
+import org.apache.rocketmq.streams.core.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PreDestroy;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 
@@ -63,16 +74,28 @@ public class RSQLEngin implements Engin {
     private final DefaultMQProducer producer;
     private final ThreadPoolExecutor executor;
     private final BlockingQueue<Runnable> cacheQueue = new LinkedBlockingQueue<Runnable>();
+    private final ExecutorService[] workers;
+
+    //已拉取、尚未回调的命令，按拉取顺序排列，只在engin线程中访问
+    private final ArrayDeque<PendingCommand> pending = new ArrayDeque<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long startTime;
 
     private AtomicReference<RSQLServerException> holder = new AtomicReference<>();
 
     private volatile boolean stop = false;
-    private HashMap<String, RocketMQStream> rStreams = new HashMap<>();
+    private final Map<String, RocketMQStream> rStreams = new ConcurrentHashMap<>();
+    private final SharedStreams sharedStreams;
+    private final QueryResults queryResults;
 
-    public RSQLEngin(RSQLConfigBuilder builder, TaskFactory taskFactory, ServiceLoader serviceLoader) {
+    public RSQLEngin(RSQLConfigBuilder builder, TaskFactory taskFactory, ServiceLoader serviceLoader, QueryResults queryResults) {
         this.rsqlConfig = builder.build();
         this.taskFactory = taskFactory;
+        this.queryResults = queryResults;
         this.producer = this.producer();
+        this.sharedStreams = RSQLConstant.SharedSource.ENABLE ? new SharedStreams(taskFactory, producer, this::createStream) : null;
         this.executor = new ThreadPoolExecutor(
                 1,
                 1,
@@ -81,6 +104,11 @@ public class RSQLEngin implements Engin {
                 this.cacheQueue,
                 new ThreadFactoryImpl("RSQL_EnginThread_"));
 
+        this.workers = new ExecutorService[Math.max(1, rsqlConfig.getCommandConcurrency())];
+        for (int i = 0; i < workers.length; i++) {
+            this.workers[i] = Executors.newSingleThreadExecutor(new ThreadFactoryImpl("RSQL_CommandWorker_" + i + "_"));
+        }
+
         try {
             this.commandQueue = serviceLoader.load(CommandQueue.class, rsqlConfig.getStorage());
         } catch (Exception e) {
@@ -115,6 +143,7 @@ public class RSQLEngin implements Engin {
             throw new RSQLServerException(e);
         }
 
+        this.startTime = System.currentTimeMillis();
         this.executor.submit(this::runInLoop);
 
         logger.info("start engin success!");
@@ -128,25 +157,70 @@ public class RSQLEngin implements Engin {
 
     private void runInLoop() {
         while (!stop) {
-            Command command = null;
-            CallBack callBack = null;
-            String jobId = null;
-            Throwable error = null;
-
             try {
+                completeInOrder();
+
                 CommandWrapper commandWrapper = this.commandQueue.getNextCommand();
                 if (commandWrapper == null) {
+                    if (sharedStreams != null) {
+                        sharedStreams.startPending();
+                    }
                     continue;
                 }
-                //任务开始后才能提交消费位点；
-                command = commandWrapper.getCommand();
-                jobId = command.getJobId();
-                CommandStatus status = command.getStatus();
 
-                callBack = commandWrapper.getCallBack();
+                Command command = commandWrapper.getCommand();
+                CompletableFuture<Throwable> result = new CompletableFuture<>();
+
+                submitted.incrementAndGet();
+                //同一个jobId的命令在同一个线程上执行，保证先后顺序；不同任务并行启动
+                worker(command.getJobId()).execute(() -> execute(command, result));
+
+                this.pending.add(new PendingCommand(command, commandWrapper.getCallBack(), result));
+            } catch (Throwable t) {
+                logger.error("get next command failed.", t);
+            }
+        }
+    }
+
+    //回调会提交命令的消费位点，必须按拉取顺序回调，任务开始后才能提交消费位点
+    private void completeInOrder() {
+        while (!pending.isEmpty() && pending.peek().result.isDone()) {
+            PendingCommand pendingCommand = pending.poll();
+
+            Command command = pendingCommand.command;
+            CallBack callBack = pendingCommand.callBack;
+            String jobId = command.getJobId();
+            Throwable error = pendingCommand.result.getNow(null);
+
+            if (callBack != null) {
+                if (error == null) {
+                    callBack.onCompleted(jobId, command);
+                } else {
+                    command.setStatus(CommandStatus.STOPPED);
+                    callBack.onError(jobId, command, error);
+                }
+            }
+        }
+    }
 
-                RocketMQStream stream = this.rStreams.get(jobId);
+    private void execute(Command command, CompletableFuture<Throwable> result) {
+        String jobId = command.getJobId();
+        CommandStatus status = command.getStatus();
 
+        try {
+            RocketMQStream stream = this.rStreams.get(jobId);
+
+            if (sharedStreams != null && (sharedStreams.contains(jobId) || SharedStreams.shareable(command.getNode()))) {
+                if (status == CommandStatus.RUNNING) {
+                    //共用的stream在命令队列空闲时才启动，启动完成后再回调
+                    sharedStreams.attach(jobId, (Statement) command.getNode())
+                            .whenComplete((value, error) -> complete(command, result, error));
+                    return;
+                } else {
+                    logger.info("detach stream task, jobId:{}, status:{}", jobId, status);
+                    sharedStreams.detach(jobId);
+                }
+            } else {
                 switch (status) {
                     case RUNNING: {
                         if (stream != null) {
@@ -179,21 +253,32 @@ public class RSQLEngin implements Engin {
                         throw new RSQLServerException("unknown command status: " + status);
                     }
                 }
-            } catch (Throwable t) {
-                error = t;
-                logger.error("execute command failed, this command will be skipped. content in command: [{}]", command, t);
-            } finally {
-                if (callBack != null) {
-                    if (error == null) {
-                        callBack.onCompleted(jobId, command);
-                    } else {
-                        command.setStatus(CommandStatus.STOPPED);
-                        callBack.onError(jobId, command, error);
-                    }
-                }
+            }
 
+            if (status == CommandStatus.REMOVED) {
+                queryResults.close(jobId);
+                MetricsRegistry.remove(jobId);
+                ExpressionErrors.remove(jobId);
             }
+
+            complete(command, result, null);
+        } catch (Throwable t) {
+            complete(command, result, t);
+        }
+    }
+
+    private void complete(Command command, CompletableFuture<Throwable> result, Throwable error) {
+        if (error == null) {
+            completed.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+            logger.error("execute command failed, this command will be skipped. content in command: [{}]", command, error);
         }
+        result.complete(error);
+    }
+
+    private ExecutorService worker(String jobId) {
+        return workers[Math.floorMod(jobId.hashCode(), workers.length)];
     }
 
     private void startStream(Command command) throws Throwable {
@@ -204,16 +289,10 @@ public class RSQLEngin implements Engin {
 
         logger.info("【prepare stream task】, with jobId={}, command={}", jobId, node.getContent());
 
-        BuildContext dispatch = taskFactory.dispatch((Statement) node, context);
+        BuildContext dispatch = taskFactory.dispatch(jobId, (Statement) node, context);
 
         if (dispatch != null) {
-            TopologyBuilder topologyBuilder = dispatch.getStreamBuilder().build();
-
-            Properties properties = new Properties();
-            properties.put(MixAll.NAMESRV_ADDR_PROPERTY, rsqlConfig.getNamesrvAddr());
-            properties.putAll(dispatch.getConfigSetAtBuild());
-
-            RocketMQStream rocketMQStream = new RocketMQStream(topologyBuilder, properties);
+            RocketMQStream rocketMQStream = createStream(dispatch);
             RocketMQStream previous = rStreams.put(jobId, rocketMQStream);
             if (previous != null) {
                 logger.warn("jobId replaced, jobId=[{}], new sql content=[{}]", jobId, node.getContent());
@@ -228,6 +307,16 @@ public class RSQLEngin implements Engin {
         }
     }
 
+    private RocketMQStream createStream(BuildContext context) {
+        TopologyBuilder topologyBuilder = context.getStreamBuilder().build();
+
+        Properties properties = new Properties();
+        properties.put(MixAll.NAMESRV_ADDR_PROPERTY, rsqlConfig.getNamesrvAddr());
+        properties.putAll(context.getConfigSetAtBuild());
+
+        return new RocketMQStream(topologyBuilder, properties);
+    }
+
     @Override
     public CompletableFuture<Throwable> putCommand(String jobId, Node node, boolean startJob) throws Throwable {
         validate();
@@ -242,6 +331,24 @@ public class RSQLEngin implements Engin {
         return this.commandQueue.putCommand(command);
     }
 
+    @Override
+    public CompletableFuture<Throwable> putCommands(List<Pair<String, Node>> jobs, boolean startJob) throws Throwable {
+        validate();
+
+        CommandStatus status = startJob ? CommandStatus.RUNNING : CommandStatus.STOPPED;
+        List<Command> commands = new ArrayList<>(jobs.size());
+        for (Pair<String, Node> job : jobs) {
+            commands.add(new Command(job.getKey(), job.getValue(), status));
+        }
+
+        return this.commandQueue.putCommands(commands);
+    }
+
+    @Override
+    public EnginProgress progress() {
+        return new EnginProgress(startTime, workers.length, submitted.get(), completed.get(), failed.get(), holder.get() != null);
+    }
+
     @Override
     public List<Command> queryAll() {
         validate();
@@ -249,76 +356,67 @@ public class RSQLEngin implements Engin {
     }
 
     @Override
-    public Command queryByJobId(String jobId) {
+    public CompletableFuture<Command> queryByJobId(String jobId) {
         validate();
-        return this.commandQueue.queryStatus(jobId);
+        return this.commandQueue.queryStatusAsync(jobId);
     }
 
     @Override
-    public void terminate(String jobId) throws Throwable {
+    public CompletableFuture<Void> terminate(String jobId) {
         validate();
-        //发送任务终止命令到rocketmq
-        Command result = this.queryByJobId(jobId);
-        if (result == null) {
-            String format = String.format("the command is empty corresponding to jobId: %s", jobId);
-            logger.error(format);
-            throw new RSQLClientException(format);
-        }
-
-        if (result.getStatus() == CommandStatus.STOPPED) {
-            String format = String.format("jobId=[%s] is terminated, does not need terminated.", jobId);
-            logger.error(format);
-            throw new RSQLClientException(format);
-        }
-
-        Command command = new Command(jobId, result.getNode(), CommandStatus.STOPPED);
-        CompletableFuture<Throwable> future = this.commandQueue.putCommand(command);
+        //发送任务终止命令到rocketmq，发送是阻塞的，在该任务的命令线程上执行，不占用公共的ForkJoinPool
+        return this.queryByJobId(jobId).thenComposeAsync(result -> {
+            checkExist(jobId, result);
+
+            if (result.getStatus() == CommandStatus.STOPPED) {
+                String format = String.format("jobId=[%s] is terminated, does not need terminated.", jobId);
+                logger.error(format);
+                throw new RSQLClientException(format);
+            }
 
-        wait4Finish(future);
+            return whenExecuted(() -> this.commandQueue.putCommand(new Command(jobId, result.getNode(), CommandStatus.STOPPED)));
+        }, worker(jobId));
     }
 
     @Override
-    public void restart(String jobId) throws Throwable {
+    public CompletableFuture<Void> restart(String jobId) {
         validate();
-        Command result = this.queryByJobId(jobId);
-        if (result == null) {
-            String format = String.format("the command is empty corresponding to jobId: %s", jobId);
-            logger.error(format);
-            throw new RSQLClientException(format);
-        }
-
-        if (result.getStatus() == CommandStatus.RUNNING) {
-            String format = String.format("jobId=[%s] is running, does not need restart.", jobId);
-            logger.error(format);
-            throw new RSQLClientException(format);
-        }
+        return this.queryByJobId(jobId).thenComposeAsync(result -> {
+            checkExist(jobId, result);
 
-        Command command = new Command(jobId, result.getNode(), CommandStatus.RUNNING);
-        CompletableFuture<Throwable> future = this.commandQueue.putCommand(command);
+            if (result.getStatus() == CommandStatus.RUNNING) {
+                String format = String.format("jobId=[%s] is running, does not need restart.", jobId);
+                logger.error(format);
+                throw new RSQLClientException(format);
+            }
 
-        wait4Finish(future);
+            return whenExecuted(() -> this.commandQueue.putCommand(new Command(jobId, result.getNode(), CommandStatus.RUNNING)));
+        }, worker(jobId));
     }
 
     //todo 移除create table和create view时候要非常小心,因为可能有针对这个表的insert等操作；
     @Override
-    public void remove(String jobId) throws Throwable {
+    public CompletableFuture<Void> remove(String jobId) {
         validate();
-        Command result = this.queryByJobId(jobId);
+        return this.queryByJobId(jobId).thenComposeAsync(result -> {
+            checkExist(jobId, result);
+
+            if (result.getStatus() == CommandStatus.RUNNING) {
+                String format = String.format("jobId=[%s] is running, terminate it first.", jobId);
+                logger.error(format);
+                throw new RSQLClientException(format);
+            }
+
+            return whenExecuted(() -> this.commandQueue.delete(jobId));
+        }, worker(jobId));
+    }
+
+    private void checkExist(String jobId, Command result) {
         if (result == null) {
             String format = String.format("the command is empty corresponding to jobId: %s", jobId);
             logger.error(format);
             throw new RSQLClientException(format);
         }
-
-        if (result.getStatus() == CommandStatus.RUNNING) {
-            String format = String.format("jobId=[%s] is running, terminate it first.", jobId);
-            logger.error(format);
-            throw new RSQLClientException(format);
-        }
-
-
-        CompletableFuture<Throwable> future = this.commandQueue.delete(jobId);
-        wait4Finish(future);
     }
 
 
@@ -333,8 +431,14 @@ public class RSQLEngin implements Engin {
         for (RocketMQStream stream : rStreams.values()) {
             stream.stop();
         }
+        if (sharedStreams != null) {
+            sharedStreams.shutdown();
+        }
         this.producer.shutdown();
         this.executor.shutdownNow();
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
     }
 
     private DefaultMQProducer producer() {
@@ -345,15 +449,37 @@ public class RSQLEngin implements Engin {
         return producer;
     }
 
-    private void wait4Finish(CompletableFuture<Throwable> future) {
+    private static class PendingCommand {
+        private final Command command;
+        private final CallBack callBack;
+        private final CompletableFuture<Throwable> result;
+
+        PendingCommand(Command command, CallBack callBack, CompletableFuture<Throwable> result) {
+            this.command = command;
+            this.callBack = callBack;
+            this.result = result;
+        }
+    }
+
+    //命令执行完成后完成，执行失败时异常完成，不阻塞调用线程
+    private CompletableFuture<Void> whenExecuted(CommandPut put) {
+        CompletableFuture<Throwable> future;
         try {
-            Throwable error = future.get(10, TimeUnit.SECONDS);
+            future = put.put();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RSQLServerException(t);
+        }
+
+        return future.thenAccept(error -> {
             if (error != null) {
-                throw error;
+                throw new RSQLServerException(error);
             }
-        } catch (Throwable e) {
-            throw new RSQLServerException(e);
-        }
+        });
     }
 
+    private interface CommandPut {
+        CompletableFuture<Throwable> put() throws Throwable;
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.rest.service.iml;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 单个查询任务的结果缓冲，容量固定的环形数组。流任务线程写入，QueryResults的分发线程取出后推送给订阅者。
+ * <p>
+ * 缓冲满时按策略处理：DROP_OLDEST覆盖最旧的结果，DROP_NEWEST丢弃新结果，BLOCK阻塞流任务直到订阅者取走。
+ * 没有订阅者时总是覆盖最旧的结果，保留最近的结果供之后订阅的客户端预览。
+ */
+class ResultBuffer {
+    enum Policy {
+        DROP_OLDEST, DROP_NEWEST, BLOCK
+    }
+
+    private final JsonNode[] ring;
+    private final Policy policy;
+    private int head;
+    private int size;
+    private long dropped;
+    private boolean closed;
+
+    private final List<ResultSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    ResultBuffer(int capacity, Policy policy) {
+        this.ring = new JsonNode[capacity];
+        this.policy = policy;
+    }
+
+    synchronized void offer(JsonNode value) throws InterruptedException {
+        while (size == ring.length && policy == Policy.BLOCK && !subscribers.isEmpty() && !closed) {
+            this.wait(100);
+        }
+
+        if (closed) {
+            return;
+        }
+
+        if (size == ring.length) {
+            dropped++;
+            if (policy == Policy.DROP_NEWEST && !subscribers.isEmpty()) {
+                return;
+            }
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+        }
+
+        ring[(head + size) % ring.length] = value;
+        size++;
+    }
+
+    synchronized List<JsonNode> poll(int max) {
+        int num = Math.min(max, size);
+        List<JsonNode> result = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            result.add(ring[head]);
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+        }
+        size -= num;
+
+        this.notifyAll();
+        return result;
+    }
+
+    void subscribe(ResultSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    synchronized void unsubscribe(ResultSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        this.notifyAll();
+    }
+
+    List<ResultSubscriber> getSubscribers() {
+        return subscribers;
+    }
+
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (ResultSubscriber subscriber : subscribers) {
+            subscriber.getEmitter().complete();
+        }
+        subscribers.clear();
+        this.notifyAll();
+    }
+}
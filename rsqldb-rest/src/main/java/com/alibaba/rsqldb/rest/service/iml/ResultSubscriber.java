@@ -0,0 +1,127 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.rest.service.iml;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个SSE订阅者，有自己的待发送队列，在发送线程池上串行发送，慢的订阅者不影响其他订阅者和分发线程。
+ * 被移除后清空待发送队列，并中断正在发送的线程，不再继续发送。
+ */
+class ResultSubscriber {
+    private final SseEmitter emitter;
+    private final ConcurrentLinkedQueue<List<JsonNode>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    //正在发送的批次开始的时间，0表示没有在发送
+    private volatile long sendStartTime;
+    //正在发送的线程，只在持有this锁时修改和中断
+    private Thread sendingThread;
+    private volatile boolean cancelled;
+
+    ResultSubscriber(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    int pendingSize() {
+        return pendingSize.get();
+    }
+
+    boolean stalled(long now, long timeoutMs) {
+        long start = sendStartTime;
+        return start != 0 && now - start > timeoutMs;
+    }
+
+    void send(List<JsonNode> values, Executor executor) {
+        if (cancelled) {
+            return;
+        }
+        pending.add(values);
+        pendingSize.incrementAndGet();
+
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                //发送线程池已满，放弃这个订阅者
+                draining.set(false);
+                cancel();
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        pending.clear();
+        pendingSize.set(0);
+
+        synchronized (this) {
+            if (sendingThread != null) {
+                sendingThread.interrupt();
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            List<JsonNode> values;
+            while ((values = pending.poll()) != null) {
+                pendingSize.decrementAndGet();
+
+                synchronized (this) {
+                    if (cancelled) {
+                        break;
+                    }
+                    sendingThread = Thread.currentThread();
+                }
+
+                sendStartTime = System.currentTimeMillis();
+                try {
+                    for (JsonNode value : values) {
+                        emitter.send(SseEmitter.event().data(value.toString()));
+                    }
+                } catch (Throwable t) {
+                    if (!cancelled) {
+                        cancel();
+                        emitter.completeWithError(t);
+                    }
+                } finally {
+                    sendStartTime = 0;
+                    synchronized (this) {
+                        sendingThread = null;
+                    }
+                    //清除cancel设置的中断状态，线程归还给线程池后不影响其他订阅者
+                    Thread.interrupted();
+                }
+            }
+
+            draining.set(false);
+        } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+    }
+}
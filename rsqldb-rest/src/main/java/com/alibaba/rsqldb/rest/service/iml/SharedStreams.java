@@ -0,0 +1,267 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.rest.service.iml;
+
+import com.alibaba.rsqldb.common.RSQLConstant;
+import com.alibaba.rsqldb.common.exception.RSQLServerException;
+import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.metrics.MetricsRegistry;
+import com.alibaba.rsqldb.parser.model.Node;
+import com.alibaba.rsqldb.parser.model.statement.InsertQueryStatement;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.parser.model.statement.query.QueryStatement;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.streams.core.RocketMQStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 读取相同源表、流配置相同的查询任务共用一个RocketMQStream，源表只订阅、解析一次，各任务的算子从同一个source分出。
+ * 命令在多个线程上执行，方法之间互斥。
+ * <p>
+ * RocketMQStream的拓扑构建后不能修改，所以组内任务变化后，在命令队列空闲时整体重建一次，组内其他任务也会随之重启，
+ * 从已提交的消费位点继续消费。新拓扑构建成功后才停止旧的stream，构建或启动失败时新加入的任务失败并移出分组，
+ * 其余任务重新启动。
+ */
+class SharedStreams {
+    private static final Logger logger = LoggerFactory.getLogger(SharedStreams.class);
+
+    private final TaskFactory taskFactory;
+    private final DefaultMQProducer producer;
+    private final Function<BuildContext, RocketMQStream> streamCreator;
+
+    private final Map<String/*groupId*/, Group> groups = new HashMap<>();
+    private final Map<String/*jobId*/, String/*groupId*/> jobToGroup = new HashMap<>();
+
+    SharedStreams(TaskFactory taskFactory, DefaultMQProducer producer, Function<BuildContext, RocketMQStream> streamCreator) {
+        this.taskFactory = taskFactory;
+        this.producer = producer;
+        this.streamCreator = streamCreator;
+    }
+
+    static boolean shareable(Node node) {
+        return node instanceof QueryStatement || node instanceof InsertQueryStatement;
+    }
+
+    /**
+     * 先单独构建一次，校验语句并得到源表和裁剪字段，真正启动在startPending中
+     */
+    synchronized CompletableFuture<Void> attach(String jobId, Statement statement) throws Throwable {
+        BuildContext context = taskFactory.dispatch(jobId, statement, new BuildContext(producer, jobId));
+
+        Map<String, Set<String>> projections = new HashMap<>();
+        for (String tableName : context.getSourceTableNames()) {
+            //null表示需要全部字段
+            projections.put(tableName, context.getProjection(tableName));
+        }
+
+        String groupId = groupId(projections.keySet(), context.getConfigSetAtBuild());
+
+        detach(jobId);
+        Group group = groups.computeIfAbsent(groupId, Group::new);
+        Job job = new Job(statement, projections);
+        group.jobs.put(jobId, job);
+        group.dirty = true;
+        jobToGroup.put(jobId, groupId);
+
+        logger.info("attach job to shared stream, jobId:[{}], groupId:[{}]", jobId, groupId);
+        return job.started;
+    }
+
+    synchronized boolean contains(String jobId) {
+        return jobToGroup.containsKey(jobId);
+    }
+
+    synchronized void detach(String jobId) {
+        String groupId = jobToGroup.remove(jobId);
+        if (groupId == null) {
+            return;
+        }
+
+        Group group = groups.get(groupId);
+        Job job = group.jobs.remove(jobId);
+        if (!job.started.isDone()) {
+            job.started.completeExceptionally(new RSQLServerException("job detached before shared stream started, jobId=" + jobId));
+        }
+        group.dirty = true;
+
+        logger.info("detach job from shared stream, jobId:[{}], groupId:[{}]", jobId, groupId);
+    }
+
+    synchronized void startPending() {
+        long now = System.currentTimeMillis();
+
+        Iterator<Group> iterator = groups.values().iterator();
+        while (iterator.hasNext()) {
+            Group group = iterator.next();
+            if (!group.dirty || now < group.retryTime) {
+                continue;
+            }
+            group.dirty = false;
+
+            if (group.jobs.isEmpty()) {
+                if (group.stream != null) {
+                    group.stream.stop();
+                }
+                MetricsRegistry.remove(group.groupId);
+                iterator.remove();
+                continue;
+            }
+
+            RocketMQStream stream;
+            try {
+                stream = build(group);
+            } catch (Throwable t) {
+                //构建失败时旧的stream继续运行
+                logger.error("build shared stream failed, groupId:[{}], jobIds:{}", group.groupId, group.jobs.keySet(), t);
+                failPending(group, t);
+                continue;
+            }
+
+            if (group.stream != null) {
+                group.stream.stop();
+                group.stream = null;
+            }
+
+            try {
+                stream.start();
+            } catch (Throwable t) {
+                logger.error("start shared stream failed, groupId:[{}], jobIds:{}", group.groupId, group.jobs.keySet(), t);
+                failPending(group, t);
+                continue;
+            }
+
+            group.stream = stream;
+            for (Job job : group.jobs.values()) {
+                job.started.complete(null);
+            }
+
+            logger.info("【start shared stream】, groupId:[{}], jobIds:{}", group.groupId, group.jobs.keySet());
+        }
+    }
+
+    private RocketMQStream build(Group group) throws Throwable {
+        BuildContext context = new BuildContext(producer, group.groupId);
+        context.shareSource(mergeProjections(group));
+
+        for (Map.Entry<String, Job> job : group.jobs.entrySet()) {
+            context.resetResult();
+            taskFactory.dispatch(job.getKey(), job.getValue().statement, context);
+        }
+
+        return streamCreator.apply(context);
+    }
+
+    //还未启动成功的任务失败并移出分组，其余任务重新构建；没有新加入的任务时，隔一段时间再重试
+    private void failPending(Group group, Throwable t) {
+        boolean removed = false;
+
+        Iterator<Map.Entry<String, Job>> iterator = group.jobs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Job> entry = iterator.next();
+            if (entry.getValue().started.isDone()) {
+                continue;
+            }
+
+            entry.getValue().started.completeExceptionally(t);
+            jobToGroup.remove(entry.getKey());
+            iterator.remove();
+            removed = true;
+        }
+
+        group.dirty = true;
+        if (!removed) {
+            group.retryTime = System.currentTimeMillis() + RSQLConstant.SharedSource.RETRY_INTERVAL_MS;
+        }
+    }
+
+    synchronized void shutdown() {
+        for (Group group : groups.values()) {
+            if (group.stream != null) {
+                group.stream.stop();
+            }
+        }
+    }
+
+    //组内任务都有裁剪时取并集，任一任务需要全部字段则不裁剪
+    private Map<String, Set<String>> mergeProjections(Group group) {
+        Map<String, Set<String>> result = new HashMap<>();
+        Set<String> all = new HashSet<>();
+
+        for (Job job : group.jobs.values()) {
+            for (Map.Entry<String, Set<String>> entry : job.projections.entrySet()) {
+                String tableName = entry.getKey();
+                if (entry.getValue() == null) {
+                    all.add(tableName);
+                } else {
+                    result.computeIfAbsent(tableName, key -> new HashSet<>()).addAll(entry.getValue());
+                }
+            }
+        }
+
+        for (String tableName : all) {
+            result.remove(tableName);
+        }
+        return result;
+    }
+
+    //groupId也是消费组名，需要稳定且只包含合法字符
+    private String groupId(Set<String> sourceTables, Map<String, Object> configs) {
+        StringBuilder builder = new StringBuilder("rsqldb_shared");
+        for (String tableName : new TreeSet<>(sourceTables)) {
+            builder.append('_').append(tableName);
+        }
+        if (!configs.isEmpty()) {
+            builder.append('_').append(Integer.toHexString(new TreeMap<>(configs).toString().hashCode()));
+        }
+        return builder.toString().replaceAll("[^%|a-zA-Z0-9_-]", "_");
+    }
+
+    private static class Group {
+        private final String groupId;
+        private final LinkedHashMap<String/*jobId*/, Job> jobs = new LinkedHashMap<>();
+        private RocketMQStream stream;
+        private boolean dirty;
+        private long retryTime;
+
+        Group(String groupId) {
+            this.groupId = groupId;
+        }
+    }
+
+    private static class Job {
+        private final Statement statement;
+        private final Map<String/*tableName*/, Set<String>> projections;
+        //所在分组的stream启动后完成
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+
+        Job(Statement statement, Map<String, Set<String>> projections) {
+            this.statement = statement;
+            this.projections = projections;
+        }
+    }
+}
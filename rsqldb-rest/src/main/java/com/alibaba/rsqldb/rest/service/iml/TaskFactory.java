@@ -24,12 +24,12 @@ import com.alibaba.rsqldb.parser.model.statement.InsertQueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.InsertValueStatement;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
 import com.alibaba.rsqldb.parser.model.statement.query.FilterQueryStatement;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByKey;
 import com.alibaba.rsqldb.parser.model.statement.query.GroupByQueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.query.QueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.query.WindowQueryStatement;
 import com.alibaba.rsqldb.parser.model.statement.query.join.JointStatement;
 import com.alibaba.rsqldb.parser.serialization.json.JsonObjectKVSer;
-import com.alibaba.rsqldb.parser.serialization.json.JsonStringKVSer;
 import com.alibaba.rsqldb.rest.service.RSQLConfig;
 import com.alibaba.rsqldb.rest.service.RSQLConfigBuilder;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -46,22 +46,25 @@ import java.util.function.Function;
 public class TaskFactory {
     private RSQLConfig rsqlConfig;
     private Function<String, Statement> function;
+    private final QueryResults queryResults;
 
-    public TaskFactory(RSQLConfigBuilder builder) {
+    public TaskFactory(RSQLConfigBuilder builder, QueryResults queryResults) {
         this.rsqlConfig = builder.build();
+        this.queryResults = queryResults;
     }
 
     public void init(Function<String, Statement> function) {
         this.function = function;
     }
 
-    public BuildContext dispatch(Statement statement, BuildContext context) throws Throwable {
+    public BuildContext dispatch(String jobId, Statement statement, BuildContext context) throws Throwable {
         if (statement instanceof CreateTableStatement || statement instanceof CreateViewStatement) {
             //no-op
             // 不执行，由其他sql语句触发，比如insert into ... from viewTable.
             return null;
         }
 
+        context.setJobId(jobId);
         String tableName = statement.getTableName();
 
         if (statement instanceof InsertValueStatement) {
@@ -82,19 +85,24 @@ public class TaskFactory {
             InsertQueryStatement insertQueryStatement = (InsertQueryStatement) statement;
             QueryStatement queryStatement = insertQueryStatement.getQueryStatement();
             String sourceTableName = queryStatement.getTableName();
+            context.putProjection(sourceTableName, queryStatement.referencedFields());
+            context.putPushdownFilter(sourceTableName, queryStatement.pushdownFilter());
             context = prepare(sourceTableName, context, RSQLConstant.TableType.SOURCE);
 
             context = this.build((InsertQueryStatement) statement, context);
 
             context = prepare(tableName, context, RSQLConstant.TableType.SINK);
         } else if (statement instanceof QueryStatement) {
+            QueryStatement queryStatement = (QueryStatement) statement;
+            context.putProjection(tableName, queryStatement.referencedFields());
+            context.putPushdownFilter(tableName, queryStatement.pushdownFilter());
             context = prepare(tableName, context, RSQLConstant.TableType.SOURCE);
 
             context = build((QueryStatement) statement, context);
 
             //todo 没有输出目的地的select（来自CLI命令行，输出到返回中），如果即没有response也米有其他返回，不能直接执行。
 //            context = prepare(tableName, context, RSQLConstant.TableType.SINK);
-            print(tableName, context);
+            print(jobId, tableName, context);
         } else {
             throw new RSQLServerException("unknown statement type=" + statement.getClass() + ".sql=" + statement.getContent());
         }
@@ -138,46 +146,46 @@ public class TaskFactory {
         return context;
     }
 
-    private QueryStatement queryStatementInCreateView = null;
-
+    //多个任务并行构建，不能在实例字段上保存构建过程中的状态
     private BuildContext prepare(String tableName, BuildContext context, RSQLConstant.TableType type) throws Throwable {
         Statement statement = function.apply(tableName);
 
         if (statement instanceof CreateViewStatement) {
             CreateViewStatement createViewStatement = (CreateViewStatement) statement;
-            queryStatementInCreateView = createViewStatement.getQueryStatement();
+            QueryStatement queryStatementInCreateView = createViewStatement.getQueryStatement();
 
+            context.putProjection(queryStatementInCreateView.getTableName(), queryStatementInCreateView.referencedFields());
+            context.putPushdownFilter(queryStatementInCreateView.getTableName(), queryStatementInCreateView.pushdownFilter());
             context = prepare(queryStatementInCreateView.getTableName(), context, RSQLConstant.TableType.SOURCE);
-        }
-
-        if (queryStatementInCreateView instanceof JointStatement) {
-            //prepare the join table if it is a join type query;
-            JointStatement jointStatement = (JointStatement) queryStatementInCreateView;
 
-            queryStatementInCreateView = null;
-
-            context = prepare(jointStatement.getJoinTableName(), context, RSQLConstant.TableType.SOURCE);
+            if (queryStatementInCreateView instanceof JointStatement) {
+                //prepare the join table if it is a join type query;
+                JointStatement jointStatement = (JointStatement) queryStatementInCreateView;
+                context = prepare(jointStatement.getJoinTableName(), context, RSQLConstant.TableType.SOURCE);
+            }
         }
 
         context.putHeader(RSQLConstant.TABLE_TYPE, type);
         return statement.build(context);
     }
 
-    private void print(String tableName, BuildContext context) {
+    //结果写入有界缓冲，通过/rsqldb/results推送给客户端
+    private void print(String jobId, String tableName, BuildContext context) {
         RStream<? extends JsonNode> stream = context.getrStreamResult();
-        WindowStream<String, ? extends JsonNode> windowStream = context.getWindowStreamResult();
-        GroupedStream<String, ? extends JsonNode> groupedStream = context.getGroupedStreamResult();
+        WindowStream<GroupByKey, ? extends JsonNode> windowStream = context.getWindowStreamResult();
+        GroupedStream<GroupByKey, ? extends JsonNode> groupedStream = context.getGroupedStreamResult();
 
+        ResultBuffer buffer = queryResults.open(jobId);
         if (windowStream != null) {
-            windowStream.toRStream().print();
+            windowStream.toRStream().foreach(buffer::offer);
         } else if (groupedStream != null) {
-            groupedStream.toRStream().print();
+            groupedStream.toRStream().foreach(buffer::offer);
         } else {
             if (stream == null) {
                 RStream<JsonNode> streamSource = context.getRStreamSource(tableName);
-                streamSource.print();
+                streamSource.foreach(buffer::offer);
             } else {
-                stream.print();
+                stream.foreach(buffer::offer);
             }
         }
     }
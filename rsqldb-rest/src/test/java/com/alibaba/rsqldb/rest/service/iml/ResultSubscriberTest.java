@@ -0,0 +1,129 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.rest.service.iml;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ResultSubscriberTest {
+
+    //一个订阅者阻塞时，其他订阅者照常发送
+    @Test
+    public void slowSubscriber() throws Throwable {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            SseEmitter slowEmitter = mock(SseEmitter.class);
+            doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(slowEmitter).send(any(SseEmitter.SseEventBuilder.class));
+            SseEmitter fastEmitter = mock(SseEmitter.class);
+
+            ResultSubscriber slow = new ResultSubscriber(slowEmitter);
+            ResultSubscriber fast = new ResultSubscriber(fastEmitter);
+
+            List<JsonNode> values = Collections.singletonList(IntNode.valueOf(1));
+            for (int i = 0; i < 3; i++) {
+                slow.send(values, executor);
+                fast.send(values, executor);
+            }
+
+            verify(fastEmitter, timeout(5000).times(3)).send(any(SseEmitter.SseEventBuilder.class));
+            assertEquals(0, fast.pendingSize());
+            assertFalse(fast.stalled(System.currentTimeMillis() + 100, 50));
+
+            verify(slowEmitter, timeout(5000)).send(any(SseEmitter.SseEventBuilder.class));
+            assertEquals(2, slow.pendingSize());
+            assertTrue(slow.stalled(System.currentTimeMillis() + 100, 50));
+
+            release.countDown();
+            verify(slowEmitter, timeout(5000).times(3)).send(any(SseEmitter.SseEventBuilder.class));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    //被移除后中断正在发送的线程，剩余批次不再发送，线程归还给线程池
+    @Test
+    public void cancelStalled() throws Throwable {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            SseEmitter emitter = mock(SseEmitter.class);
+            doAnswer(invocation -> {
+                try {
+                    new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            }).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+            ResultSubscriber subscriber = new ResultSubscriber(emitter);
+            List<JsonNode> values = Collections.singletonList(IntNode.valueOf(1));
+            for (int i = 0; i < 3; i++) {
+                subscriber.send(values, executor);
+            }
+            verify(emitter, timeout(5000)).send(any(SseEmitter.SseEventBuilder.class));
+
+            subscriber.cancel();
+            assertEquals(0, subscriber.pendingSize());
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+            subscriber.send(values, executor);
+            assertEquals(0, subscriber.pendingSize());
+            assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+            verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+            verify(emitter, never()).completeWithError(any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejected() throws Throwable {
+        SseEmitter emitter = mock(SseEmitter.class);
+        ResultSubscriber subscriber = new ResultSubscriber(emitter);
+
+        subscriber.send(Collections.singletonList(IntNode.valueOf(1)), command -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertEquals(0, subscriber.pendingSize());
+        verify(emitter).completeWithError(any(RejectedExecutionException.class));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.rest.service.iml;
+
+import com.alibaba.rsqldb.parser.impl.BuildContext;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import org.apache.rocketmq.streams.core.RocketMQStream;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SharedStreamsTest {
+    private final List<RocketMQStream> streams = new ArrayList<>();
+    private SharedStreams sharedStreams;
+    private boolean failBuild;
+    private boolean failStart;
+
+    @Before
+    public void setUp() throws Throwable {
+        TaskFactory taskFactory = mock(TaskFactory.class);
+        when(taskFactory.dispatch(anyString(), any(), any())).thenAnswer(invocation -> {
+            BuildContext context = invocation.getArgument(2);
+            context.addRStreamSource("source", null);
+            return context;
+        });
+
+        sharedStreams = new SharedStreams(taskFactory, null, context -> {
+            if (failBuild) {
+                throw new IllegalStateException("build failed");
+            }
+            RocketMQStream stream = mock(RocketMQStream.class);
+            if (failStart) {
+                doThrow(new IllegalStateException("start failed")).when(stream).start();
+            }
+            streams.add(stream);
+            return stream;
+        });
+    }
+
+    //拓扑不能修改，加入新任务时整个分组重建，组内已有的任务随之重启
+    @Test
+    public void restartOnAttach() throws Throwable {
+        CompletableFuture<Void> first = sharedStreams.attach("job_1", mock(Statement.class));
+        assertFalse(first.isDone());
+
+        sharedStreams.startPending();
+        assertNull(first.get());
+        assertEquals(1, streams.size());
+
+        CompletableFuture<Void> second = sharedStreams.attach("job_2", mock(Statement.class));
+        sharedStreams.startPending();
+        assertNull(second.get());
+        assertEquals(2, streams.size());
+        verify(streams.get(0)).stop();
+        verify(streams.get(1)).start();
+
+        //没有变化时不重建
+        sharedStreams.startPending();
+        assertEquals(2, streams.size());
+    }
+
+    @Test
+    public void startFailed() throws Throwable {
+        CompletableFuture<Void> first = sharedStreams.attach("job_1", mock(Statement.class));
+        sharedStreams.startPending();
+
+        failStart = true;
+        CompletableFuture<Void> second = sharedStreams.attach("job_2", mock(Statement.class));
+        sharedStreams.startPending();
+
+        assertTrue(second.isCompletedExceptionally());
+        assertFalse(sharedStreams.contains("job_2"));
+        assertTrue(sharedStreams.contains("job_1"));
+        assertNull(first.get());
+
+        //失败的任务移出后，其余任务重新启动
+        failStart = false;
+        sharedStreams.startPending();
+        assertEquals(3, streams.size());
+        verify(streams.get(2)).start();
+    }
+
+    @Test
+    public void buildFailed() throws Throwable {
+        sharedStreams.attach("job_1", mock(Statement.class));
+        sharedStreams.startPending();
+
+        failBuild = true;
+        CompletableFuture<Void> second = sharedStreams.attach("job_2", mock(Statement.class));
+        sharedStreams.startPending();
+
+        //构建失败时旧的stream不受影响
+        assertTrue(second.isCompletedExceptionally());
+        verify(streams.get(0), never()).stop();
+    }
+}
@@ -18,7 +18,9 @@ package com.alibaba.rsqldb.storage.api;
 
 import com.alibaba.rsqldb.parser.model.statement.Statement;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 
@@ -32,6 +34,17 @@ public interface CommandQueue extends AutoCloseable {
 
     CompletableFuture<Throwable> putCommand(Command command) throws Throwable;
 
+    /**
+     * 按顺序批量提交命令，返回的future在所有命令执行完成后完成，结果为第一个执行失败的异常
+     */
+    default CompletableFuture<Throwable> putCommands(List<Command> commands) throws Throwable {
+        List<CompletableFuture<Throwable>> futures = new ArrayList<>();
+        for (Command command : commands) {
+            futures.add(putCommand(command));
+        }
+        return allOf(futures);
+    }
+
     CommandWrapper getNextCommand() throws Throwable;
 
     //可能返回CreateTableStatement，也可能返回CreateViewStatement
@@ -39,7 +52,21 @@ public interface CommandQueue extends AutoCloseable {
 
     Command queryStatus(String jobId);
 
+    /**
+     * 不阻塞调用线程：命令还未执行完成时，在执行完成后返回其状态
+     */
+    default CompletableFuture<Command> queryStatusAsync(String jobId) {
+        CompletableFuture<Command> future = new CompletableFuture<>();
+        future.complete(queryStatus(jobId));
+        return future;
+    }
+
     List<Command> queryStatus();
 
     CompletableFuture<Throwable> delete(String jobId) throws Throwable;
+
+    static CompletableFuture<Throwable> allOf(List<CompletableFuture<Throwable>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).filter(Objects::nonNull).findFirst().orElse(null));
+    }
 }
@@ -15,30 +15,63 @@
  */
 package com.alibaba.rsqldb.storage.api.serialize;
 
+import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.common.SerializeType;
 import com.alibaba.rsqldb.common.exception.DeserializeException;
 import com.alibaba.rsqldb.common.exception.SerializeException;
+import com.alibaba.rsqldb.parser.model.Field;
 import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
 import com.alibaba.rsqldb.parser.serialization.Deserializer;
+import com.alibaba.rsqldb.parser.serialization.FieldKeyDeserializer;
 import com.alibaba.rsqldb.parser.serialization.SerializeTypeContainer;
 import com.alibaba.rsqldb.parser.serialization.Serializer;
 import com.alibaba.rsqldb.storage.api.Command;
 import com.alibaba.rsqldb.storage.api.CommandSerDe;
 import com.alibaba.rsqldb.storage.api.CommandStatus;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 命令的编码格式：
+ * <p>
+ * binary：format(byte) jobId(int+bytes) status(byte+bytes) nodeClass(short+bytes) node(int+smile bytes)
+ * <p>
+ * json（旧格式）：jobId(int+bytes) nodeClass(int+bytes) node(int+json bytes) status(int+bytes)。
+ * 旧格式以jobId的长度开头，首字节总是0，据此区分两种格式，topic中已有的旧命令仍然可以读取。
+ */
 public class DefaultCommandSerDe implements CommandSerDe {
     private static final Logger logger = LoggerFactory.getLogger(DefaultCommandSerDe.class);
 
-    private static final ByteBuf buf = Unpooled.buffer(16);
+    private static final byte BINARY_FORMAT = (byte) 0xB2;
+    private static final ObjectMapper smileMapper = new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+    static {
+        SimpleModule simpleModule = new SimpleModule();
+        simpleModule.addKeyDeserializer(Field.class, new FieldKeyDeserializer());
+        smileMapper.registerModule(simpleModule);
+        smileMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
+                .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+    }
+
     private static final Serializer serializer = SerializeTypeContainer.getSerializer(SerializeType.JSON);
     private static final Deserializer deserializer = SerializeTypeContainer.getDeserializer(SerializeType.JSON);
     private static final ConcurrentHashMap<String, Class<Node>> cache = new ConcurrentHashMap<>();
@@ -61,25 +94,29 @@ public class DefaultCommandSerDe implements CommandSerDe {
             throw new SerializeException("status is blank.");
         }
 
+        if (node != null && !(node instanceof Statement)) {
+            throw new UnsupportedOperationException("please support it first.");
+        }
+
+        if (RSQLConstant.CommandFormat.BINARY) {
+            return serializeBinary(jobId, node, status);
+        }
+
         //ser
         byte[] jobIdBytes = jobId.getBytes(StandardCharsets.UTF_8);
-
-        byte[] nodeBytes = new byte[0];
         byte[] nodeClassBytes = new byte[0];
-        if (node instanceof Statement) {
-            Statement statement = (Statement) node;
-            nodeBytes = serializer.serialize(statement);
-
+        byte[] nodeBytes = new byte[0];
+        if (node != null) {
             nodeClassBytes = node.getClass().getName().getBytes(StandardCharsets.UTF_8);
-        } else if (node == null) {
-            nodeBytes = new byte[0];
-            nodeClassBytes = new byte[0];
-        } else {
-            throw new UnsupportedOperationException("please support it first.");
+            nodeBytes = serializer.serialize(node);
         }
-
         byte[] statusBytes = status.name().getBytes(StandardCharsets.UTF_8);
 
+        //长度已知，直接写入结果数组，不使用共享的缓冲区
+        byte[] bytes = new byte[16 + jobIdBytes.length + nodeClassBytes.length + nodeBytes.length + statusBytes.length];
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+        buf.clear();
+
         //jobId
         buf.writeInt(jobIdBytes.length);
         buf.writeBytes(jobIdBytes);
@@ -87,84 +124,130 @@ public class DefaultCommandSerDe implements CommandSerDe {
         //node
         //1.class
         buf.writeInt(nodeClassBytes.length);
-        if (nodeClassBytes.length != 0) {
-            buf.writeBytes(nodeClassBytes);
-        }
+        buf.writeBytes(nodeClassBytes);
 
         //2.
         buf.writeInt(nodeBytes.length);
-        if (nodeBytes.length != 0) {
-            buf.writeBytes(nodeBytes);
-        }
+        buf.writeBytes(nodeBytes);
 
         //status
         buf.writeInt(statusBytes.length);
         buf.writeBytes(statusBytes);
 
-        byte[] bytes = new byte[buf.readableBytes()];
-        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] serializeBinary(String jobId, Node node, CommandStatus status) throws SerializeException {
+        byte[] jobIdBytes = jobId.getBytes(StandardCharsets.UTF_8);
+        byte[] statusBytes = status.name().getBytes(StandardCharsets.UTF_8);
 
+        byte[] nodeClassBytes = new byte[0];
+        byte[] nodeBytes = new byte[0];
+        if (node != null) {
+            nodeClassBytes = node.getClass().getName().getBytes(StandardCharsets.UTF_8);
+            try {
+                nodeBytes = smileMapper.writeValueAsBytes(node);
+            } catch (IOException e) {
+                throw new SerializeException(e);
+            }
+        }
+
+        byte[] bytes = new byte[1 + 4 + jobIdBytes.length + 1 + statusBytes.length + 2 + nodeClassBytes.length + 4 + nodeBytes.length];
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
         buf.clear();
+
+        buf.writeByte(BINARY_FORMAT);
+
+        buf.writeInt(jobIdBytes.length);
+        buf.writeBytes(jobIdBytes);
+
+        buf.writeByte(statusBytes.length);
+        buf.writeBytes(statusBytes);
+
+        buf.writeShort(nodeClassBytes.length);
+        buf.writeBytes(nodeClassBytes);
+
+        buf.writeInt(nodeBytes.length);
+        buf.writeBytes(nodeBytes);
+
         return bytes;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Command deserialize(byte[] source) throws DeserializeException {
+        if (source.length != 0 && source[0] == BINARY_FORMAT) {
+            return deserializeBinary(source);
+        }
+
+        return deserializeJson(source);
+    }
+
+    private Command deserializeBinary(byte[] source) throws DeserializeException {
         ByteBuf byteBuf = Unpooled.wrappedBuffer(source);
+        byteBuf.skipBytes(1);
 
-        //jobId
-        int jobIdLength = byteBuf.readInt();
-        ByteBuf buf = byteBuf.readBytes(jobIdLength);
-        byte[] jobIdBytes = new byte[jobIdLength];
-        buf.readBytes(jobIdBytes);
+        String jobId = readString(byteBuf, byteBuf.readInt());
+        CommandStatus commandStatus = CommandStatus.valueOf(readString(byteBuf, byteBuf.readUnsignedByte()));
+
+        Node node = null;
+        int nodeClassLength = byteBuf.readUnsignedShort();
+        if (nodeClassLength != 0) {
+            Class<Node> nodeClass = loadClass(readString(byteBuf, nodeClassLength));
+
+            int nodeLength = byteBuf.readInt();
+            try {
+                node = smileMapper.readValue(source, byteBuf.readerIndex(), nodeLength, nodeClass);
+            } catch (IOException e) {
+                throw new DeserializeException(e);
+            }
+        }
+
+        return new Command(jobId, node, commandStatus);
+    }
 
-        String jobId = new String(jobIdBytes, StandardCharsets.UTF_8);
+    private Command deserializeJson(byte[] source) throws DeserializeException {
+        ByteBuf byteBuf = Unpooled.wrappedBuffer(source);
+
+        //jobId
+        String jobId = readString(byteBuf, byteBuf.readInt());
 
         //node
+        Class<Node> nodeClass = null;
         int nodeClassLength = byteBuf.readInt();
-        String nodeClassName = null;
         if (nodeClassLength != 0) {
-            ByteBuf nodeClassBuf = byteBuf.readBytes(nodeClassLength);
-            byte[] nodeClassBytes = new byte[nodeClassLength];
-            nodeClassBuf.readBytes(nodeClassBytes);
-
-            nodeClassName = new String(nodeClassBytes, StandardCharsets.UTF_8);
-            cache.computeIfAbsent(nodeClassName, name -> {
-                try {
-                    return (Class<Node>) Class.forName(name);
-                } catch (ClassNotFoundException e) {
-                    logger.error("can not find this class, class name:{}", name);
-                    throw new RuntimeException(e);
-                }
-            });
-            nodeClassBuf.release();
+            nodeClass = loadClass(readString(byteBuf, nodeClassLength));
         }
 
         Node node = null;
         int nodeLength = byteBuf.readInt();
         if (nodeLength != 0) {
-            ByteBuf nodeBuf = byteBuf.readBytes(nodeLength);
-            byte[] nodeBytes = new byte[nodeLength];
-            nodeBuf.readBytes(nodeBytes);
-            node = deserializer.deserialize(nodeBytes, cache.get(nodeClassName));
-
-            nodeBuf.release();
+            int from = byteBuf.readerIndex();
+            node = deserializer.deserialize(Arrays.copyOfRange(source, from, from + nodeLength), nodeClass);
+            byteBuf.skipBytes(nodeLength);
         }
 
         //status
-        int statusLength = byteBuf.readInt();
-        ByteBuf statusBuf = byteBuf.readBytes(statusLength);
-        byte[] statusBytes = new byte[statusLength];
-        statusBuf.readBytes(statusBytes);
+        CommandStatus commandStatus = CommandStatus.valueOf(readString(byteBuf, byteBuf.readInt()));
 
-        String status = new String(statusBytes, StandardCharsets.UTF_8);
-        CommandStatus commandStatus = CommandStatus.valueOf(status);
+        return new Command(jobId, node, commandStatus);
+    }
 
-        byteBuf.release();
-        buf.release();
-        statusBuf.release();
+    //直接从源数组解码，不复制出中间的ByteBuf
+    private String readString(ByteBuf byteBuf, int length) {
+        String result = byteBuf.toString(byteBuf.readerIndex(), length, StandardCharsets.UTF_8);
+        byteBuf.skipBytes(length);
+        return result;
+    }
 
-        return new Command(jobId, node, commandStatus);
+    @SuppressWarnings("unchecked")
+    private Class<Node> loadClass(String nodeClassName) {
+        return cache.computeIfAbsent(nodeClassName, name -> {
+            try {
+                return (Class<Node>) Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                logger.error("can not find this class, class name:{}", name);
+                throw new RuntimeException(e);
+            }
+        });
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.alibaba.rsqldb.storage.api.serialize;
 
+import com.alibaba.rsqldb.common.RSQLConstant;
 import com.alibaba.rsqldb.parser.DefaultParser;
 import com.alibaba.rsqldb.parser.model.Node;
 import com.alibaba.rsqldb.parser.model.Operator;
@@ -23,17 +24,44 @@ import com.alibaba.rsqldb.parser.model.expression.Expression;
 import com.alibaba.rsqldb.parser.model.expression.SingleValueExpression;
 import com.alibaba.rsqldb.parser.model.statement.Statement;
 import com.alibaba.rsqldb.parser.model.statement.query.FilterQueryStatement;
+import com.alibaba.rsqldb.parser.model.statement.query.GroupByQueryStatement;
 import com.alibaba.rsqldb.storage.api.Command;
 import com.alibaba.rsqldb.storage.api.CommandStatus;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class DefaultCommandSerDeTest {
+    //升级前的DefaultCommandSerDe序列化的结果，不要重新生成
+    private static final String LEGACY_COMMAND =
+            "AAAABDEyMTMAAABFY29tLmFsaWJhYmEucnNxbGRiLnBhcnNlci5tb2RlbC5zdGF0ZW1lbnQucXVlcnkuR3JvdXBCeVF1ZXJ5U3Rh" +
+            "dGVtZW50AAADlHsiQHR5cGUiOiJncm91cEJ5UXVlcnlTdGF0ZW1lbnQiLCJjb250ZW50Ijoic2VsZWN0IHBvc2l0aW9uLCBjb3Vu" +
+            "dCgqKSBhcyBudW0gZnJvbSByb2NrZXRtcV9zb3VyY2Ugd2hlcmUgZmllbGRfMSA+IDEwIGdyb3VwIGJ5IHBvc2l0aW9uIGhhdmlu" +
+            "ZyBudW0gPiAyIiwidGFibGVOYW1lIjoicm9ja2V0bXFfc291cmNlIiwic2VsZWN0RmllbGRBbmRDYWxjdWxhdG9yIjp7ImNvbnRl" +
+            "bnQ9cG9zaXRpb25AdGFibGVOYW1lPUBmaWVsZE5hbWU9cG9zaXRpb25AYXNGaWVsZE5hbWU9IjpudWxsLCJjb250ZW50PWNvdW50" +
+            "KCopQHRhYmxlTmFtZT1AZmllbGROYW1lPSpAYXNGaWVsZE5hbWU9bnVtIjoiQ09VTlQifSwiZ3JvdXBCeUZpZWxkIjpbeyJjb250" +
+            "ZW50IjoicG9zaXRpb24iLCJ0YWJsZU5hbWUiOm51bGwsImZpZWxkTmFtZSI6InBvc2l0aW9uIiwiYXNGaWVsZE5hbWUiOm51bGx9" +
+            "XSwid2hlcmVFeHByZXNzaW9uIjp7IkB0eXBlIjoic2luZ2xlVmFsdWVFeHByZXNzaW9uIiwiY29udGVudCI6ImZpZWxkXzEgPiAx" +
+            "MCIsImZpZWxkIjp7ImNvbnRlbnQiOiJmaWVsZF8xIiwidGFibGVOYW1lIjpudWxsLCJmaWVsZE5hbWUiOiJmaWVsZF8xIiwiYXNG" +
+            "aWVsZE5hbWUiOm51bGx9LCJvcGVyYXRvciI6IkdSRUFURVIiLCJ2YWx1ZSI6eyJAdHlwZSI6Im51bWJlclR5cGUiLCJjb250ZW50" +
+            "IjoiMTAiLCJudW1iZXIiOjEwfX0sImhhdmluZ0V4cHJlc3Npb24iOnsiQHR5cGUiOiJzaW5nbGVWYWx1ZUV4cHJlc3Npb24iLCJj" +
+            "b250ZW50IjoibnVtID4gMiIsImZpZWxkIjp7ImNvbnRlbnQiOiJudW0iLCJ0YWJsZU5hbWUiOm51bGwsImZpZWxkTmFtZSI6Im51" +
+            "bSIsImFzRmllbGROYW1lIjpudWxsfSwib3BlcmF0b3IiOiJHUkVBVEVSIiwidmFsdWUiOnsiQHR5cGUiOiJudW1iZXJUeXBlIiwi" +
+            "Y29udGVudCI6IjIiLCJudW1iZXIiOjJ9fX0AAAAHUlVOTklORw==";
+    private static final String LEGACY_REMOVED =
+            "AAAABDEyMTQAAAAAAAAAAAAAAAdSRU1PVkVE";
+
     private DefaultCommandSerDe commandSerDe = new DefaultCommandSerDe();
 
     @Test
@@ -76,4 +104,89 @@ public class DefaultCommandSerDeTest {
         assertEquals("field_1", expression.getField().getFieldName());
         assertSame(Operator.EQUAL, expression.getOperator());
     }
+
+    @Test
+    public void legacyFormat() throws Throwable {
+        String sql = "select position, count(*) as num from rocketmq_source where field_1 > 10 group by position having num > 2;";
+        Statement statement = new DefaultParser().parseStatement(sql).get(0);
+        Command command = new Command("1213", statement, CommandStatus.RUNNING);
+
+        byte[] json = commandSerDe.serialize(command);
+        assertEquals(0, json[0]);
+        byte[] binary;
+        RSQLConstant.CommandFormat.BINARY = true;
+        try {
+            binary = commandSerDe.serialize(command);
+        } finally {
+            RSQLConstant.CommandFormat.BINARY = false;
+        }
+        assertTrue(binary.length < json.length);
+
+        //topic中已有的旧格式命令仍然可以读取
+        Command fromJson = commandSerDe.deserialize(json);
+        Command fromBinary = commandSerDe.deserialize(binary);
+        assertEquals(fromJson.getJobId(), fromBinary.getJobId());
+        assertSame(fromJson.getStatus(), fromBinary.getStatus());
+        assertSame(fromJson.getNode().getClass(), fromBinary.getNode().getClass());
+        assertEquals(fromJson.getNode().getContent(), fromBinary.getNode().getContent());
+        assertEquals(((Statement) fromJson.getNode()).getTableName(), ((Statement) fromBinary.getNode()).getTableName());
+
+        Command removed = commandSerDe.deserialize(commandSerDe.serialize(new Command("1213", null, CommandStatus.REMOVED)));
+        assertEquals("1213", removed.getJobId());
+        assertNull(removed.getNode());
+        assertSame(CommandStatus.REMOVED, removed.getStatus());
+    }
+
+    //升级前的版本写入的命令
+    @Test
+    public void frozenLegacyFrame() throws Throwable {
+        byte[] source = Base64.getDecoder().decode(LEGACY_COMMAND);
+        assertEquals(0, source[0]);
+
+        Command command = commandSerDe.deserialize(source);
+        assertEquals("1213", command.getJobId());
+        assertSame(CommandStatus.RUNNING, command.getStatus());
+        assertTrue(command.getNode() instanceof GroupByQueryStatement);
+
+        GroupByQueryStatement statement = (GroupByQueryStatement) command.getNode();
+        assertEquals("rocketmq_source", statement.getTableName());
+        assertEquals("select position, count(*) as num from rocketmq_source where field_1 > 10 group by position having num > 2",
+                statement.getContent());
+        assertEquals("position", statement.getGroupByField().get(0).getFieldName());
+        assertTrue(statement.getWhereExpression() instanceof SingleValueExpression);
+        assertNotNull(statement.getHavingExpression());
+
+        Command removed = commandSerDe.deserialize(Base64.getDecoder().decode(LEGACY_REMOVED));
+        assertEquals("1214", removed.getJobId());
+        assertNull(removed.getNode());
+        assertSame(CommandStatus.REMOVED, removed.getStatus());
+    }
+
+    @Test
+    public void concurrent() throws Throwable {
+        String sql = "select field_1, field_2 from rocketmq_source where field_1=23;";
+        Statement statement = new DefaultParser().parseStatement(sql).get(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String prefix = "job-" + i + "-";
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        Command target = commandSerDe.deserialize(commandSerDe.serialize(new Command(prefix + j, statement, CommandStatus.RUNNING)));
+                        assertEquals(prefix + j, target.getJobId());
+                        assertEquals("rocketmq_source", ((Statement) target.getNode()).getTableName());
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
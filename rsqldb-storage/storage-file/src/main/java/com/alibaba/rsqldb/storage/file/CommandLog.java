@@ -0,0 +1,279 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.storage.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加写的命令日志，通过内存映射文件读写。
+ * <p>
+ * 记录格式：length(int) crc32(int) removed(byte) jobIdLength(int) jobId body，length为crc32之后的字节数。
+ * 文件写满时，如果有效记录不到一半则压缩（只保留每个jobId最新的记录），否则扩容。
+ */
+public class CommandLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CommandLog.class);
+
+    private static final int HEADER_SIZE = 8;
+
+    private final File file;
+    private final int initialSize;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private boolean dirty;
+
+    //每个jobId最新的命令消息体，按最后更新的顺序排列
+    private final LinkedHashMap<String/*jobId*/, byte[]> latest = new LinkedHashMap<>();
+    private long liveBytes;
+
+    public CommandLog(File file, int initialSize) {
+        this.file = file;
+        this.initialSize = initialSize;
+    }
+
+    /**
+     * 打开日志并回放，返回每个jobId最新的命令消息体，已删除的job不返回；末尾写了一半的记录会被丢弃。
+     */
+    public synchronized LinkedHashMap<String, byte[]> load() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("can not create command log dir: " + parent);
+        }
+
+        map(file);
+
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            ByteBuffer payload = slice(position + HEADER_SIZE, length);
+            CRC32 crc32 = new CRC32();
+            crc32.update(payload.duplicate());
+            if ((int) crc32.getValue() != buffer.getInt(position + 4)) {
+                logger.warn("crc of command log mismatched at position:{}, discard the rest. file:{}", position, file);
+                break;
+            }
+
+            boolean removed = payload.get() == 1;
+            byte[] jobId = new byte[payload.getInt()];
+            payload.get(jobId);
+            byte[] body = new byte[payload.remaining()];
+            payload.get(body);
+
+            apply(new String(jobId, StandardCharsets.UTF_8), removed ? null : body);
+            position += HEADER_SIZE + length;
+        }
+
+        //position之后可能是不完整的记录，也可能是更早写入的有效记录，全部清零，避免之后追加的记录与其对齐后被回放
+        clearFrom(position);
+
+        logger.info("load {} commands from command log, file:{}, size:{}", latest.size(), file, position);
+        return new LinkedHashMap<>(latest);
+    }
+
+    /**
+     * @param body 为null时表示删除该jobId
+     */
+    public synchronized void append(String jobId, byte[] body) throws IOException {
+        byte[] jobIdBytes = jobId.getBytes(StandardCharsets.UTF_8);
+        int recordSize = recordSize(jobIdBytes, body);
+
+        if (position + recordSize > buffer.capacity()) {
+            long newLive = liveBytes + recordSize;
+            if (newLive * 2 <= buffer.capacity()) {
+                compact();
+            }
+            if (position + recordSize > buffer.capacity()) {
+                grow((long) position + recordSize);
+            }
+        }
+
+        position = write(buffer, position, jobIdBytes, body);
+        apply(jobId, body);
+        dirty = true;
+    }
+
+    public synchronized void flush() {
+        if (dirty && buffer != null) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            flush();
+            unmap(buffer);
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void apply(String jobId, byte[] body) {
+        byte[] old = latest.remove(jobId);
+        if (old != null) {
+            liveBytes -= recordSize(jobId.getBytes(StandardCharsets.UTF_8), old);
+        }
+        if (body != null) {
+            latest.put(jobId, body);
+            liveBytes += recordSize(jobId.getBytes(StandardCharsets.UTF_8), body);
+        }
+    }
+
+    //只保留每个jobId最新的记录，写入临时文件后替换原文件
+    private void compact() throws IOException {
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".compact");
+        int newPosition = 0;
+        try (FileChannel tempChannel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer tempBuffer = tempChannel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.capacity());
+            for (Map.Entry<String, byte[]> entry : latest.entrySet()) {
+                newPosition = write(tempBuffer, newPosition, entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+            }
+            tempBuffer.force();
+            unmap(tempBuffer);
+        }
+
+        logger.info("compact command log from {} to {} bytes, file:{}", position, newPosition, file);
+        MappedByteBuffer old = buffer;
+        channel.close();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map(file);
+        unmap(old);
+
+        position = newPosition;
+        dirty = false;
+    }
+
+    private void grow(long required) throws IOException {
+        long capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("command log is too large, required:" + required);
+        }
+
+        MappedByteBuffer old = buffer;
+        old.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        unmap(old);
+    }
+
+    private void clearFrom(int from) {
+        boolean cleared = false;
+        for (int i = from; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                cleared = true;
+            }
+        }
+
+        if (cleared) {
+            logger.warn("clear command log from position:{}, file:{}", from, file);
+            buffer.force();
+        }
+    }
+
+    //旧的映射不再使用后立即释放，不等待GC
+    private static void unmap(MappedByteBuffer target) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            try {
+                //jdk9及以上
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                invokeCleaner.invoke(theUnsafe.get(null), target);
+            } catch (NoSuchMethodException e) {
+                //jdk8
+                Method cleanerMethod = target.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(target);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (Throwable t) {
+            logger.warn("unmap command log buffer error, leave it to gc.", t);
+        }
+    }
+
+    private void map(File target) throws IOException {
+        channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), initialSize);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        position = 0;
+    }
+
+    private ByteBuffer slice(int from, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(from);
+        duplicate.limit(from + length);
+        return duplicate.slice();
+    }
+
+    private static int write(ByteBuffer target, int at, byte[] jobId, byte[] body) {
+        int length = recordSize(jobId, body) - HEADER_SIZE;
+
+        ByteBuffer record = target.duplicate();
+        record.position(at + HEADER_SIZE);
+        record.put(body == null ? (byte) 1 : (byte) 0);
+        record.putInt(jobId.length);
+        record.put(jobId);
+        if (body != null) {
+            record.put(body);
+        }
+
+        ByteBuffer payload = target.duplicate();
+        payload.position(at + HEADER_SIZE);
+        payload.limit(at + HEADER_SIZE + length);
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+
+        //最后写入长度，长度为0的位置被视为日志末尾
+        target.putInt(at + 4, (int) crc32.getValue());
+        target.putInt(at, length);
+
+        return at + HEADER_SIZE + length;
+    }
+
+    private static int recordSize(byte[] jobId, byte[] body) {
+        return HEADER_SIZE + 1 + 4 + jobId.length + (body == null ? 0 : body.length);
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.storage.file;
+
+import com.alibaba.rsqldb.common.RSQLConstant;
+import com.alibaba.rsqldb.common.exception.RSQLServerException;
+import com.alibaba.rsqldb.parser.model.Node;
+import com.alibaba.rsqldb.parser.model.statement.CreateTableStatement;
+import com.alibaba.rsqldb.parser.model.statement.CreateViewStatement;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.storage.api.CallBack;
+import com.alibaba.rsqldb.storage.api.Command;
+import com.alibaba.rsqldb.storage.api.CommandQueue;
+import com.alibaba.rsqldb.storage.api.CommandSerDe;
+import com.alibaba.rsqldb.storage.api.CommandStatus;
+import com.alibaba.rsqldb.storage.api.CommandWrapper;
+import com.alibaba.rsqldb.storage.api.serialize.DefaultCommandSerDe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于本地命令日志的CommandQueue，不依赖RocketMQ，适用于单机部署和测试。
+ * 命令追加到日志后立即可被消费，日志按固定间隔刷盘；间隔小于等于0时每次追加都刷盘。
+ */
+public class FileStorage implements CommandQueue {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorage.class);
+
+    private final CommandSerDe commandSerDe = new DefaultCommandSerDe();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rsqldb-command-log-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CommandLog commandLog;
+    private long flushIntervalMs;
+
+    private final LinkedBlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String/*tableName*/, Statement> tableCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/*jobId*/, CompletableFuture<Throwable>> preCommandMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/*jobId*/, Command> commandMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void start(Properties properties) {
+        String dir = properties.getProperty(RSQLConstant.FileStorage.DIR,
+                System.getProperty("user.home") + File.separator + "rsqldb" + File.separator + "command");
+        int initialSize = Integer.parseInt(properties.getProperty(RSQLConstant.FileStorage.INITIAL_SIZE, String.valueOf(4 * 1024 * 1024)));
+        this.flushIntervalMs = Long.parseLong(properties.getProperty(RSQLConstant.FileStorage.FLUSH_INTERVAL_MS, "100"));
+
+        this.commandLog = new CommandLog(new File(dir, "command.log"), initialSize);
+
+        if (flushIntervalMs > 0) {
+            flusher.scheduleWithFixedDelay(commandLog::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> restore() throws Throwable {
+        //日志中每个jobId只恢复最新的命令，按日志顺序重新执行
+        for (byte[] body : commandLog.load().values()) {
+            Command command = commandSerDe.deserialize(body);
+            saveTable(command);
+            commands.add(command);
+        }
+
+        CompletableFuture<Boolean> completableFuture = new CompletableFuture<>();
+        completableFuture.complete(true);
+        return completableFuture;
+    }
+
+    @Override
+    public CompletableFuture<Throwable> putCommand(Command command) throws Throwable {
+        checkExist(command);
+
+        String jobId = command.getJobId();
+
+        CompletableFuture<Throwable> completableFuture = new CompletableFuture<>();
+        CompletableFuture<Throwable> oldFuture = this.preCommandMap.put(jobId, completableFuture);
+        if (oldFuture != null) {
+            logger.warn("find uncompleted completableFuture, completed it.");
+            oldFuture.complete(null);
+        }
+
+        try {
+            byte[] bytes = commandSerDe.serialize(command);
+
+            //保证日志中的顺序与消费顺序一致
+            synchronized (this) {
+                commandLog.append(jobId, command.getStatus() == CommandStatus.REMOVED ? null : bytes);
+                if (flushIntervalMs <= 0) {
+                    commandLog.flush();
+                }
+                commands.add(command);
+            }
+
+            logger.info("put statement into command log with jobId:[{}], command:[{}], status:[{}]",
+                    jobId, command.getNode() == null ? null : command.getNode().getContent(), command.getStatus());
+        } catch (Throwable e) {
+            this.preCommandMap.remove(jobId, completableFuture);
+            throw new RSQLServerException("put sql to command log error.", e);
+        }
+
+        return completableFuture;
+    }
+
+    //整批追加到日志后只刷一次盘
+    @Override
+    public CompletableFuture<Throwable> putCommands(List<Command> commands) throws Throwable {
+        HashSet<String> jobIds = new HashSet<>();
+        for (Command command : commands) {
+            checkExist(command);
+            if (!jobIds.add(command.getJobId())) {
+                throw new RSQLServerException("repeated jobId in one batch, jobId:" + command.getJobId());
+            }
+        }
+
+        List<byte[]> bodies = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            bodies.add(command.getStatus() == CommandStatus.REMOVED ? null : commandSerDe.serialize(command));
+        }
+
+        List<CompletableFuture<Throwable>> futures = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            CompletableFuture<Throwable> completableFuture = new CompletableFuture<>();
+            CompletableFuture<Throwable> oldFuture = this.preCommandMap.put(command.getJobId(), completableFuture);
+            if (oldFuture != null) {
+                logger.warn("find uncompleted completableFuture, completed it.");
+                oldFuture.complete(null);
+            }
+            futures.add(completableFuture);
+        }
+
+        int appended = 0;
+        try {
+            synchronized (this) {
+                try {
+                    for (; appended < commands.size(); appended++) {
+                        commandLog.append(commands.get(appended).getJobId(), bodies.get(appended));
+                    }
+                } finally {
+                    //已经写入日志的命令照常执行
+                    this.commands.addAll(commands.subList(0, appended));
+                    if (flushIntervalMs <= 0) {
+                        commandLog.flush();
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            for (int i = appended; i < commands.size(); i++) {
+                this.preCommandMap.remove(commands.get(i).getJobId(), futures.get(i));
+            }
+            throw new RSQLServerException("put sql to command log error.", e);
+        }
+
+        logger.info("put {} statements into command log in batch, jobIds:{}", commands.size(), jobIds);
+        return CommandQueue.allOf(futures);
+    }
+
+    private void checkExist(Command command) {
+        String jobId = command.getJobId();
+        Command tempCommand = commandMap.get(jobId);
+
+        if (tempCommand != null && tempCommand.getStatus() == command.getStatus()) {
+            String format = String.format("exist a command has same jobId and status in commandMap, not executed yet, exist command:[%s].", tempCommand);
+            logger.error(format);
+            throw new RSQLServerException(format);
+        }
+
+        if (preCommandMap.containsKey(jobId)) {
+            String format = String.format("exist a command with same jobId, not executed yet, jobId:[%s].", jobId);
+            logger.error(format);
+            throw new RSQLServerException(format);
+        }
+    }
+
+    @Override
+    public CommandWrapper getNextCommand() throws Throwable {
+        Command command = commands.poll(10, TimeUnit.MILLISECONDS);
+        if (command == null) {
+            return null;
+        }
+
+        saveTable(command);
+
+        CompletableFuture<Throwable> future = this.preCommandMap.remove(command.getJobId());
+        if (future == null) {
+            //恢复的命令
+            future = new CompletableFuture<>();
+        }
+
+        return new CommandWrapper(command, new FileCallBack(future));
+    }
+
+    private void saveTable(Command command) {
+        Node node = command.getNode();
+
+        //保存到本地内存
+        if (node instanceof CreateTableStatement || node instanceof CreateViewStatement) {
+            Statement statement = (Statement) node;
+            tableCache.put(statement.getTableName(), statement);
+        }
+    }
+
+    private void commitStatus(String jobId, Command command) {
+        if (command.getStatus() == CommandStatus.REMOVED) {
+            Command remove = this.commandMap.remove(jobId);
+            if (remove != null) {
+                logger.info("remove command from cache, command:[{}]", remove);
+                Node node = remove.getNode();
+                if (node instanceof CreateTableStatement || node instanceof CreateViewStatement) {
+                    String tableName = ((Statement) node).getTableName();
+                    if (this.tableCache.remove(tableName) != null) {
+                        logger.warn("remove table from cache. tableName:{}", tableName);
+                    }
+                }
+            }
+            return;
+        }
+
+        Command old = this.commandMap.put(jobId, command);
+        if (old != null) {
+            logger.info("change command, jobId:{}, status from:[{}] to:[{}]", jobId, old.getStatus(), command.getStatus());
+        }
+    }
+
+    @Override
+    public Statement findTable(String tableName) {
+        Statement statement = tableCache.get(tableName);
+        if (statement != null) {
+            return statement;
+        }
+
+        throw new RSQLServerException("Statement with tableName=" + tableName + " not exist.");
+    }
+
+    @Override
+    public Command queryStatus(String jobId) {
+        Command command = this.commandMap.get(jobId);
+        if (command != null) {
+            return command;
+        }
+
+        CompletableFuture<Throwable> future = this.preCommandMap.get(jobId);
+        try {
+            if (future != null) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } catch (Throwable ignored) {
+        }
+
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<Command> queryStatusAsync(String jobId) {
+        Command command = this.commandMap.get(jobId);
+        CompletableFuture<Throwable> future = this.preCommandMap.get(jobId);
+        if (command != null || future == null) {
+            CompletableFuture<Command> result = new CompletableFuture<>();
+            result.complete(command);
+            return result;
+        }
+
+        //回调中先提交状态再完成future
+        return future.handle((error, t) -> this.commandMap.get(jobId));
+    }
+
+    @Override
+    public List<Command> queryStatus() {
+        return new ArrayList<>(commandMap.values());
+    }
+
+    @Override
+    public CompletableFuture<Throwable> delete(String jobId) throws Throwable {
+        Command command = new Command(jobId, null, CommandStatus.REMOVED);
+
+        return this.putCommand(command);
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.flusher.shutdown();
+        this.commandLog.close();
+    }
+
+    private class FileCallBack implements CallBack {
+        private final CompletableFuture<Throwable> completableFuture;
+
+        FileCallBack(CompletableFuture<Throwable> completableFuture) {
+            this.completableFuture = completableFuture;
+        }
+
+        @Override
+        public void onCompleted(String jobId, Command command) {
+            commitStatus(jobId, command);
+            completableFuture.complete(null);
+        }
+
+        @Override
+        public void onError(String jobId, Command command, Throwable attachment) {
+            commitStatus(jobId, command);
+            completableFuture.complete(attachment);
+        }
+    }
+}
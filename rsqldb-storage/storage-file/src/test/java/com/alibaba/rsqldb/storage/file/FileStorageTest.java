@@ -0,0 +1,182 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.storage.file;
+
+import com.alibaba.rsqldb.common.RSQLConstant;
+import com.alibaba.rsqldb.common.exception.RSQLServerException;
+import com.alibaba.rsqldb.parser.DefaultParser;
+import com.alibaba.rsqldb.parser.model.statement.CreateTableStatement;
+import com.alibaba.rsqldb.parser.model.statement.Statement;
+import com.alibaba.rsqldb.storage.api.Command;
+import com.alibaba.rsqldb.storage.api.CommandStatus;
+import com.alibaba.rsqldb.storage.api.CommandWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FileStorageTest {
+    private static final String createTable = "create table odeum(`id` INT,`name` VARCHAR, `gmt_modified` TIMESTAMP) WITH (topic = 'rsqldb-odeum', data_format='JSON');";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileStorage start() throws Throwable {
+        Properties properties = new Properties();
+        properties.setProperty(RSQLConstant.FileStorage.DIR, folder.getRoot().getAbsolutePath());
+        properties.setProperty(RSQLConstant.FileStorage.INITIAL_SIZE, "1024");
+
+        FileStorage storage = new FileStorage();
+        storage.start(properties);
+        assertTrue(storage.restore().get());
+        return storage;
+    }
+
+    @Test
+    public void restore() throws Throwable {
+        Statement statement = new DefaultParser().parseStatement(createTable).get(0);
+
+        FileStorage storage = start();
+        CompletableFuture<Throwable> future = storage.putCommand(new Command("1", statement, CommandStatus.RUNNING));
+        CommandWrapper first = storage.getNextCommand();
+        first.getCallBack().onCompleted("1", first.getCommand());
+        assertNull(future.get());
+
+        //多次写入，触发扩容和压缩
+        for (int i = 0; i < 100; i++) {
+            storage.putCommand(new Command("2", statement, CommandStatus.RUNNING));
+            storage.getNextCommand().getCallBack().onCompleted("2", new Command("2", statement, CommandStatus.RUNNING));
+            storage.delete("2");
+            storage.getNextCommand().getCallBack().onCompleted("2", new Command("2", null, CommandStatus.REMOVED));
+        }
+        storage.close();
+
+        storage = start();
+        CommandWrapper wrapper = storage.getNextCommand();
+        assertEquals("1", wrapper.getCommand().getJobId());
+        assertTrue(wrapper.getCommand().getNode() instanceof CreateTableStatement);
+        assertEquals("odeum", storage.findTable("odeum").getTableName());
+        assertNull(storage.getNextCommand());
+
+        storage.delete("1");
+        storage.close();
+
+        storage = start();
+        assertNull(storage.getNextCommand());
+        storage.close();
+    }
+
+    @Test
+    public void putCommands() throws Throwable {
+        Statement statement = new DefaultParser().parseStatement(createTable).get(0);
+
+        FileStorage storage = start();
+        try {
+            storage.putCommands(Arrays.asList(new Command("1", statement, CommandStatus.RUNNING), new Command("1", statement, CommandStatus.RUNNING)));
+            throw new AssertionError("repeated jobId should be rejected.");
+        } catch (RSQLServerException expected) {
+        }
+
+        CompletableFuture<Throwable> future = storage.putCommands(Arrays.asList(
+                new Command("1", statement, CommandStatus.RUNNING),
+                new Command("2", statement, CommandStatus.RUNNING)));
+
+        CommandWrapper first = storage.getNextCommand();
+        assertEquals("1", first.getCommand().getJobId());
+        first.getCallBack().onCompleted("1", first.getCommand());
+        assertFalse(future.isDone());
+
+        RuntimeException error = new RuntimeException("start failed.");
+        CommandWrapper second = storage.getNextCommand();
+        assertEquals("2", second.getCommand().getJobId());
+        second.getCallBack().onError("2", second.getCommand(), error);
+        assertSame(error, future.get());
+        storage.close();
+    }
+
+    @Test
+    public void discardTornRecord() throws Throwable {
+        File file = new File(folder.getRoot(), "command.log");
+        CommandLog log = new CommandLog(file, 1024);
+        log.load();
+        log.append("1", new byte[]{1, 2, 3});
+        log.append("2", new byte[]{4, 5, 6});
+        log.close();
+
+        //破坏第二条记录
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(30);
+            raf.write(9);
+        }
+
+        log = new CommandLog(file, 1024);
+        LinkedHashMap<String, byte[]> latest = log.load();
+        assertEquals(1, latest.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, latest.get("1"));
+
+        log.append("3", new byte[]{7});
+        log.close();
+
+        log = new CommandLog(file, 1024);
+        latest = log.load();
+        assertEquals(2, latest.size());
+        assertArrayEquals(new byte[]{7}, latest.get("3"));
+        log.close();
+    }
+
+    @Test
+    public void clearAfterCorruptedRecord() throws Throwable {
+        File file = new File(folder.getRoot(), "command.log");
+        CommandLog log = new CommandLog(file, 1024);
+        log.load();
+        log.append("1", new byte[]{1, 2, 3});
+        log.append("2", new byte[]{4, 5, 6});
+        log.append("3", new byte[]{7, 8, 9});
+        log.close();
+
+        //破坏第二条记录，第三条记录仍然完整
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(30);
+            raf.write(9);
+        }
+
+        log = new CommandLog(file, 1024);
+        assertEquals(1, log.load().size());
+
+        //与第二条记录等长，追加后正好与第三条记录对齐
+        log.append("4", new byte[]{1, 1, 1});
+        log.close();
+
+        log = new CommandLog(file, 1024);
+        LinkedHashMap<String, byte[]> latest = log.load();
+        assertEquals(Arrays.asList("1", "4"), new ArrayList<>(latest.keySet()));
+        log.close();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.storage.rocketmq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 命令topic的本地快照：每个jobId最新的命令消息体，以及快照对应的下一个消费位点。重启时加载快照，只回放位点之后的消息。
+ * <p>
+ * 格式：magic(int) version(int) identityLength(int) identity nextOffset(long) count(int) [jobIdLength(int) jobId bodyLength(int) body]... crc32(long)
+ * <p>
+ * identity标识命令topic所在的集群、namespace和topic，文件名也按identity区分，连接到其他集群的同名topic时不会加载这个快照。
+ */
+public class CommandSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(CommandSnapshot.class);
+
+    private static final int MAGIC = 0x52534e50;
+    private static final int VERSION = 2;
+
+    private final File file;
+    private final String identity;
+
+    public CommandSnapshot(File dir, String topicName, String identity) {
+        this.file = new File(dir, topicName + "-" + Integer.toHexString(identity.hashCode()) + ".snapshot");
+        this.identity = identity;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void write(long nextOffset, Map<String/*jobId*/, byte[]> commands) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        byte[] identityBytes = identity.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(identityBytes.length);
+        out.write(identityBytes);
+        out.writeLong(nextOffset);
+        out.writeInt(commands.size());
+        for (Map.Entry<String, byte[]> entry : commands.entrySet()) {
+            byte[] jobId = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(jobId.length);
+            out.write(jobId);
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes.toByteArray());
+        out.writeLong(crc32.getValue());
+        out.flush();
+
+        //先写临时文件再替换，进程中途退出时不会留下不完整的快照
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("can not create snapshot dir: " + parent);
+        }
+        File temp = new File(parent, file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param minOffset 命令topic当前的最小位点
+     * @param maxOffset 命令topic当前的最大位点
+     * @return 快照不存在、已损坏、属于其他集群或位点不在[minOffset, maxOffset]内时返回null
+     */
+    public Content read(long minOffset, long maxOffset) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int crcPosition = buffer.limit() - Long.BYTES;
+            if (crcPosition < 0) {
+                logger.warn("command snapshot is truncated, ignore it. file:{}", file);
+                return null;
+            }
+            CRC32 crc32 = new CRC32();
+            ByteBuffer data = buffer.duplicate();
+            data.limit(crcPosition);
+            crc32.update(data);
+            if (crc32.getValue() != buffer.getLong(crcPosition)) {
+                logger.warn("crc of command snapshot mismatched, ignore it. file:{}", file);
+                return null;
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("unknown command snapshot format, ignore it. file:{}", file);
+                return null;
+            }
+
+            byte[] identityBytes = new byte[buffer.getInt()];
+            buffer.get(identityBytes);
+            String snapshotIdentity = new String(identityBytes, StandardCharsets.UTF_8);
+            if (!identity.equals(snapshotIdentity)) {
+                logger.warn("command snapshot belongs to [{}], not [{}], ignore it. file:{}", snapshotIdentity, identity, file);
+                return null;
+            }
+
+            long nextOffset = buffer.getLong();
+            if (nextOffset < minOffset || nextOffset > maxOffset) {
+                logger.warn("offset of command snapshot is out of range [{}, {}], ignore it. offset:{}, file:{}",
+                        minOffset, maxOffset, nextOffset, file);
+                return null;
+            }
+
+            int count = buffer.getInt();
+            LinkedHashMap<String, byte[]> commands = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                byte[] jobId = new byte[buffer.getInt()];
+                buffer.get(jobId);
+                byte[] body = new byte[buffer.getInt()];
+                buffer.get(body);
+                commands.put(new String(jobId, StandardCharsets.UTF_8), body);
+            }
+
+            return new Content(nextOffset, commands);
+        } catch (IOException | BufferUnderflowException | NegativeArraySizeException e) {
+            logger.warn("read command snapshot error, ignore it. file:{}", file, e);
+            return null;
+        }
+    }
+
+    public static class Content {
+        private final long nextOffset;
+        private final LinkedHashMap<String/*jobId*/, byte[]> commands;
+
+        public Content(long nextOffset, LinkedHashMap<String, byte[]> commands) {
+            this.nextOffset = nextOffset;
+            this.commands = commands;
+        }
+
+        public long getNextOffset() {
+            return nextOffset;
+        }
+
+        public LinkedHashMap<String, byte[]> getCommands() {
+            return commands;
+        }
+    }
+}
@@ -43,21 +43,20 @@ public class RocketMQCallBack implements CallBack {
 
     @Override
     public void onCompleted(String jobId, Command command) {
-        completableFuture.complete(null);
-
         if (offsetCommit != null) {
             offsetCommit.run();
         }
 
+        //先提交状态，等待future的调用方可以读到最新状态
         if (statusCommit != null) {
             statusCommit.accept(jobId, command);
         }
+
+        completableFuture.complete(null);
     }
 
     @Override
     public void onError(String jobId, Command command, Throwable attachment) {
-        completableFuture.complete(attachment);
-
         if (offsetCommit != null) {
             logger.error("skip jobId:{} and commit offset.", jobId);
             offsetCommit.run();
@@ -66,5 +65,7 @@ public class RocketMQCallBack implements CallBack {
         if (statusCommit != null) {
             statusCommit.accept(jobId, command);
         }
+
+        completableFuture.complete(attachment);
     }
 }
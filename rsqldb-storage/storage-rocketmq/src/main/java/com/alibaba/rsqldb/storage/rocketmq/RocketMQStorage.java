@@ -45,9 +45,12 @@ import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -56,13 +59,15 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 
 public class RocketMQStorage implements CommandQueue {
     private static final Logger logger = LoggerFactory.getLogger(RocketMQStorage.class);
     private static final String LOCAL_IP = UtilAll.ipToIPv4Str(UtilAll.getIP());
+    //单次批量发送的大小上限，小于broker默认的4M
+    private static final int MAX_BATCH_BYTES = 1024 * 1024;
 
     private RocketMQClient rocketMQClient;
     private String topicName;
@@ -79,6 +84,17 @@ public class RocketMQStorage implements CommandQueue {
     private final ConcurrentHashMap<String/*jobId*/, Command> commandMap = new ConcurrentHashMap<>();
     private final LinkedList<Command> restoreCommand = new LinkedList<>();
 
+    //命令topic中每个jobId最新的命令消息体，按最后更新的顺序排列，是快照的内容
+    private final LinkedHashMap<String/*jobId*/, byte[]> latestCommands = new LinkedHashMap<>();
+    private long nextOffset = 0;
+    private volatile long snapshotOffset = -1;
+    private CommandSnapshot snapshot;
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rsqldb-command-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public void start(Properties properties) {
         String namesrv = properties.getProperty(RSQLConstant.RocketMQ.NAMESRV_ADDR);
@@ -90,6 +106,8 @@ public class RocketMQStorage implements CommandQueue {
         topicName = RSQLConstant.RocketMQ.SQL_TOPIC_NAME;
 
         build(namesrv, groupName);
+        snapshot = new CommandSnapshot(new File(RSQLConstant.RocketMQ.SNAPSHOT_DIR), topicName,
+                identity(namesrv, pullConsumer.getNamespace(), topicName));
 
         try {
             //创建逻辑分区数为1的topic，确保命令先进先出地执行。
@@ -108,6 +126,17 @@ public class RocketMQStorage implements CommandQueue {
         }
     }
 
+    //同一集群的namesrv地址顺序可能不同，排序后再比较
+    static String identity(String namesrv, String namespace, String topicName) {
+        String[] addresses = namesrv.split(";");
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = addresses[i].trim();
+        }
+        Arrays.sort(addresses);
+
+        return "namesrv=" + String.join(";", addresses) + ",namespace=" + StringUtils.defaultString(namespace) + ",topic=" + topicName;
+    }
+
     public void build(String namesrv, String groupName) {
         rocketMQClient = new RocketMQClient(namesrv);
 
@@ -127,23 +156,33 @@ public class RocketMQStorage implements CommandQueue {
 
     @Override
     public CompletableFuture<Boolean> restore() throws Throwable {
-        //恢复command topic中所有的命令到本地，存储建表语句
+        //恢复command topic中所有的命令到本地，存储建表语句；有本地快照时只回放快照之后的消息
         pullConsumer.setPullBatchSize(1000);
         pullConsumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_FIRST_OFFSET);
         pullConsumer.assign(commandMessageQueue);
-        pullConsumer.seekToBegin((MessageQueue) commandMessageQueue.toArray()[0]);
+        MessageQueue messageQueue = (MessageQueue) commandMessageQueue.toArray()[0];
+        if (!seekToSnapshot(messageQueue)) {
+            pullConsumer.seekToBegin(messageQueue);
+        }
 
         CompletableFuture<Boolean> completableFuture = new CompletableFuture<>();
 
         this.executor.submit(() -> {
             try {
                 pullToLast();
+                restoreFromLatest();
                 //pull into cache, but not execute the job，It not sure if that job will be executed success.
                 //if not, it will be skipped.
                 //if the ser-de changed, the pullToLast will raise exception, and not commit the offset.
                 commit();
                 pullConsumer.setPullBatchSize(1);
 
+                takeSnapshot();
+                if (RSQLConstant.RocketMQ.SNAPSHOT_INTERVAL_MS > 0) {
+                    long interval = RSQLConstant.RocketMQ.SNAPSHOT_INTERVAL_MS;
+                    snapshotExecutor.scheduleWithFixedDelay(this::takeSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+                }
+
                 completableFuture.complete(true);
             } catch (Throwable t) {
                 completableFuture.complete(false);
@@ -176,9 +215,7 @@ public class RocketMQStorage implements CommandQueue {
         }
 
         try {
-            Message message = new Message(topicName, bytes);
-            message.setKeys(jobId);
-            message.putUserProperty(RSQLConstant.BODY_TYPE, command.getClass().getName());
+            Message message = toMessage(jobId, bytes);
 
             logger.info("put statement into rocketmq command topic:{} with jobId:[{}], command:[{}], status:[{}]",
                     topicName, jobId, command.getNode() == null ? null : command.getNode().getContent(), command.getStatus());
@@ -191,6 +228,76 @@ public class RocketMQStorage implements CommandQueue {
         return completableFuture;
     }
 
+    /**
+     * 整批校验后再发送，单个队列上批量消息的顺序与提交顺序一致
+     */
+    @Override
+    public CompletableFuture<Throwable> putCommands(List<Command> commands) throws Throwable {
+        HashSet<String> jobIds = new HashSet<>();
+        for (Command command : commands) {
+            checkExist(command);
+            if (!jobIds.add(command.getJobId())) {
+                throw new RSQLServerException("repeated jobId in one batch, jobId:" + command.getJobId());
+            }
+        }
+
+        List<Message> messages = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            messages.add(toMessage(command.getJobId(), commandSerDe.serialize(command)));
+        }
+
+        List<CompletableFuture<Throwable>> futures = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            CompletableFuture<Throwable> completableFuture = new CompletableFuture<>();
+            CompletableFuture<Throwable> oldFuture = this.preCommandMap.put(command.getJobId(), completableFuture);
+            if (oldFuture != null) {
+                logger.warn("find uncompleted completableFuture, completed it.");
+                oldFuture.complete(null);
+            }
+            futures.add(completableFuture);
+        }
+
+        int from = 0;
+        try {
+            long batchSize = 0;
+            for (int i = 0; i < messages.size(); i++) {
+                int size = messageSize(messages.get(i));
+                if (i > from && batchSize + size > MAX_BATCH_BYTES) {
+                    producer.send(messages.subList(from, i));
+                    from = i;
+                    batchSize = 0;
+                }
+                batchSize += size;
+            }
+            producer.send(messages.subList(from, messages.size()));
+        } catch (Throwable e) {
+            //未发送成功的命令不再等待执行
+            for (int i = from; i < commands.size(); i++) {
+                this.preCommandMap.remove(commands.get(i).getJobId(), futures.get(i));
+            }
+            throw new RSQLServerException("put sql to command topic error.", e);
+        }
+
+        logger.info("put {} statements into rocketmq command topic:{} in batch, jobIds:{}", commands.size(), topicName, jobIds);
+        return CommandQueue.allOf(futures);
+    }
+
+    private Message toMessage(String jobId, byte[] bytes) {
+        Message message = new Message(topicName, bytes);
+        message.setKeys(jobId);
+        message.putUserProperty(RSQLConstant.BODY_TYPE, Command.class.getName());
+        return message;
+    }
+
+    //与MessageBatch编码后的大小近似，不需要精确
+    private static int messageSize(Message message) {
+        int size = message.getTopic().length() + message.getBody().length + 64;
+        for (Map.Entry<String, String> entry : message.getProperties().entrySet()) {
+            size += entry.getKey().length() + entry.getValue().length() + 2;
+        }
+        return size;
+    }
+
     private boolean checkExist(Command command) throws Throwable {
         String jobId = command.getJobId();
         Command tempCommand = commandMap.get(jobId);
@@ -229,7 +336,9 @@ public class RocketMQStorage implements CommandQueue {
             return null;
         }
 
-        Command command = deserializeAndSaveTable(messageExt);
+        Command command = deserialize(messageExt.getUserProperty(RSQLConstant.BODY_TYPE), messageExt.getBody());
+        saveTable(command);
+        record(messageExt, command);
         String jobId = command.getJobId();
 
         CompletableFuture<Throwable> remove = this.preCommandMap.remove(jobId);
@@ -321,6 +430,20 @@ public class RocketMQStorage implements CommandQueue {
         return null;
     }
 
+    @Override
+    public CompletableFuture<Command> queryStatusAsync(String jobId) {
+        Command command = this.commandMap.get(jobId);
+        CompletableFuture<Throwable> future = this.preCommandMap.get(jobId);
+        if (command != null || future == null) {
+            CompletableFuture<Command> result = new CompletableFuture<>();
+            result.complete(command);
+            return result;
+        }
+
+        //回调中先提交状态再完成future
+        return future.handle((error, t) -> this.commandMap.get(jobId));
+    }
+
     @Override
     public List<Command> queryStatus() {
         List<Command> result = new ArrayList<>();
@@ -342,6 +465,10 @@ public class RocketMQStorage implements CommandQueue {
 
     @Override
     public void close() throws Exception {
+        this.snapshotExecutor.shutdown();
+        if (this.snapshotOffset >= 0) {
+            takeSnapshot();
+        }
         this.producer.shutdown();
         this.pullConsumer.shutdown();
         this.mqAdmin.shutdown();
@@ -381,35 +508,97 @@ public class RocketMQStorage implements CommandQueue {
             return;
         }
 
-        Map<String, List<MessageExt>> collect = msgs.stream().parallel().collect(Collectors.groupingBy(MessageExt::getKeys));
-        for (String key : collect.keySet()) {
-            List<MessageExt> messageExts = collect.get(key);
-
-            List<MessageExt> sortedMessages = sortByQueueOffset(messageExts);
+        for (MessageExt msg : sortByQueueOffset(msgs)) {
+            record(msg, null);
+        }
+    }
 
-            //最后的消息
-            MessageExt result = sortedMessages.get(sortedMessages.size() - 1);
+    //记录每个jobId最新的命令；删除的job不再保留，恢复时也不再执行
+    private void record(MessageExt msg, Command command) throws DeserializeException {
+        synchronized (latestCommands) {
+            String emptyBody = msg.getUserProperty(Constant.EMPTY_BODY);
+            if (Constant.TRUE.equals(emptyBody)) {
+                latestCommands.remove(msg.getKeys());
+            } else {
+                if (command == null) {
+                    command = deserialize(msg.getUserProperty(RSQLConstant.BODY_TYPE), msg.getBody());
+                }
 
-            String emptyBody = result.getUserProperty(Constant.EMPTY_BODY);
+                latestCommands.remove(command.getJobId());
+                if (command.getStatus() != CommandStatus.REMOVED) {
+                    latestCommands.put(command.getJobId(), msg.getBody());
+                }
+            }
+            nextOffset = Math.max(nextOffset, msg.getQueueOffset() + 1);
+        }
+    }
 
-            if (Constant.TRUE.equals(emptyBody)) {
-                continue;
+    private void restoreFromLatest() throws DeserializeException {
+        synchronized (latestCommands) {
+            for (byte[] body : latestCommands.values()) {
+                Command command = commandSerDe.deserialize(body);
+                saveTable(command);
+                this.restoreCommand.add(command);
             }
+        }
+    }
 
-            Command command = deserializeAndSaveTable(result);
+    private boolean seekToSnapshot(MessageQueue messageQueue) {
+        CommandSnapshot.Content content;
+        try {
+            content = snapshot.read(mqAdmin.minOffset(messageQueue), mqAdmin.maxOffset(messageQueue));
+        } catch (MQClientException e) {
+            logger.warn("query offset of command topic error, replay command topic from the beginning.", e);
+            return false;
+        }
+        if (content == null) {
+            return false;
+        }
+
+        try {
+            pullConsumer.seek(messageQueue, content.getNextOffset());
+        } catch (MQClientException e) {
+            logger.warn("offset of command snapshot is out of range, replay command topic from the beginning. offset:{}", content.getNextOffset(), e);
+            return false;
+        }
+
+        synchronized (latestCommands) {
+            latestCommands.putAll(content.getCommands());
+            nextOffset = content.getNextOffset();
+        }
+        snapshotOffset = content.getNextOffset();
+        logger.info("load {} commands from snapshot, replay command topic from offset:{}", content.getCommands().size(), content.getNextOffset());
+        return true;
+    }
 
-            this.restoreCommand.add(command);
+    private synchronized void takeSnapshot() {
+        try {
+            long offset;
+            LinkedHashMap<String, byte[]> commands;
+            synchronized (latestCommands) {
+                if (nextOffset == snapshotOffset) {
+                    return;
+                }
+                offset = nextOffset;
+                commands = new LinkedHashMap<>(latestCommands);
+            }
+
+            snapshot.write(offset, commands);
+            snapshotOffset = offset;
+        } catch (Throwable t) {
+            logger.error("write command snapshot error.", t);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private Command deserializeAndSaveTable(MessageExt msg) throws DeserializeException {
-        String clazzName = msg.getUserProperty(RSQLConstant.BODY_TYPE);
+    private Command deserialize(String clazzName, byte[] body) throws DeserializeException {
         if (!Command.class.getName().equals(clazzName)) {
             throw new DeserializeException("unknown class name: " + clazzName);
         }
 
-        Command command = commandSerDe.deserialize(msg.getBody());
+        return commandSerDe.deserialize(body);
+    }
+
+    private void saveTable(Command command) {
         Node node = command.getNode();
 
         //保存到本地内存
@@ -417,8 +606,6 @@ public class RocketMQStorage implements CommandQueue {
             Statement statement = (Statement) node;
             tableCache.put(statement.getTableName(), statement);
         }
-
-        return command;
     }
 
     private List<MessageExt> sortByQueueOffset(List<MessageExt> target) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 1999-2023 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rsqldb.storage.rocketmq;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+//read返回null时，restore从头回放命令topic
+public class CommandSnapshotTest {
+    private static final String IDENTITY = RocketMQStorage.identity("127.0.0.1:9876", null, "RSQLDB-COMMAND-TOPIC");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CommandSnapshot write(String identity, long nextOffset) throws Throwable {
+        LinkedHashMap<String, byte[]> commands = new LinkedHashMap<>();
+        commands.put("2", new byte[]{4, 5});
+        commands.put("1", new byte[]{1, 2, 3});
+
+        CommandSnapshot snapshot = new CommandSnapshot(folder.getRoot(), "RSQLDB-COMMAND-TOPIC", identity);
+        snapshot.write(nextOffset, commands);
+        return snapshot;
+    }
+
+    //修改后重新计算crc，只让格式校验失败
+    private void rewrite(File file, int position, int value) throws Throwable {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        buffer.putInt(position, value);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), 0, buffer.capacity() - Long.BYTES);
+        buffer.putLong(buffer.capacity() - Long.BYTES, crc32.getValue());
+        Files.write(file.toPath(), buffer.array());
+    }
+
+    @Test
+    public void roundTrip() throws Throwable {
+        CommandSnapshot snapshot = write(IDENTITY, 10);
+
+        CommandSnapshot.Content content = snapshot.read(0, 10);
+        assertNotNull(content);
+        assertEquals(10, content.getNextOffset());
+        assertEquals(Arrays.asList("2", "1"), Arrays.asList(content.getCommands().keySet().toArray()));
+        assertArrayEquals(new byte[]{4, 5}, content.getCommands().get("2"));
+        assertArrayEquals(new byte[]{1, 2, 3}, content.getCommands().get("1"));
+    }
+
+    @Test
+    public void crcMismatch() throws Throwable {
+        CommandSnapshot snapshot = write(IDENTITY, 10);
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot.getFile(), "rw")) {
+            raf.seek(raf.length() - 12);
+            raf.write(9);
+        }
+
+        assertNull(snapshot.read(0, 10));
+    }
+
+    @Test
+    public void truncated() throws Throwable {
+        CommandSnapshot snapshot = write(IDENTITY, 10);
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot.getFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        assertNull(snapshot.read(0, 10));
+
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot.getFile(), "rw")) {
+            raf.setLength(4);
+        }
+        assertNull(snapshot.read(0, 10));
+    }
+
+    @Test
+    public void unknownFormat() throws Throwable {
+        CommandSnapshot snapshot = write(IDENTITY, 10);
+        rewrite(snapshot.getFile(), 0, 0x12345678);
+        assertNull(snapshot.read(0, 10));
+
+        snapshot = write(IDENTITY, 10);
+        rewrite(snapshot.getFile(), 4, 1);
+        assertNull(snapshot.read(0, 10));
+    }
+
+    @Test
+    public void otherCluster() throws Throwable {
+        CommandSnapshot local = write(IDENTITY, 10);
+
+        String other = RocketMQStorage.identity("192.168.0.1:9876", null, "RSQLDB-COMMAND-TOPIC");
+        CommandSnapshot remote = new CommandSnapshot(folder.getRoot(), "RSQLDB-COMMAND-TOPIC", other);
+        assertNotEquals(local.getFile(), remote.getFile());
+        assertNull(remote.read(0, 10));
+
+        //文件名相同时由快照头中的identity区分
+        Files.copy(local.getFile().toPath(), remote.getFile().toPath());
+        assertNull(remote.read(0, 10));
+
+        String namespace = RocketMQStorage.identity("127.0.0.1:9876", "other", "RSQLDB-COMMAND-TOPIC");
+        assertNull(new CommandSnapshot(folder.getRoot(), "RSQLDB-COMMAND-TOPIC", namespace).read(0, 10));
+
+        //namesrv地址的顺序不影响identity
+        assertEquals(RocketMQStorage.identity("a:9876;b:9876", "", "t"), RocketMQStorage.identity("b:9876; a:9876", null, "t"));
+    }
+
+    @Test
+    public void offsetOutOfRange() throws Throwable {
+        CommandSnapshot snapshot = write(IDENTITY, 100);
+
+        //topic被重建或清空后，最大位点小于快照位点
+        assertNull(snapshot.read(0, 50));
+        assertNull(snapshot.read(120, 200));
+        assertNotNull(snapshot.read(100, 200));
+    }
+}